@@ -0,0 +1,107 @@
+package ru.ephy.raidhelper.bench;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.events.bell.BellRaidCache;
+import ru.ephy.raidhelper.stub.ManualTickClock;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The raid range lookup the Teleporter does on every bell
+ * ring, {@link BellRaidCache#getRaidsNear}: once with every
+ * bell cached, and once with a cache that keeps no bell, so
+ * every ring takes the miss path through the spatial index.
+ * The bare spatial index query is measured on its own. The
+ * full world scan the cache replaced is kept as a baseline
+ * only; the plugin no longer calls it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BellRangeBenchmark {
+
+    private static final double RADIUS_SQUARED = BenchFixtures.EFFECT_RADIUS * BenchFixtures.EFFECT_RADIUS;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int raidCount;
+
+    private RaidManager raidManager;
+    private BellRaidCache bellRaidCache;
+    private BellRaidCache missBellCache;
+    private World world;
+    private Location[] bells;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld stubWorld = server.createWorld(BenchFixtures.WORLD_NAME);
+        final StubRaid[] raids = BenchFixtures.createRaids(stubWorld, raidCount);
+
+        world = stubWorld.getWorld();
+        raidManager = new RaidManager(new ManualTickClock());
+        bells = new Location[raidCount];
+        for (int index = 0; index < raidCount; index++) {
+            raidManager.addRaidIfAbsent(raids[index].getRaid());
+            bells[index] = raids[index].getLocation().clone().add(12, 1, -7); // Bell in the village
+        }
+        raidManager.publishSnapshot();
+
+        bellRaidCache = new BellRaidCache(raidManager, BenchFixtures.createConfig(server, 1, raidCount));
+        missBellCache = new BellRaidCache(raidManager, BenchFixtures.createConfig(server, 1, 0));
+        raidManager.addListener(bellRaidCache);
+        raidManager.addListener(missBellCache);
+    }
+
+    @Benchmark
+    public List<RaidData> bellCacheHit() {
+        return bellRaidCache.getRaidsNear(nextBell());
+    }
+
+    @Benchmark
+    public List<RaidData> bellCacheMiss() {
+        return missBellCache.getRaidsNear(nextBell());
+    }
+
+    @Benchmark
+    public List<RaidData> spatialIndexLookup() {
+        final Location bell = nextBell();
+        return raidManager.findRaidsWithin(world, bell.getX(), bell.getZ(), BenchFixtures.EFFECT_RADIUS);
+    }
+
+    @Benchmark
+    public int fullWorldScanBaseline() {
+        final Location bell = nextBell();
+        int found = 0;
+
+        for (final RaidData raidData : raidManager.getRaids(world)) {
+            if (raidData.getRaidLocation().distanceSquared(bell) < RADIUS_SQUARED) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private Location nextBell() {
+        cursor = cursor + 1 == bells.length ? 0 : cursor + 1;
+        return bells[cursor];
+    }
+}
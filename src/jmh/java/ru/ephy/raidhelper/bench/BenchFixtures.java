@@ -0,0 +1,76 @@
+package ru.ephy.raidhelper.bench;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.util.List;
+
+/**
+ * Builds the worlds, raids and configuration shared by the benchmarks.
+ */
+final class BenchFixtures {
+
+    static final String WORLD_NAME = "bench";       // Name of the benchmark world
+    static final double EFFECT_RADIUS = 50;         // Bell effect radius of the benchmarks
+    static final int RAID_SPACING = 200;            // Blocks between two raid centers
+    static final int DEFAULT_BELL_CACHE_SIZE = 256; // Bell cache size of the bundled config
+
+    private BenchFixtures() {
+    }
+
+    /**
+     * Creates raids on a square grid, one village every
+     * {@link #RAID_SPACING} blocks, and adds them to the world.
+     *
+     * @param world     World to create the raids in
+     * @param raidCount Number of raids
+     * @return The created raids
+     */
+    static StubRaid[] createRaids(final StubWorld world, final int raidCount) {
+        final int side = (int) Math.ceil(Math.sqrt(raidCount));
+        final StubRaid[] raids = new StubRaid[raidCount];
+
+        for (int index = 0; index < raidCount; index++) {
+            final double x = (index % side) * RAID_SPACING;
+            final double z = (index / side) * RAID_SPACING;
+
+            raids[index] = new StubRaid(index + 1, new Location(world.getWorld(), x, 64, z));
+            world.addRaid(raids[index]);
+        }
+        return raids;
+    }
+
+    /**
+     * Creates a configuration that monitors the benchmark world.
+     *
+     * @param server           The stub server
+     * @param maxChecksPerTick Max raids processed per tick
+     * @return The configuration
+     */
+    static Config createConfig(final StubServer server, final int maxChecksPerTick) {
+        return createConfig(server, maxChecksPerTick, DEFAULT_BELL_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a configuration that monitors the benchmark world
+     * and remembers the raids near the given number of bells.
+     *
+     * @param server           The stub server
+     * @param maxChecksPerTick Max raids processed per tick
+     * @param bellCacheSize    Bells per world whose raids in range are cached
+     * @return The configuration
+     */
+    static Config createConfig(final StubServer server, final int maxChecksPerTick, final int bellCacheSize) {
+        final YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("settings.worlds", List.of(WORLD_NAME));
+        yaml.set("settings.mechanics.effect_radius", EFFECT_RADIUS);
+        yaml.set("settings.raid_check.max_checks_per_tick", maxChecksPerTick);
+        yaml.set("settings.raid_check.bell_cache_size", bellCacheSize);
+
+        return new Config(yaml, server.getLogger());
+    }
+}
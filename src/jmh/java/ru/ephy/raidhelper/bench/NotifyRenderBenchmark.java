@@ -0,0 +1,151 @@
+package ru.ephy.raidhelper.bench;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationDispatcher;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationManager;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.stub.ManualTickClock;
+import ru.ephy.raidhelper.stub.StubPlayer;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering cost of the notify path: one raid sending its
+ * action bar to every player around it, the players using
+ * a mix of locales with and without a locale file. Every
+ * pass moves past the notify interval, so every player
+ * gets an action bar. The precompiled send of one shared
+ * component is measured next to it; the score divided by
+ * the player count should stay flat as the players grow,
+ * and close to the one of the precompiled send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NotifyRenderBenchmark {
+
+    private static final int NOTIFY_INTERVAL = 20; // Ticks between two action bars of a player
+    private static final Component PRECOMPILED = Component.text("If you can't find the raiders, just ring the bell");
+    private static final List<Locale> LOCALES = List.of(
+            Locale.US, Locale.GERMANY, new Locale("de", "AT"), new Locale("ru", "RU"), Locale.FRANCE);
+
+    @Param({"1", "10", "100", "1000"})
+    private int playerCount;
+
+    private NotificationManager notificationManager;
+    private RaidData raidData;
+    private Player[] players;
+    private long currentTick;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld world = server.createWorld(BenchFixtures.WORLD_NAME);
+        final StubRaid raid = BenchFixtures.createRaids(world, 1)[0];
+        final RaidManager raidManager = new RaidManager(new ManualTickClock());
+        raidManager.addRaidIfAbsent(raid.getRaid());
+        raidManager.publishSnapshot();
+
+        final Config config = new Config(createYaml(), createDataFolder(), server.getLogger());
+        final PerformanceStats stats = new PerformanceStats();
+        notificationManager = new NotificationManager(new NotificationDispatcher(config, stats), stats);
+
+        players = new Player[playerCount];
+        for (int index = 0; index < playerCount; index++) {
+            final StubPlayer player = new StubPlayer("player" + index, raid.getLocation());
+            player.setLocale(LOCALES.get(index % LOCALES.size()));
+            players[index] = player.getPlayer();
+        }
+
+        raidData = raidManager.getRaids(world.getWorld()).get(0);
+        raidData.setPlayersWithinRaid(Set.of(players));
+        raidData.startWave(0L, 0L);
+        currentTick = 0L;
+    }
+
+    @Benchmark
+    public void notifyPlayers() {
+        currentTick += NOTIFY_INTERVAL;
+        notificationManager.notifyPlayers(raidData, currentTick);
+    }
+
+    @Benchmark
+    public void sendPrecompiled() {
+        for (final Player player : players) {
+            player.sendActionBar(PRECOMPILED);
+        }
+    }
+
+    /**
+     * Creates a configuration with MiniMessage and legacy
+     * messages in the monitored benchmark world.
+     *
+     * @return The configuration file
+     */
+    private YamlConfiguration createYaml() {
+        final YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("settings.worlds", List.of(BenchFixtures.WORLD_NAME));
+        yaml.set("settings.mechanics.notify_interval", NOTIFY_INTERVAL);
+        yaml.set("settings.messages.ring", "<green>If you can't find the raiders, <bold>ring the bell</bold>.");
+        yaml.set("settings.messages.cooldown", "&cPlease wait before ringing the bell again.");
+        return yaml;
+    }
+
+    /**
+     * Writes a German and a Russian locale file into a new
+     * data folder.
+     *
+     * @return The data folder
+     * @throws IOException If the files cannot be written
+     */
+    private Path createDataFolder() throws IOException {
+        final Path dataFolder = Files.createTempDirectory("raidhelper-bench");
+        final Path messages = Files.createDirectories(dataFolder.resolve("messages"));
+        dataFolder.toFile().deleteOnExit(); // Files registered later are deleted first
+        messages.toFile().deleteOnExit();
+
+        writeLocale(messages.resolve("de.yml"),
+                "<green>Wenn du die Angreifer nicht findest, <bold>laeute die Glocke</bold>.");
+        writeLocale(messages.resolve("ru_ru.yml"), "&aPozvonite v kolokol, &lesli ne mozhete naiti reiderov.");
+        return dataFolder;
+    }
+
+    /**
+     * Writes a locale file with a ring message.
+     *
+     * @param file File to write
+     * @param ring Ring message of the locale
+     * @throws IOException If the file cannot be written
+     */
+    private void writeLocale(final Path file, final String ring) throws IOException {
+        final YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("ring", ring);
+        yaml.save(file.toFile());
+        file.toFile().deleteOnExit();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.ephy.raidhelper.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.ConfigManager;
+import ru.ephy.raidhelper.platform.PaperScheduler;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidCacheManager;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.stub.ManualTickClock;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubScheduler;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One refresh pass of the {@link RaidCacheManager} stage:
+ * collecting the expired raids, capturing the players and
+ * the proximity join, which the stub scheduler runs inline
+ * after the sync tasks of the tick. A manual tick clock is
+ * moved past the cache expiry before every pass, so every
+ * raid is expired whatever the scheduler tick is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RaidCacheQueueBenchmark {
+
+    private static final int STAGE_CADENCE = 20; // Ticks between two refresh passes
+
+    @Param({"10", "100", "1000", "10000"})
+    private int raidCount;
+
+    private StubScheduler scheduler;
+    private ManualTickClock tickClock;
+    private long expireTicks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld world = server.createWorld(BenchFixtures.WORLD_NAME);
+        final StubRaid[] stubRaids = BenchFixtures.createRaids(world, raidCount);
+        final Config config = BenchFixtures.createConfig(server, raidCount);
+        tickClock = new ManualTickClock();
+        expireTicks = config.getCacheExpireTime() + 1L;
+        final RaidManager raidManager = new RaidManager(tickClock);
+        final PerformanceStats stats = new PerformanceStats();
+
+        for (final StubRaid raid : stubRaids) {
+            raidManager.addRaidIfAbsent(raid.getRaid());
+        }
+        raidManager.publishSnapshot();
+
+        final PlatformScheduler platformScheduler = new PaperScheduler(null);
+        final TickPipeline pipeline = new TickPipeline(
+                platformScheduler, raidManager, new ConfigManager(null, config, server.getLogger()), tickClock,
+                stats, server.getLogger());
+        pipeline.addStage(new RaidCacheManager(platformScheduler, raidManager, tickClock, config, stats));
+
+        scheduler = server.getScheduler();
+    }
+
+    @Benchmark
+    public void raidCacheRefreshPass() {
+        tickClock.advance(expireTicks); // Expire every raid so the join runs as well
+        scheduler.tick(STAGE_CADENCE);
+    }
+}
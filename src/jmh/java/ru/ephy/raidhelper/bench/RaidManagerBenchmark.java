@@ -0,0 +1,97 @@
+package ru.ephy.raidhelper.bench;
+
+import org.bukkit.Raid;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.stub.ManualTickClock;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration, lookup and removal of raids in the
+ * {@link RaidManager}, as done by the monitors on
+ * every scan and by RaidEnd. Run with the gc profiler
+ * to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RaidManagerBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int raidCount;
+
+    private RaidManager raidManager;
+    private World world;
+    private Raid[] raids;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld stubWorld = server.createWorld(BenchFixtures.WORLD_NAME);
+        final StubRaid[] stubRaids = BenchFixtures.createRaids(stubWorld, raidCount);
+
+        world = stubWorld.getWorld();
+        raidManager = new RaidManager(new ManualTickClock());
+        raids = new Raid[raidCount];
+        for (int index = 0; index < raidCount; index++) {
+            raids[index] = stubRaids[index].getRaid();
+            raidManager.addRaidIfAbsent(raids[index]);
+        }
+        raidManager.publishSnapshot();
+    }
+
+    @Benchmark
+    public boolean isRaidRegistered() {
+        return raidManager.isRaidRegistered(nextRaid());
+    }
+
+    @Benchmark
+    public boolean isRaidRegisteredById() {
+        return raidManager.isRaidRegistered(world, nextRaid().getId());
+    }
+
+    @Benchmark
+    public long walkWorldRaids() {
+        final List<RaidData> worldRaids = raidManager.getRaids(world);
+        long sum = 0;
+        for (int index = 0; index < worldRaids.size(); index++) {
+            sum += worldRaids.get(index).getRaidId();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void addRaidIfAbsentRegistered() {
+        raidManager.addRaidIfAbsent(nextRaid());
+    }
+
+    @Benchmark
+    public void removeRaidIfPresentAndReAdd() {
+        final Raid raid = nextRaid();
+        raidManager.removeRaidIfPresent(raid);
+        raidManager.addRaidIfAbsent(raid);
+    }
+
+    private Raid nextRaid() {
+        cursor = cursor + 1 == raids.length ? 0 : cursor + 1;
+        return raids[cursor];
+    }
+}
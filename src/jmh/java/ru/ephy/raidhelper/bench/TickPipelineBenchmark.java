@@ -0,0 +1,85 @@
+package ru.ephy.raidhelper.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.ConfigManager;
+import ru.ephy.raidhelper.platform.PaperScheduler;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.platform.ServerTickClock;
+import ru.ephy.raidhelper.platform.TickClock;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.pipeline.NotifyStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.raid.pipeline.WaveStateStage;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationDispatcher;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidWaveProcessor;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubScheduler;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue churn of one second of the {@link TickPipeline}:
+ * the wave state and notify stages queueing every active
+ * raid and the shared queue draining them. The budget fits
+ * both stages, so the queue drains within one tick and the
+ * other ticks only check the cadences.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TickPipelineBenchmark {
+
+    private static final int STAGE_CADENCE = 20; // Ticks between two passes of the raid stages
+
+    @Param({"10", "100", "1000", "10000"})
+    private int raidCount;
+
+    private StubScheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld world = server.createWorld(BenchFixtures.WORLD_NAME);
+        final StubRaid[] raids = BenchFixtures.createRaids(world, raidCount);
+        final Config config = BenchFixtures.createConfig(server, raidCount * 2);
+        final TickClock tickClock = new ServerTickClock(); // Follows the ticks of the stub scheduler
+        final RaidManager raidManager = new RaidManager(tickClock);
+
+        for (final StubRaid raid : raids) {
+            raidManager.addRaidIfAbsent(raid.getRaid());
+        }
+
+        final RaidWaveProcessor waveProcessor = new RaidWaveProcessor(config);
+        final PlatformScheduler platformScheduler = new PaperScheduler(null);
+        final PerformanceStats stats = new PerformanceStats();
+        final TickPipeline pipeline = new TickPipeline(
+                platformScheduler, raidManager, new ConfigManager(null, config, server.getLogger()), tickClock,
+                stats, server.getLogger());
+        final NotificationManager notificationManager = new NotificationManager(
+                new NotificationDispatcher(config, stats), stats);
+        pipeline.addStage(new WaveStateStage(raidManager, waveProcessor, config));
+        pipeline.addStage(new NotifyStage(raidManager, waveProcessor, notificationManager, config));
+
+        scheduler = server.getScheduler();
+    }
+
+    @Benchmark
+    public void tickPipelinePass() {
+        scheduler.tick(STAGE_CADENCE);
+    }
+}
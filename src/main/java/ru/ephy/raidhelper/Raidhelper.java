@@ -1,15 +1,38 @@
 package ru.ephy.raidhelper;
 
+import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import ru.ephy.raidhelper.command.RaidHelperCommand;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.platform.ServerTickClock;
+import ru.ephy.raidhelper.platform.TickClock;
 import ru.ephy.raidhelper.raid.data.RaidManager;
 import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.ConfigManager;
 import ru.ephy.raidhelper.raid.monitor.RaidEventMonitor;
+import ru.ephy.raidhelper.raid.monitor.RaidLifecycleMonitor;
 import ru.ephy.raidhelper.raid.monitor.RaidSchedulerMonitor;
-import ru.ephy.raidhelper.raid.scheduler.RaidScheduler;
+import ru.ephy.raidhelper.raid.pipeline.NotifyStage;
+import ru.ephy.raidhelper.raid.pipeline.TeleportStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.raid.pipeline.WaveStateStage;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationDispatcher;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidCacheManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidWaveProcessor;
+import ru.ephy.raidhelper.raid.scheduler.TimingWheel;
 import ru.ephy.raidhelper.raid.events.bell.BellRing;
+import ru.ephy.raidhelper.raid.events.bell.BellRingBuffer;
+import ru.ephy.raidhelper.raid.events.bell.SafeTargetResolver;
 import ru.ephy.raidhelper.raid.events.end.RaidEnd;
+import ru.ephy.raidhelper.raid.events.raider.RaiderTracker;
+import ru.ephy.raidhelper.raid.store.RaidStateStore;
+import ru.ephy.raidhelper.stats.PerformanceStats;
 
+import java.io.File;
 import java.util.logging.Logger;
 
 /**
@@ -19,11 +42,44 @@ import java.util.logging.Logger;
  */
 public final class Raidhelper extends JavaPlugin {
 
-    private JavaPlugin plugin;           // Plugin reference
-    private PluginManager pluginManager; // Bukkit plugin manager
-    private RaidManager raidManager;     // Raid management system
-    private Config config;               // Plugin configuration
-    private Logger logger;               // Plugin logger
+    private static final String RAID_STATE_FILE = "raids.dat"; // Raid state file in the data folder
+
+    private JavaPlugin plugin;                   // Plugin reference
+    private PluginManager pluginManager;         // Bukkit plugin manager
+    private PlatformScheduler platformScheduler; // Paper or Folia scheduler
+    private TickClock tickClock;                 // Current game tick
+    private RaidManager raidManager;             // Raid management system
+    private TimingWheel timingWheel;             // Timers for delayed teleports
+    private PerformanceStats stats;              // Latencies and counters of the plugin
+    private TickPipeline pipeline;               // Runs the periodic work of the plugin
+    private RaidCacheManager raidCacheManager;   // Keeps the players near every raid up to date
+    private BellRingBuffer bellRingBuffer;       // Collects the bell rings of a tick
+    private SafeTargetResolver targetResolver;   // Finds a safe teleport spot near every bell
+    private RaidStateStore raidStateStore;       // Saves the raid state across restarts
+    private ConfigManager configManager;         // Holds the current configuration
+    private Config config;                       // Configuration loaded on startup
+    private Logger logger;                       // Plugin logger
+
+    /**
+     * Creates the plugin when it is loaded by the server.
+     */
+    public Raidhelper() {
+        super();
+    }
+
+    /**
+     * Creates the plugin outside a plugin class loader.
+     * Used by the headless simulation harness only.
+     *
+     * @param loader      Plugin loader of the stub server
+     * @param description Description of the plugin
+     * @param dataFolder  Data folder of the plugin
+     * @param file        File the plugin was loaded from
+     */
+    Raidhelper(final JavaPluginLoader loader, final PluginDescriptionFile description,
+               final File dataFolder, final File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     /**
      * Called when the plugin is enabled.
@@ -32,20 +88,36 @@ public final class Raidhelper extends JavaPlugin {
     @Override
     public void onEnable() {
         initializeCoreComponents();
+        if (config.getValidWorlds().isEmpty()) {
+            logger.severe("No valid worlds found in config. Disabling the plugin.");
+            pluginManager.disablePlugin(plugin);
+            return;
+        }
+
         startRaidSystems();
         registerListeners();
+        registerCommands();
     }
 
     /**
      * Initializes core components like the logger, config,
-     * plugin manager, and raid manager.
+     * plugin manager, platform scheduler, raid manager,
+     * timing wheel, stats and tick pipeline.
      */
     private void initializeCoreComponents() {
         plugin = this;
         logger = getLogger();
         config = initializeConfig();
+        configManager = new ConfigManager(plugin, config, logger);
         pluginManager = getServer().getPluginManager();
-        raidManager = new RaidManager();
+        if (platformScheduler == null) {
+            platformScheduler = PlatformScheduler.create(plugin);
+        }
+        tickClock = new ServerTickClock();
+        raidManager = new RaidManager(tickClock);
+        timingWheel = new TimingWheel(logger);
+        stats = new PerformanceStats();
+        pipeline = new TickPipeline(platformScheduler, raidManager, configManager, tickClock, stats, logger);
     }
 
     /**
@@ -55,60 +127,145 @@ public final class Raidhelper extends JavaPlugin {
      */
     private Config initializeConfig() {
         saveDefaultConfig();
-        return new Config(plugin, getConfig(), logger);
+        return new Config(getConfig(), getDataFolder().toPath(), logger);
     }
 
     /**
-     * Starts raid monitoring and scheduling systems based on
-     * configuration.
+     * Adds the raid monitoring and processing stages to
+     * the tick pipeline based on configuration.
      */
     private void startRaidSystems() {
         startRaidMonitor();
-        startRaidScheduler();
+        startRaidStages();
     }
 
     /**
      * Starts the appropriate raid monitoring system
-     * based on the selected mode (Scheduler/Event).
+     * based on the selected mode (Scheduler/Event/Incremental).
      */
     private void startRaidMonitor() {
         switch (config.getRaidCheckMode()) {
-            case SCHEDULER -> new RaidSchedulerMonitor(plugin, raidManager, config, logger);
+            case SCHEDULER -> pipeline.addStage(
+                    new RaidSchedulerMonitor(platformScheduler, raidManager, config, stats));
             case EVENT -> {
                 final RaidEventMonitor raidEventMonitor = new RaidEventMonitor(
-                        plugin, raidManager, config, logger);
+                        platformScheduler, pipeline, raidManager, configManager);
                 pluginManager.registerEvents(raidEventMonitor, plugin);
             }
+            case INCREMENTAL -> {
+                final RaidLifecycleMonitor raidLifecycleMonitor = new RaidLifecycleMonitor(
+                        platformScheduler, raidManager, config, logger);
+                pluginManager.registerEvents(raidLifecycleMonitor, plugin);
+                pipeline.addStage(raidLifecycleMonitor);
+            }
             default -> {
                 logger.warning("Invalid RaidCheckMode. Defaulting to SCHEDULER.");
-                new RaidSchedulerMonitor(plugin, raidManager, config, logger);
+                pipeline.addStage(new RaidSchedulerMonitor(platformScheduler, raidManager, config, stats));
             }
         }
     }
 
     /**
-     * Starts a scheduler to periodically manage raids.
+     * Adds the stages that refresh the player cache, update
+     * the wave state, notify players, fire teleports,
+     * resolve the bell rings and save the raid state.
      */
-    private void startRaidScheduler() {
-        new RaidScheduler(plugin, raidManager, config, logger);
+    private void startRaidStages() {
+        final RaidWaveProcessor waveProcessor = new RaidWaveProcessor(config);
+
+        final NotificationManager notificationManager = new NotificationManager(
+                new NotificationDispatcher(config, stats), stats);
+        final NotifyStage notifyStage = new NotifyStage(raidManager, waveProcessor, notificationManager, config);
+        raidManager.addListener(notifyStage);
+
+        raidCacheManager = new RaidCacheManager(platformScheduler, raidManager, tickClock, config, stats);
+        raidManager.addListener(raidCacheManager);
+        pipeline.addStage(raidCacheManager);
+        pipeline.addStage(new WaveStateStage(raidManager, waveProcessor, config));
+        pipeline.addStage(notifyStage);
+        pipeline.addStage(new TeleportStage(timingWheel));
+
+        targetResolver = new SafeTargetResolver(platformScheduler, config, stats);
+        bellRingBuffer = new BellRingBuffer(
+                platformScheduler, raidManager, timingWheel, targetResolver, config, stats, logger);
+        pipeline.addStage(bellRingBuffer);
+
+        raidStateStore = new RaidStateStore(platformScheduler, raidManager, tickClock, config, stats, logger,
+                getDataFolder().toPath().resolve(RAID_STATE_FILE));
+        raidManager.addListener(raidStateStore);
+        pipeline.addStage(raidStateStore);
+        raidStateStore.load();
     }
 
     /**
      * Registers event listeners for raid-related events.
      */
     private void registerListeners() {
-        final BellRing bellRing = new BellRing(plugin, raidManager, config, logger);
-        final RaidEnd raidEnd = new RaidEnd(raidManager);
+        final BellRing bellRing = new BellRing(platformScheduler, bellRingBuffer, configManager, stats);
+        final RaidEnd raidEnd = new RaidEnd(platformScheduler, raidManager);
+        final RaiderTracker raiderTracker = new RaiderTracker(platformScheduler, raidManager);
 
         pluginManager.registerEvents(bellRing, plugin);
         pluginManager.registerEvents(raidEnd, plugin);
+        pluginManager.registerEvents(raidCacheManager, plugin);
+        pluginManager.registerEvents(raiderTracker, plugin);
+        pluginManager.registerEvents(targetResolver, plugin);
     }
 
     /**
-     * Called when the plugin is disabled. Reserved for cleanup tasks.
+     * Registers the /raidhelper command if the plugin
+     * description declares it.
+     */
+    private void registerCommands() {
+        final PluginCommand command = getCommand("raidhelper");
+        if (command == null) {
+            logger.warning("Command /raidhelper is missing from plugin.yml.");
+            return;
+        }
+
+        final RaidHelperCommand raidHelperCommand = new RaidHelperCommand(
+                platformScheduler, raidManager, timingWheel, configManager, stats);
+        command.setExecutor(raidHelperCommand);
+        command.setTabCompleter(raidHelperCommand);
+    }
+
+    /**
+     * Replaces the scheduler picked for the server. Used by
+     * the headless simulation harness to run the plugin on
+     * the Folia backend. Must be called before enabling.
+     *
+     * @param platformScheduler Scheduler to use
+     */
+    void setPlatformScheduler(final PlatformScheduler platformScheduler) {
+        this.platformScheduler = platformScheduler;
+    }
+
+    /**
+     * Returns the tick pipeline. Used by the headless
+     * simulation harness to read the stage timings.
+     *
+     * @return The tick pipeline, null before the plugin is enabled
+     */
+    TickPipeline getTickPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Called when the plugin is disabled. Saves the raid
+     * state, stops the pipeline and drops pending timers.
+     * The last save blocks, as async tasks no longer run
+     * once the plugin is disabled.
      */
     @Override
     public void onDisable() {
-        // Handle any necessary cleanup tasks if needed in the future.
+        if (raidStateStore != null) {
+            raidStateStore.saveNow();
+        }
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
     }
 }
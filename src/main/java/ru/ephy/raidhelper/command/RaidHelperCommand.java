@@ -0,0 +1,188 @@
+package ru.ephy.raidhelper.command;
+
+import lombok.RequiredArgsConstructor;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.jetbrains.annotations.NotNull;
+import ru.ephy.raidhelper.config.ConfigManager;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.scheduler.TimingWheel;
+import ru.ephy.raidhelper.stats.LatencyHistogram;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Handles the /raidhelper command. The stats subcommand
+ * shows the latency of every processing stage, the work
+ * counters and the most expensive raids. The reload
+ * subcommand reads the config file again; the running
+ * components pick up the new settings on the next tick.
+ */
+@RequiredArgsConstructor
+public class RaidHelperCommand implements TabExecutor {
+
+    private static final int TOP_RAIDS = 5;           // Raids shown in the top list
+    private static final List<String> SUBCOMMANDS = List.of("stats", "reload"); // Completed subcommands
+
+    private final PlatformScheduler platformScheduler; // Runs the reload on the owning thread
+    private final RaidManager raidManager;            // Manages active raids
+    private final TimingWheel timingWheel;            // Timers for delayed teleports
+    private final ConfigManager configManager;        // Reloads the configuration
+    private final PerformanceStats stats;             // Performance stats of the plugin
+
+    /**
+     * Executes the command.
+     *
+     * @param sender  Who sent the command
+     * @param command The command
+     * @param label   Alias used
+     * @param args    Arguments of the command
+     * @return false to show the usage, true otherwise
+     */
+    @Override
+    public boolean onCommand(@NotNull final CommandSender sender, @NotNull final Command command,
+                             @NotNull final String label, @NotNull final String[] args) {
+        if (args.length == 0) return false;
+        if (args[0].equalsIgnoreCase("reload")) {
+            reload(sender);
+            return true;
+        }
+        if (!args[0].equalsIgnoreCase("stats")) return false;
+
+        if (!sender.hasPermission("raidhelper.stats")) {
+            sender.sendMessage(Component.text("You are not allowed to view RaidHelper stats.", NamedTextColor.RED));
+            return true;
+        }
+        if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            stats.reset();
+            sender.sendMessage(Component.text("RaidHelper stats have been reset.", NamedTextColor.GREEN));
+        } else {
+            sendStats(sender);
+        }
+        return true;
+    }
+
+    /**
+     * Completes the subcommands.
+     *
+     * @param sender  Who is typing the command
+     * @param command The command
+     * @param label   Alias used
+     * @param args    Arguments typed so far
+     * @return Matching completions
+     */
+    @Override
+    public List<String> onTabComplete(@NotNull final CommandSender sender, @NotNull final Command command,
+                                      @NotNull final String label, @NotNull final String[] args) {
+        if (args.length == 1) {
+            final String typed = args[0].toLowerCase();
+            return SUBCOMMANDS.stream().filter(subcommand -> subcommand.startsWith(typed)).toList();
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            return "reset".startsWith(args[1].toLowerCase()) ? List.of("reset") : List.of();
+        }
+        return List.of();
+    }
+
+    /**
+     * Reloads the configuration on the thread that owns the
+     * plugin state and reports the outcome.
+     *
+     * @param sender Who reloads the configuration
+     */
+    private void reload(final CommandSender sender) {
+        if (!sender.hasPermission("raidhelper.reload")) {
+            sender.sendMessage(Component.text("You are not allowed to reload RaidHelper.", NamedTextColor.RED));
+            return;
+        }
+
+        platformScheduler.runGlobal(() -> {
+            if (configManager.reload()) {
+                sender.sendMessage(Component.text("RaidHelper config has been reloaded.", NamedTextColor.GREEN));
+            } else {
+                sender.sendMessage(Component.text("RaidHelper config was not reloaded, see the console.",
+                        NamedTextColor.RED));
+            }
+        });
+    }
+
+    /**
+     * Sends the stage latencies, the counters and the
+     * most expensive raids.
+     *
+     * @param sender Who receives the stats
+     */
+    private void sendStats(final CommandSender sender) {
+        final List<RaidData> raids = raidManager.getAllRaids();
+        final long seconds = Math.max(1L, (System.currentTimeMillis() - stats.getResetTimeMillis()) / 1000L);
+
+        sender.sendMessage(Component.text("RaidHelper stats (last " + seconds + "s)", NamedTextColor.GOLD));
+        for (final PerformanceStats.Stage stage : PerformanceStats.Stage.values()) {
+            final LatencyHistogram histogram = stats.getHistogram(stage);
+            sender.sendMessage(Component.text(String.format(" %s: n=%d p50=%s p99=%s max=%s",
+                    stage.getDisplayName(), histogram.getCount(),
+                    formatNanos(histogram.getPercentileNanos(50)),
+                    formatNanos(histogram.getPercentileNanos(99)),
+                    formatNanos(histogram.getMaxNanos())), NamedTextColor.GRAY));
+        }
+
+        sender.sendMessage(Component.text(String.format(
+                " Raids tracked: %d, queue depth: %d, cache refreshes: %d, bell rings: %d, teleports: %d",
+                raids.size(), stats.getQueueDepth().get(), stats.getCacheRefreshes().sum(),
+                stats.getBellRings().sum(), stats.getTeleports().sum()), NamedTextColor.GRAY));
+        sender.sendMessage(Component.text(String.format(" Timers pending: %d, fired: %d",
+                timingWheel.getPendingTimers(), timingWheel.getFiredTimers()), NamedTextColor.GRAY));
+        sender.sendMessage(Component.text(String.format(" Player cache hits: %d, misses: %d",
+                stats.getCacheHits().sum(), stats.getCacheMisses().sum()), NamedTextColor.GRAY));
+        sender.sendMessage(Component.text(String.format(" Action bars sent: %d, saved: %d",
+                stats.getActionBarsSent().sum(), stats.getActionBarsSaved().sum()), NamedTextColor.GRAY));
+        if (!stats.getScanIntervals().isEmpty()) {
+            sender.sendMessage(Component.text(" World scan intervals: " + formatScanIntervals(), NamedTextColor.GRAY));
+        }
+
+        final List<RaidData> topRaids = stats.getTopRaids(raids, TOP_RAIDS);
+        if (topRaids.isEmpty()) return;
+
+        sender.sendMessage(Component.text("Most expensive raids:", NamedTextColor.GOLD));
+        for (final RaidData raidData : topRaids) {
+            sender.sendMessage(Component.text(String.format(" #%d %s (%d, %d, %d): %s",
+                    raidData.getRaidId(), raidData.getRaidWorld().getName(),
+                    raidData.getRaidLocation().getBlockX(), raidData.getRaidLocation().getBlockY(),
+                    raidData.getRaidLocation().getBlockZ(),
+                    formatNanos(raidData.getProcessingNanos())), NamedTextColor.GRAY));
+        }
+    }
+
+    /**
+     * Formats the current scan interval of every world,
+     * sorted by world name.
+     *
+     * @return Formatted intervals, such as "world 20t, world_the_end off"
+     */
+    private String formatScanIntervals() {
+        return new TreeMap<>(stats.getScanIntervals()).entrySet().stream()
+                .map(entry -> entry.getKey() + " " + (entry.getValue() > 0 ? entry.getValue() + "t" : "off"))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Formats a duration with a readable unit.
+     *
+     * @param nanoseconds Duration to format
+     * @return Formatted duration
+     */
+    private static String formatNanos(final long nanoseconds) {
+        if (nanoseconds < 1_000L) return nanoseconds + "ns";
+        if (nanoseconds < 1_000_000L) return String.format("%.1fµs", nanoseconds / 1_000.0);
+        if (nanoseconds < 1_000_000_000L) return String.format("%.2fms", nanoseconds / 1_000_000.0);
+        return String.format("%.2fs", nanoseconds / 1_000_000_000.0);
+    }
+}
@@ -1,12 +1,11 @@
 package ru.ephy.raidhelper.config;
 
 import lombok.Getter;
-import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.plugin.java.JavaPlugin;
 
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -14,8 +13,11 @@ import java.util.logging.Logger;
 
 /**
  * Handles the plugin's configuration by loading and validating
- * values from the configuration file. If critical configuration
- * (like worlds) is missing, the plugin will be disabled.
+ * values from the configuration file. A Config is an immutable
+ * snapshot: a reload parses a new one and the
+ * {@link ConfigManager} publishes it, so a snapshot can be
+ * read from any thread. Callers check that the snapshot has
+ * valid worlds before using it.
  */
 @Getter
 public class Config {
@@ -23,77 +25,103 @@ public class Config {
     private static final String MESSAGES = "settings.messages";     // Path to messages section
     private static final String MECHANICS = "settings.mechanics";   // Path to mechanics section
     private static final String RAID_CHECK = "settings.raid_check"; // Path to raid check section
+    private static final String STORAGE = "settings.storage";       // Path to storage section
     private static final String WORLDS = "settings.worlds";         // Path to worlds section
+    private static final String MESSAGE_FOLDER = "messages";        // Folder of the locale files in the data folder
 
-    private final JavaPlugin plugin;             // Plugin instance
     private final FileConfiguration configFile;  // Configuration file instance
     private final Logger logger;                 // Logger instance
 
-    private RaidCheckMode raidCheckMode;         // Raid check mode (SCHEDULER or EVENT)
+    private RaidCheckMode raidCheckMode;         // Raid check mode (SCHEDULER, EVENT or INCREMENTAL)
+    private BudgetMode budgetMode;               // How the work per tick is limited (COUNT or TIME)
+    private TeleportMode teleportMode;           // How raiders are teleported (SYNC or ASYNC)
     private Set<World> validWorlds;              // Set of valid worlds from the configuration
-    private Component teleportMessage;           // Message when teleport raiders
-    private Component ringMessage;               // Message when ringing the bell is avaliable
-    private Component cooldownWarning;           // Message for cooldown warning
-    private Component partialCooldownWarning;    // Some raids cooldown message
+    private MessageCatalog messages;             // Parsed messages of every locale
     private double radius;                       // Radius for teleportation around the bell
     private int height;                          // Teleportation height
     private int maxPoolSize;                     // Maximum size of the teleporter pool
+    private int bellCacheSize;                   // Maximum cached bells per world
     private int bellCooldown;                    // Bell cooldown duration
     private int bellWorkDelay;                   // Delay before bell activation
     private int worldCheckFrequency;             // Frequency of world checks in ticks
+    private boolean adaptiveScan;                // Whether the scan interval of a world adapts to its activity
+    private int minWorldFrequency;               // Ticks between the scans of a busy world (adaptive scan)
+    private int maxWorldFrequency;               // Max ticks between the scans of an idle world (adaptive scan)
+    private int reconcileFrequency;              // Frequency of reconciliation scans in ticks
     private int maxChecksPerTick;                // Maximum raid checks per tick
+    private int tickBudgetMicros;                // Time budget per tick in microseconds
     private int teleportDelay;                   // Delay before teleporting raiders
+    private int notifyInterval;                  // Min ticks between two action bars of a player
     private int cacheExpireTime;                 // Cache expire time
+    private int saveInterval;                    // Ticks between two saves of the raid state, 0 disables them
 
     /**
      * Enum representing the raid check modes.
      */
     public enum RaidCheckMode {
         SCHEDULER,
-        EVENT
+        EVENT,
+        INCREMENTAL
     }
 
     /**
-     * Constructor that loads and validates the configuration values.
-     * Disables the plugin if the world list is empty.
+     * Enum representing how batchers limit their work per tick.
+     */
+    public enum BudgetMode {
+        COUNT,
+        TIME
+    }
+
+    /**
+     * Enum representing how raiders are teleported to the bell.
+     */
+    public enum TeleportMode {
+        SYNC,
+        ASYNC
+    }
+
+    /**
+     * Constructor that loads and validates the configuration
+     * values, without locale files.
      *
-     * @param plugin      Plugin instance
      * @param configFile  Configuration file instance
      * @param logger      Logger instance for debugging
      */
-    public Config(final JavaPlugin plugin, final FileConfiguration configFile,
-                  final Logger logger) {
+    public Config(final FileConfiguration configFile, final Logger logger) {
+        this(configFile, null, logger);
+    }
+
+    /**
+     * Constructor that loads and validates the configuration
+     * values and the locale files of the data folder.
+     *
+     * @param configFile  Configuration file instance
+     * @param dataFolder  Data folder with the messages folder, or null
+     * @param logger      Logger instance for debugging
+     */
+    public Config(final FileConfiguration configFile, final Path dataFolder, final Logger logger) {
         // Initialize required instances
-        this.plugin = plugin;
         this.configFile = configFile;
         this.logger = logger;
 
         // Load config values
-        loadMessageSettings();
+        loadMessageSettings(dataFolder);
         loadMechanicsSettings();
         loadRaidCheckSettings();
+        loadStorageSettings();
         loadValidWorlds();
-
-        // Disable plugin if no valid worlds are found
-        if (validWorlds.isEmpty()) {
-            logger.severe("No valid worlds found in config. Disabling the plugin.");
-            disablePlugin();
-        }
     }
 
     /**
-     * Loads messages from the configuration file.
-     * Sets default messages if not found in the file.
+     * Loads and parses the messages from the configuration
+     * file and the locale files. Sets default messages if
+     * not found in the file.
+     *
+     * @param dataFolder Data folder with the messages folder, or null
      */
-    private void loadMessageSettings() {
-        teleportMessage = loadComponent(MESSAGES + ".teleport",
-                "Raiders on their way to your bell!");
-        ringMessage = loadComponent(MESSAGES + ".ring",
-                "If you can't find the raiders, just ring the bell");
-        cooldownWarning = loadComponent(MESSAGES + ".cooldown",
-                "Please wait before ringing the bell again.");
-        partialCooldownWarning = loadComponent(MESSAGES + ".some_cooldown",
-                "Some raids are still in cooldown, but others are active. Teleporting available raiders.");
+    private void loadMessageSettings(final Path dataFolder) {
+        messages = MessageCatalog.load(configFile.getConfigurationSection(MESSAGES),
+                dataFolder == null ? null : dataFolder.resolve(MESSAGE_FOLDER), logger);
     }
 
     /**
@@ -104,8 +132,10 @@ public class Config {
         bellCooldown = getValidatedInt(MECHANICS + ".bell_cooldown", 100);
         bellWorkDelay = getValidatedInt(MECHANICS + ".bell_work_delay", 60);
         teleportDelay = getValidatedInt(MECHANICS + ".teleport_delay", 60);
+        notifyInterval = getValidatedInt(MECHANICS + ".notify_interval", 20);
         height = getValidatedInt(MECHANICS + ".spawn_height", 10);
         radius = getValidatedDouble(MECHANICS + ".effect_radius", 50);
+        teleportMode = getTeleportMode(MECHANICS + ".teleport_mode", "ASYNC");
     }
 
     /**
@@ -115,11 +145,30 @@ public class Config {
     private void loadRaidCheckSettings() {
         raidCheckMode = getRaidCheckMode(RAID_CHECK + ".mode", "SCHEDULER");
         worldCheckFrequency = getValidatedInt(RAID_CHECK + ".world_frequency", 100);
+        adaptiveScan = configFile.getBoolean(RAID_CHECK + ".adaptive_scan", false);
+        minWorldFrequency = Math.max(1, getValidatedInt(RAID_CHECK + ".min_world_frequency", 20));
+        maxWorldFrequency = getValidatedInt(RAID_CHECK + ".max_world_frequency", 1200);
+        if (maxWorldFrequency < minWorldFrequency) {
+            logger.warning("Config value at '" + RAID_CHECK + ".max_world_frequency' is below the minimum. "
+                    + "Using " + minWorldFrequency);
+            maxWorldFrequency = minWorldFrequency;
+        }
+        reconcileFrequency = getValidatedInt(RAID_CHECK + ".reconcile_frequency", 6000);
         maxChecksPerTick = getValidatedInt(RAID_CHECK + ".max_checks_per_tick", 5);
+        budgetMode = getBudgetMode(RAID_CHECK + ".budget_mode", "COUNT");
+        tickBudgetMicros = getValidatedInt(RAID_CHECK + ".tick_budget", 500);
         maxPoolSize = getValidatedInt(RAID_CHECK + ".max_pool_size", 5);
+        bellCacheSize = getValidatedInt(RAID_CHECK + ".bell_cache_size", 256);
         cacheExpireTime = getValidatedInt(RAID_CHECK + ".cache_expire_time", 200);
     }
 
+    /**
+     * Loads the settings of the raid state store.
+     */
+    private void loadStorageSettings() {
+        saveInterval = getValidatedInt(STORAGE + ".save_interval", 1200);
+    }
+
     /**
      * Loads and validates the worlds listed in the configuration.
      * Only valid worlds (non-NETHER because there are no raids)
@@ -127,30 +176,18 @@ public class Config {
      */
     private void loadValidWorlds() {
         final List<String> worldNames = configFile.getStringList(WORLDS);
-        validWorlds = new HashSet<>();
+        final Set<World> worlds = new HashSet<>();
 
         for (final String worldName : worldNames) {
             final World world = Bukkit.getWorld(worldName);
 
             if (world != null && world.getEnvironment() != World.Environment.NETHER) {
-                validWorlds.add(world);
+                worlds.add(world);
             } else {
                 logger.warning("The world " + worldName + " is null or a nether world.");
             }
         }
-    }
-
-    /**
-     * Returns a text component from the config, or the default message
-     * if the path is not found. Uses caching for frequently accessed
-     * configuration paths.
-     *
-     * @param path         Configuration path
-     * @param defaultValue Default message value
-     * @return Text component for the message
-     */
-    private Component loadComponent(final String path, final String defaultValue) {
-        return Component.text(configFile.getString(path, defaultValue));
+        validWorlds = Set.copyOf(worlds);
     }
 
     /**
@@ -171,6 +208,42 @@ public class Config {
         }
     }
 
+    /**
+     * Returns the budget mode from the configuration file.
+     * Defaults to COUNT if the mode is invalid.
+     *
+     * @param path          Configuration path
+     * @param defaultValue  Default value if invalid
+     * @return BudgetMode value
+     */
+    private BudgetMode getBudgetMode(final String path, final String defaultValue) {
+        final String mode = configFile.getString(path, defaultValue).toUpperCase();
+        try {
+            return BudgetMode.valueOf(mode);
+        } catch (final IllegalArgumentException exception) {
+            logger.warning("Invalid budget mode at '" + path + "'. Defaulting to " + defaultValue);
+            return BudgetMode.valueOf(defaultValue.toUpperCase());
+        }
+    }
+
+    /**
+     * Returns the teleport mode from the configuration file.
+     * Defaults to ASYNC if the mode is invalid.
+     *
+     * @param path          Configuration path
+     * @param defaultValue  Default value if invalid
+     * @return TeleportMode value
+     */
+    private TeleportMode getTeleportMode(final String path, final String defaultValue) {
+        final String mode = configFile.getString(path, defaultValue).toUpperCase();
+        try {
+            return TeleportMode.valueOf(mode);
+        } catch (final IllegalArgumentException exception) {
+            logger.warning("Invalid teleport mode at '" + path + "'. Defaulting to " + defaultValue);
+            return TeleportMode.valueOf(defaultValue.toUpperCase());
+        }
+    }
+
     /**
      * Retrieves a validated non-negative integer from the config.
      * Returns the default value if the config value is negative or invalid.
@@ -204,11 +277,4 @@ public class Config {
         }
         return value;
     }
-
-    /**
-     * Disables the plugin if was called.
-     */
-    private void disablePlugin() {
-        plugin.getServer().getPluginManager().disablePlugin(plugin);
-    }
 }
@@ -0,0 +1,81 @@
+package ru.ephy.raidhelper.config;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.logging.Logger;
+
+/**
+ * Holds the current {@link Config} snapshot. A reload
+ * parses and validates a new snapshot from the config
+ * file and the locale files and publishes it in one write, so readers see
+ * either the old or the new settings, never a mix. The
+ * tick pipeline hands a new snapshot to its stages on
+ * the next tick. The raid check mode is picked on startup
+ * and kept until a restart, whatever the reloads say.
+ */
+public class ConfigManager {
+
+    private final JavaPlugin plugin;                         // Plugin whose config file is read, null if not reloadable
+    private final Logger logger;                             // Logs rejected reloads
+    private final Config.RaidCheckMode startedRaidCheckMode; // Raid check mode the plugin runs with
+
+    private volatile Config config;                          // Current settings snapshot
+
+    /**
+     * Initializes the manager with the settings loaded
+     * on startup.
+     *
+     * @param plugin Plugin whose config file is read on reload
+     * @param config Settings loaded on startup
+     * @param logger Logs rejected reloads
+     */
+    public ConfigManager(final JavaPlugin plugin, final Config config, final Logger logger) {
+        // Initializes required instances
+        this.plugin = plugin;
+        this.config = config;
+        this.logger = logger;
+
+        // Initializes required variables
+        startedRaidCheckMode = config.getRaidCheckMode();
+    }
+
+    /**
+     * Returns the current settings snapshot.
+     *
+     * @return The current snapshot
+     */
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * Reads the config file again and publishes the new
+     * snapshot. A snapshot without valid worlds is
+     * rejected and the current settings stay in place, as
+     * they do if there is no plugin to read the file of.
+     * Runs on the main thread.
+     *
+     * @return true if the new snapshot was published
+     */
+    public boolean reload() {
+        if (plugin == null) {
+            logger.warning("There is no config file to reload. Keeping the current settings.");
+            return false;
+        }
+
+        plugin.reloadConfig();
+        final Config reloaded = new Config(plugin.getConfig(), plugin.getDataFolder().toPath(), logger);
+
+        if (reloaded.getValidWorlds().isEmpty()) {
+            logger.warning("No valid worlds found in the reloaded config. Keeping the current settings.");
+            return false;
+        }
+        if (reloaded.getRaidCheckMode() != startedRaidCheckMode) {
+            logger.warning("The raid check mode can only be changed by a restart. Keeping "
+                    + startedRaidCheckMode + " until then.");
+        }
+
+        config = reloaded;
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package ru.ephy.raidhelper.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message with a {count} placeholder. The message is
+ * split at every placeholder when the config is loaded,
+ * so filling in a count appends the parts around it
+ * instead of searching the message on every send. The
+ * parts are flattened: every part carries the style it
+ * inherited from its parents, and the count takes the
+ * style of the text it replaces. Like a text replacement,
+ * only placeholders within one piece of text are found.
+ */
+public final class CountedMessage {
+
+    private static final String PLACEHOLDER = "{count}"; // Replaced by the count
+
+    private final Component template;       // The message with the placeholders
+    private final List<Component> segments; // Parts around the placeholders, one more than the count styles
+    private final List<Style> countStyles;  // Style of the count at every placeholder
+
+    /**
+     * Creates a message from its parts.
+     *
+     * @param template    The message with the placeholders
+     * @param segments    Parts around the placeholders
+     * @param countStyles Style of the count at every placeholder
+     */
+    private CountedMessage(final Component template, final List<Component> segments,
+                           final List<Style> countStyles) {
+        // Initializes required variables
+        this.template = template;
+        this.segments = segments;
+        this.countStyles = countStyles;
+    }
+
+    /**
+     * Splits a parsed message at its placeholders.
+     *
+     * @param template The parsed message
+     * @return The split message
+     */
+    public static CountedMessage of(final Component template) {
+        final List<Component> leaves = new ArrayList<>();
+        flatten(template, Style.empty(), leaves);
+
+        final List<Component> segments = new ArrayList<>();
+        final List<Style> countStyles = new ArrayList<>();
+        TextComponent.Builder segment = Component.text();
+
+        for (final Component leaf : leaves) {
+            if (!(leaf instanceof final TextComponent text) || !text.content().contains(PLACEHOLDER)) {
+                segment.append(leaf);
+                continue;
+            }
+
+            final String content = text.content();
+            int start = 0;
+            int index;
+            while ((index = content.indexOf(PLACEHOLDER, start)) >= 0) {
+                if (index > start) segment.append(text.content(content.substring(start, index)));
+                segments.add(segment.build());
+                countStyles.add(text.style());
+
+                segment = Component.text();
+                start = index + PLACEHOLDER.length();
+            }
+            if (start < content.length()) segment.append(text.content(content.substring(start)));
+        }
+        segments.add(segment.build());
+
+        return new CountedMessage(template, List.copyOf(segments), List.copyOf(countStyles));
+    }
+
+    /**
+     * Returns the message with the placeholders.
+     *
+     * @return The message as it was parsed
+     */
+    public Component template() {
+        return template;
+    }
+
+    /**
+     * Returns the message with the count filled in.
+     *
+     * @param count The count
+     * @return The message
+     */
+    public Component format(final int count) {
+        if (countStyles.isEmpty()) return template;
+
+        final String text = String.valueOf(count);
+        final TextComponent.Builder builder = Component.text().append(segments.get(0));
+        for (int index = 0; index < countStyles.size(); index++) {
+            builder.append(Component.text(text, countStyles.get(index))).append(segments.get(index + 1));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Lists a component and all its descendants without
+     * children, each with the style it inherits merged in.
+     *
+     * @param component   Component to flatten
+     * @param parentStyle Style inherited from the parents
+     * @param leaves      Receives the flattened components
+     */
+    private static void flatten(final Component component, final Style parentStyle, final List<Component> leaves) {
+        final Style style = component.style().merge(parentStyle, Style.Merge.Strategy.IF_ABSENT_ON_TARGET);
+
+        leaves.add(component.children(List.of()).style(style));
+        for (final Component child : component.children()) {
+            flatten(child, style, leaves);
+        }
+    }
+}
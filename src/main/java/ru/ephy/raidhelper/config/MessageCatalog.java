@@ -0,0 +1,174 @@
+package ru.ephy.raidhelper.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * The messages of the plugin in every configured locale.
+ * Every message is parsed into an immutable component when
+ * the config is loaded: text with legacy color codes
+ * (such as {@code &a}) is read as legacy text, any
+ * other text as MiniMessage. Locale files in the messages
+ * folder, named after the client locale ({@code de_de.yml})
+ * or its language ({@code de.yml}), override the messages
+ * of {@code config.yml} for the players using that locale.
+ * <p>
+ * Finding the messages of a player takes at most two
+ * lookups in the immutable map of locale files, so nothing
+ * is kept per client locale. Lookups may happen on any thread.
+ */
+public class MessageCatalog {
+
+    private static final String FILE_SUFFIX = ".yml";                               // Extension of a locale file
+    private static final char AMPERSAND = LegacyComponentSerializer.AMPERSAND_CHAR; // Legacy code prefix in files
+    private static final char SECTION = LegacyComponentSerializer.SECTION_CHAR;     // Legacy code prefix of the game
+
+    // A legacy color or format code
+    private static final Pattern LEGACY_CODE = Pattern.compile("[" + AMPERSAND + SECTION + "][0-9a-fk-orA-FK-OR#]");
+
+    // Reads &a and &#rrggbb
+    private static final LegacyComponentSerializer LEGACY_AMPERSAND = LegacyComponentSerializer.builder()
+            .character(AMPERSAND).hexColors().build();
+
+    // Reads the section sign codes the game uses
+    private static final LegacyComponentSerializer LEGACY_SECTION = LegacyComponentSerializer.builder()
+            .character(SECTION).hexColors().build();
+
+    private final Messages defaults;                  // Messages of config.yml
+    private final Map<String, Messages> localeFiles;  // Messages of every locale file, by lower-case name
+
+    /**
+     * Creates a catalog from parsed messages.
+     *
+     * @param defaults    Messages of config.yml
+     * @param localeFiles Messages of every locale file, by lower-case name
+     */
+    private MessageCatalog(final Messages defaults, final Map<String, Messages> localeFiles) {
+        // Initializes required variables
+        this.defaults = defaults;
+        this.localeFiles = Map.copyOf(localeFiles);
+    }
+
+    /**
+     * Parses the messages of config.yml and of every locale
+     * file in the folder. Locale files that cannot be read
+     * are reported and skipped.
+     *
+     * @param section Messages section of config.yml, or null
+     * @param folder  Folder of the locale files, or null if there is none
+     * @param logger  Logs unreadable locale files
+     * @return The catalog
+     */
+    public static MessageCatalog load(final ConfigurationSection section, final Path folder, final Logger logger) {
+        final Messages defaults = parse(section, new Messages(
+                Component.text("Raiders on their way to your bell!"),
+                Component.text("If you can't find the raiders, just ring the bell"),
+                Component.text("Please wait before ringing the bell again."),
+                Component.text("Some raids are still in cooldown, but others are active. "
+                        + "Teleporting available raiders."),
+                CountedMessage.of(Component.text("{count} raiders arrived at your bell."))));
+
+        final Map<String, Messages> localeFiles = new HashMap<>();
+        if (folder != null && Files.isDirectory(folder)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + FILE_SUFFIX)) {
+                for (final Path file : files) {
+                    final String fileName = file.getFileName().toString();
+                    final String locale = fileName.substring(0, fileName.length() - FILE_SUFFIX.length());
+
+                    localeFiles.put(locale.toLowerCase(Locale.ROOT),
+                            parse(YamlConfiguration.loadConfiguration(file.toFile()), defaults));
+                }
+            } catch (final IOException exception) {
+                logger.log(Level.WARNING, "Could not read the locale files in " + folder + ".", exception);
+            }
+        }
+        return new MessageCatalog(defaults, localeFiles);
+    }
+
+    /**
+     * Returns the messages of a player.
+     *
+     * @param player The player
+     * @return Messages in the locale of the player
+     */
+    public Messages forPlayer(final Player player) {
+        return forLocale(player.locale());
+    }
+
+    /**
+     * Returns the messages of a locale: those of the locale
+     * file of the exact locale, else of its language, else
+     * those of config.yml.
+     *
+     * @param locale The locale
+     * @return Messages in the locale
+     */
+    public Messages forLocale(final Locale locale) {
+        if (localeFiles.isEmpty()) return defaults;
+
+        final Messages exact = localeFiles.get(locale.toString().toLowerCase(Locale.ROOT));
+        if (exact != null) return exact;
+
+        return localeFiles.getOrDefault(locale.getLanguage().toLowerCase(Locale.ROOT), defaults);
+    }
+
+    /**
+     * Parses the messages of a section. Missing messages
+     * are taken from the fallback.
+     *
+     * @param section  Section with the messages, or null
+     * @param fallback Messages to use for the missing ones
+     * @return The parsed messages
+     */
+    private static Messages parse(final ConfigurationSection section, final Messages fallback) {
+        if (section == null) return fallback;
+
+        return new Messages(
+                parse(section.getString("teleport"), fallback.teleport()),
+                parse(section.getString("ring"), fallback.ring()),
+                parse(section.getString("cooldown"), fallback.cooldown()),
+                parse(section.getString("some_cooldown"), fallback.someCooldown()),
+                parseCounted(section.getString("arrived"), fallback.arrived()));
+    }
+
+    /**
+     * Parses a message with a {count} placeholder.
+     *
+     * @param text     Text of the message, or null
+     * @param fallback Message to use if the text is missing
+     * @return The parsed message
+     */
+    private static CountedMessage parseCounted(final String text, final CountedMessage fallback) {
+        return text == null ? fallback : CountedMessage.of(parse(text, fallback.template()));
+    }
+
+    /**
+     * Parses one message as legacy text if it has legacy
+     * color codes, or as MiniMessage otherwise.
+     *
+     * @param text     Text of the message, or null
+     * @param fallback Message to use if the text is missing
+     * @return The parsed message
+     */
+    private static Component parse(final String text, final Component fallback) {
+        if (text == null) return fallback;
+        if (!LEGACY_CODE.matcher(text).find()) return MiniMessage.miniMessage().deserialize(text);
+
+        return text.indexOf(SECTION) >= 0 ? LEGACY_SECTION.deserialize(text) : LEGACY_AMPERSAND.deserialize(text);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.ephy.raidhelper.config;
+
+import net.kyori.adventure.text.Component;
+
+/**
+ * The messages of one locale, parsed once when the config
+ * is loaded. Sending a message is a field read.
+ *
+ * @param teleport     Message when raiders are teleported
+ * @param ring         Action bar while the bell can be rung
+ * @param cooldown     Message while the raids are on cooldown
+ * @param someCooldown Message when some raids are on cooldown
+ * @param arrived      Summary of an async teleport, {count} is the raiders arrived
+ */
+public record Messages(Component teleport, Component ring, Component cooldown,
+                       Component someCooldown, CountedMessage arrived) {
+
+    /**
+     * Returns the summary of an async teleport with the
+     * number of raiders filled in.
+     *
+     * @param count Number of raiders that arrived
+     * @return The summary
+     */
+    public Component formatArrived(final int count) {
+        return arrived.format(count);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.ephy.raidhelper.platform;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Scheduler for Folia. The plugin state is owned by the
+ * global region thread, the work of a raid runs on the
+ * region scheduler that owns the raid location and the
+ * work of an entity on the entity's own scheduler.
+ */
+@RequiredArgsConstructor
+public class FoliaScheduler implements PlatformScheduler {
+
+    private static final String REGIONIZED_SERVER = "io.papermc.paper.threadedregions.RegionizedServer";
+
+    private final JavaPlugin plugin; // Plugin the tasks belong to
+
+    /**
+     * Tells whether the server is Folia.
+     *
+     * @return true if the regionized server classes are present
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName(REGIONIZED_SERVER);
+            return true;
+        } catch (final ClassNotFoundException exception) {
+            return false;
+        }
+    }
+
+    @Override
+    public PlatformTask runTimer(final Runnable task, final long delay, final long period) {
+        final ScheduledTask scheduledTask = Bukkit.getGlobalRegionScheduler()
+                .runAtFixedRate(plugin, ignored -> task.run(), delay, period);
+        return scheduledTask::cancel;
+    }
+
+    @Override
+    public void runGlobal(final Runnable task) {
+        if (Bukkit.isGlobalTickThread()) {
+            task.run();
+        } else {
+            Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+        }
+    }
+
+    @Override
+    public void runAtLocation(final Location location, final Runnable task) {
+        if (Bukkit.isOwnedByCurrentRegion(location)) {
+            task.run();
+        } else {
+            Bukkit.getRegionScheduler().execute(plugin, location, task);
+        }
+    }
+
+    @Override
+    public void runForEntity(final Entity entity, final Runnable task, final Runnable retired) {
+        if (entity.getScheduler().run(plugin, ignored -> task.run(), retired) == null) {
+            retired.run(); // The entity was removed before the task could be scheduled
+        }
+    }
+
+    @Override
+    public void runAsync(final Runnable task) {
+        Bukkit.getAsyncScheduler().runNow(plugin, ignored -> task.run());
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(final Location location) {
+        return Bukkit.isOwnedByCurrentRegion(location);
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.ephy.raidhelper.platform;
+
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Scheduler for Paper and Spigot. All plugin state, raids
+ * and entities are owned by the main thread, so work for
+ * them runs inline on the main thread and is handed to
+ * the Bukkit scheduler from any other thread.
+ */
+@RequiredArgsConstructor
+public class PaperScheduler implements PlatformScheduler {
+
+    private final JavaPlugin plugin; // Plugin the tasks belong to
+
+    @Override
+    public PlatformTask runTimer(final Runnable task, final long delay, final long period) {
+        final BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(plugin, task, delay, period);
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public void runGlobal(final Runnable task) {
+        runOnMainThread(task);
+    }
+
+    @Override
+    public void runAtLocation(final Location location, final Runnable task) {
+        runOnMainThread(task);
+    }
+
+    @Override
+    public void runForEntity(final Entity entity, final Runnable task, final Runnable retired) {
+        runOnMainThread(task);
+    }
+
+    @Override
+    public void runAsync(final Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(final Location location) {
+        return Bukkit.isPrimaryThread();
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+
+    /**
+     * Runs the work inline on the main thread or
+     * schedules it for the next tick.
+     *
+     * @param task Work to run
+     */
+    private void runOnMainThread(final Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.ephy.raidhelper.platform;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Runs the work of the plugin on the thread the server
+ * platform expects it on. On Paper everything but the
+ * async work runs on the main thread. On Folia the plugin
+ * state is owned by the global region thread, while the
+ * work of a raid runs on the region that owns its location
+ * and the work of an entity on the entity's scheduler, so
+ * raids in different regions are processed in parallel.
+ */
+public interface PlatformScheduler {
+
+    /**
+     * Starts a repeating task on the thread that owns
+     * the plugin state.
+     *
+     * @param task   Work to run
+     * @param delay  Ticks before the first run, at least 1
+     * @param period Ticks between two runs
+     * @return Handle to cancel the task
+     */
+    PlatformTask runTimer(Runnable task, long delay, long period);
+
+    /**
+     * Runs work on the thread that owns the plugin state.
+     * The work runs right away if the caller is on that
+     * thread already.
+     *
+     * @param task Work to run
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Runs work on the thread that owns the location.
+     * The work runs right away if the caller is on that
+     * thread already.
+     *
+     * @param location Location the work touches
+     * @param task     Work to run
+     */
+    void runAtLocation(Location location, Runnable task);
+
+    /**
+     * Runs work on the thread that owns the entity. If the
+     * entity was removed before the work could run, the
+     * retired callback runs instead.
+     *
+     * @param entity  Entity the work touches
+     * @param task    Work to run
+     * @param retired Work to run if the entity was removed
+     */
+    void runForEntity(Entity entity, Runnable task, Runnable retired);
+
+    /**
+     * Runs work off the server threads.
+     *
+     * @param task Work to run
+     */
+    void runAsync(Runnable task);
+
+    /**
+     * Tells whether the current thread owns the location
+     * and may read the blocks, entities and raids at it.
+     *
+     * @param location Location to check
+     * @return true if the work for the location may run on the current thread
+     */
+    boolean isOwnedByCurrentThread(Location location);
+
+    /**
+     * Tells whether the server ticks its regions on
+     * several threads.
+     *
+     * @return true on Folia, false on Paper
+     */
+    boolean isRegionized();
+
+    /**
+     * Creates the scheduler for the server the plugin
+     * runs on.
+     *
+     * @param plugin The JavaPlugin instance
+     * @return Folia scheduler on Folia, Paper scheduler otherwise
+     */
+    static PlatformScheduler create(final JavaPlugin plugin) {
+        return FoliaScheduler.isSupported() ? new FoliaScheduler(plugin) : new PaperScheduler(plugin);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.ephy.raidhelper.platform;
+
+/**
+ * Handle of a repeating task started through a
+ * {@link PlatformScheduler}.
+ */
+@FunctionalInterface
+public interface PlatformTask {
+
+    /**
+     * Cancels the task. Runs that already started finish.
+     */
+    void cancel();
+}
@@ -0,0 +1,20 @@
+package ru.ephy.raidhelper.platform;
+
+import org.bukkit.Bukkit;
+
+/**
+ * Tick clock backed by the tick counter of the server.
+ * On Folia it is the tick of the global region.
+ */
+public class ServerTickClock implements TickClock {
+
+    /**
+     * Returns the tick the server is in.
+     *
+     * @return The current server tick
+     */
+    @Override
+    public long getCurrentTick() {
+        return Bukkit.getCurrentTick();
+    }
+}
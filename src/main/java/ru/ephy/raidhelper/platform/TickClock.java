@@ -0,0 +1,19 @@
+package ru.ephy.raidhelper.platform;
+
+/**
+ * Source of the current game tick for everything that
+ * measures time in the plugin: cache expiry, bell delays
+ * and cooldowns, scan intervals and saved raid state.
+ * Ticks follow the game rather than the wall clock, so
+ * when the server lags the timers lag with it.
+ */
+@FunctionalInterface
+public interface TickClock {
+
+    /**
+     * Returns the current tick. Safe to call from any thread.
+     *
+     * @return The current tick
+     */
+    long getCurrentTick();
+}
@@ -11,12 +11,18 @@ import org.bukkit.entity.Player;
 import org.bukkit.entity.Raider;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents data associated with a specific raid,
  * including its location, world, and raider behavior settings.
- * Tracks a time counter which can be incremented or reset.
+ * The bell state is a {@link Phase} plus absolute game
+ * ticks: when the wave started, when the bell starts to work
+ * and until when it is on cooldown. Whether the bell works
+ * or is on cooldown is a comparison against the current tick,
+ * so nothing has to be updated while time passes. Fields are
+ * safe to read from any thread.
  */
 @Getter
 @Setter
@@ -29,26 +35,90 @@ public class RaidData {
     private final Location raidLocation;                   // Location where the raid is occurring
     private final World raidWorld;                         // World in which the raid takes place
 
-    private Set<Player> playersWithinRaid;                 // Set of players within the raid's range
-    private Set<Raider> raiderSet;                         // Set of raiders of the raid
-    private boolean teleportEnabled = false;               // Allows raiders to teleport when the bell rings
-    private boolean cooldownActive = false;                // Indicates if the raid is in cooldown
-    private boolean counterResetAllowed = false;           // Prevents counter reset if false
+    private volatile Set<Player> playersWithinRaid = Set.of(); // Immutable set of players within the raid's range
+    private final Set<Raider> raiderSet = ConcurrentHashMap.newKeySet(); // Raiders of the raid, kept up to date by events
     private AtomicLong lastUpdatedTime = new AtomicLong(); // Last updated time of the cache
-    private int tickCounter = 0;                           // Tracks time (in ticks) since the raid started or was reset
+    private volatile long cacheGeneration = 1L;            // Bumped by every change that may move players in or out
+    private volatile long cachedGeneration = 0L;           // Generation the players within the raid were joined for
+    private final AtomicLong processingNanos = new AtomicLong(); // Time spent processing the raid
+    private volatile Phase phase = Phase.IDLE;             // Whether a wave is ongoing
+    private volatile long waveStartedTick = 0L;            // Tick the ongoing wave was noticed in
+    private volatile long teleportEnabledTick = 0L;        // Tick from which the bell works in the ongoing wave
+    private volatile long cooldownUntilTick = 0L;          // Tick at which the cooldown of the bell ends
 
     /**
-     * Increments the tick counter by one.
+     * Wave phase of a raid.
      */
-    public void incrementCounter() {
-        tickCounter++;
+    public enum Phase {
+        IDLE, // No wave is ongoing, the bell does not work
+        WAVE  // A wave is ongoing, the bell works from teleportEnabledTick on
     }
 
     /**
-     * Resets the tick counter to zero.
+     * Starts a wave. The bell works once the delay has passed.
+     *
+     * @param currentTick Current game tick
+     * @param delayTicks  Ticks before the bell works
+     */
+    public void startWave(final long currentTick, final long delayTicks) {
+        waveStartedTick = currentTick;
+        teleportEnabledTick = currentTick + delayTicks;
+        phase = Phase.WAVE;
+    }
+
+    /**
+     * Ends the ongoing wave.
+     */
+    public void endWave() {
+        phase = Phase.IDLE;
+    }
+
+    /**
+     * Puts the bell on cooldown.
+     *
+     * @param currentTick   Current game tick
+     * @param durationTicks Ticks the cooldown lasts
+     */
+    public void startCooldown(final long currentTick, final long durationTicks) {
+        cooldownUntilTick = currentTick + durationTicks;
+    }
+
+    /**
+     * Tells whether the bell teleports the raiders of this raid.
+     *
+     * @param currentTick Current game tick
+     * @return true if a wave is ongoing and its delay has passed
+     */
+    public boolean isTeleportEnabled(final long currentTick) {
+        return phase == Phase.WAVE && currentTick >= teleportEnabledTick;
+    }
+
+    /**
+     * Tells whether the bell is on cooldown.
+     *
+     * @param currentTick Current game tick
+     * @return true if the cooldown has not ended yet
      */
-    public void resetCounter() {
-        tickCounter = 0;
+    public boolean isCooldownActive(final long currentTick) {
+        return currentTick < cooldownUntilTick;
+    }
+
+    /**
+     * Marks the players within the raid as stale. Called
+     * on the main thread only.
+     */
+    public void invalidateCache() {
+        cacheGeneration++;
+    }
+
+    /**
+     * Tells whether something happened near the raid since
+     * its players were last joined.
+     *
+     * @return true if the players within the raid are stale
+     */
+    public boolean isCacheStale() {
+        return cachedGeneration != cacheGeneration;
     }
 
     /**
@@ -69,6 +139,24 @@ public class RaidData {
         lastUpdatedTime.set(time);
     }
 
+    /**
+     * Returns the time spent processing the raid so far.
+     *
+     * @return Processing time in nanoseconds
+     */
+    public long getProcessingNanos() {
+        return processingNanos.get();
+    }
+
+    /**
+     * Adds to the time spent processing the raid.
+     *
+     * @param nanoseconds Time to add
+     */
+    public void addProcessingNanos(final long nanoseconds) {
+        processingNanos.addAndGet(nanoseconds);
+    }
+
     /**
      * Provides a string representation of RaidData for debugging.
      *
@@ -83,11 +171,13 @@ public class RaidData {
                 ", raidWorld=" + raidWorld +
                 ", playersWithinRaid=" + playersWithinRaid +
                 ", raiderSet" + raiderSet +
-                ", isTeleportEnabled=" + teleportEnabled +
-                ", isCooldownActive=" + cooldownActive +
-                ", isCounterResetAllowed=" + counterResetAllowed +
+                ", phase=" + phase +
+                ", waveStartedTick=" + waveStartedTick +
+                ", teleportEnabledTick=" + teleportEnabledTick +
+                ", cooldownUntilTick=" + cooldownUntilTick +
                 ", lastUpdatedTime=" + lastUpdatedTime +
-                ", tickCounter=" + tickCounter +
+                ", cacheGeneration=" + cacheGeneration +
+                ", cachedGeneration=" + cachedGeneration +
                 '}';
     }
 }
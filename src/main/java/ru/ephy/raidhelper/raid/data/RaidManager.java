@@ -1,10 +1,15 @@
 package ru.ephy.raidhelper.raid.data;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Raid;
 import org.bukkit.World;
+import org.bukkit.entity.Raider;
+import ru.ephy.raidhelper.platform.TickClock;
+import ru.ephy.raidhelper.util.IntObjectMap;
 
 import java.util.*;
 
@@ -14,52 +19,169 @@ import java.util.*;
  *
  * This class optimizes raid handling to avoid redundant
  * operations and ensure proper cleanup when raids are no longer needed.
+ *
+ * All writes happen on the main thread. Changes are published
+ * as an immutable {@link RaidSnapshot} once per tick by
+ * {@link #publishSnapshot()}; the snapshot is the read-only
+ * API for async tasks and other plugins.
+ *
+ * Raids are kept per world in int-keyed maps, and worlds
+ * are found through a dense {@link WorldIndex}, so checking
+ * whether a raid is registered neither boxes its id nor
+ * hashes its world.
  */
 @Getter
 @RequiredArgsConstructor
 public class RaidManager {
 
-    // Map of worlds to their active raids
-    private final Map<World, Map<Integer, RaidData>> activeRaidsByWorld = new HashMap<>();
+    // Current game tick, stamped on every registered raid
+    @Getter(AccessLevel.NONE)
+    private final TickClock tickClock;
+
+    // Dense index of the worlds that have had raids
+    @Getter(AccessLevel.NONE)
+    private final WorldIndex worldIndex = new WorldIndex();
+
+    // Active raids by id, one map per world index, main thread only
+    @Getter(AccessLevel.NONE)
+    private final List<IntObjectMap<RaidData>> activeRaidsByWorld = new ArrayList<>();
+
+    // Latest published view of the raids, safe to read from any thread
+    private volatile RaidSnapshot snapshot = RaidSnapshot.EMPTY;
+
+    // Whether the raids changed since the last publish, main thread only
+    @Getter(AccessLevel.NONE)
+    private boolean dirty = false;
+
+    // Chunk grid of the same raids for radius queries
+    @Getter(AccessLevel.NONE)
+    private final RaidSpatialIndex spatialIndex = new RaidSpatialIndex();
+
+    // Raid of every tracked raider, to find it once the raider has left the raid
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, RaidData> raidDataByRaider = new HashMap<>();
+
+    // Listeners told about registered and removed raids, main thread only
+    @Getter(AccessLevel.NONE)
+    private final List<RaidRegistryListener> listeners = new ArrayList<>();
 
     /**
      *
      * Adds a raid if it's not already present and starts any associated logic.
-     * If the raid is new, it will be logged and added for tracking.
+     * If the raid is new, it will be logged and added for tracking. Its
+     * current raiders are read once; afterwards the set is kept up to date
+     * by {@link #addRaider} and {@link #removeRaider}. The registry
+     * listeners are told once the raid is tracked.
      *
      * @param raid The Raid instance to be added
      */
     public void addRaidIfAbsent(final Raid raid) {
+        checkMainThread();
+        if (isRaidRegistered(raid)) return; // Reads the raiders of new raids only
+
+        addRaidIfAbsent(raid, raid.getRaiders());
+    }
+
+    /**
+     * Adds a raid with raiders that were read on the thread
+     * owning the raid. On Folia the raiders of a raid belong
+     * to its region, so they cannot be read here.
+     *
+     * @param raid    The Raid instance to be added
+     * @param raiders Current raiders of the raid
+     */
+    public void addRaidIfAbsent(final Raid raid, final Collection<Raider> raiders) {
+        checkMainThread();
+
         final int raidId = raid.getId();
         final Location raidLocation = raid.getLocation();
         final World raidWorld = raidLocation.getWorld();
 
-        activeRaidsByWorld.computeIfAbsent(raidWorld, world -> new HashMap<>())
-                          .computeIfAbsent(raidId, id -> {
-                              final RaidData raidData = new RaidData(raidId, raid, raidLocation, raidWorld);
-                              raidData.setLastUpdatedTime(System.currentTimeMillis() / 50); // Divides by 50 to transate into ticks. 1 tick = 50ms
-                              return raidData;
-                          });
+        final IntObjectMap<RaidData> raidDataMap = getOrCreateWorldRaids(raidWorld);
+        if (raidDataMap.containsKey(raidId)) return;
+
+        final RaidData raidData = new RaidData(raidId, raid, raidLocation, raidWorld);
+        raidData.setLastUpdatedTime(tickClock.getCurrentTick()); // Registration tick, the cache expires from here
+        raidDataMap.put(raidId, raidData);
+        spatialIndex.add(raidData);
+        raiders.forEach(raider -> trackRaider(raidData, raider));
+        dirty = true;
+
+        listeners.forEach(listener -> listener.onRaidAdded(raidData));
     }
 
     /**
-     * Removes the raid from the map. If no other raids exist
-     * in the world, the world itself is also removed from the map.
+     * Removes the raid from the map. The world keeps its
+     * index and its empty map for the next raid.
+     * The registry listeners are told once the raid is gone.
      *
      * @param raid The Raid instance to be removed.
      */
     public void removeRaidIfPresent(final Raid raid) {
+        checkMainThread();
+
         final int raidId = raid.getId();
         final World raidWorld = raid.getLocation().getWorld();
 
-        activeRaidsByWorld.computeIfPresent(raidWorld, (world, raidDataMap) -> {
-            raidDataMap.remove(raidId);
-            return raidDataMap.isEmpty() ? null : raidDataMap;
-        });
+        final IntObjectMap<RaidData> raidDataMap = getWorldRaids(raidWorld);
+        if (raidDataMap == null) return;
+
+        final RaidData raidData = raidDataMap.remove(raidId);
+        if (raidData == null) return;
+
+        spatialIndex.remove(raidData);
+        raidData.getRaiderSet().forEach(raider -> raidDataByRaider.remove(raider.getUniqueId()));
+        dirty = true;
+
+        listeners.forEach(listener -> listener.onRaidRemoved(raidData));
+    }
+
+    /**
+     * Adds a listener told about every raid registered in
+     * or removed from this manager from now on.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(final RaidRegistryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Publishes a new snapshot if the raids changed since
+     * the last one. Called once per tick on the main thread.
+     */
+    public void publishSnapshot() {
+        if (!dirty) return;
+
+        snapshot = RaidSnapshot.of(snapshot.getGeneration() + 1, worldIndex, activeRaidsByWorld);
+        dirty = false;
+    }
+
+    /**
+     * Returns the raids of a world as of the latest snapshot.
+     * Safe to call from any thread.
+     *
+     * @param world The world
+     * @return Raids of the world, empty if there are none
+     */
+    public List<RaidData> getRaids(final World world) {
+        return snapshot.getRaids(world);
+    }
+
+    /**
+     * Returns every raid as of the latest snapshot.
+     * Safe to call from any thread.
+     *
+     * @return Raids of every world
+     */
+    public List<RaidData> getAllRaids() {
+        return snapshot.getAllRaids();
     }
 
     /**
      * Checks if a given raid is currently registered.
+     * Sees the writes of the current tick, so it must be
+     * called on the main thread.
      *
      * @param raid The Raid instance to check.
      * @return True if the raid is registered, false otherwise.
@@ -67,11 +189,131 @@ public class RaidManager {
     public boolean isRaidRegistered(final Raid raid) {
         if (raid == null) return false;
 
-        final int raidId = raid.getId();
-        final World raidWorld = raid.getLocation().getWorld();
+        return isRaidRegistered(raid.getLocation().getWorld(), raid.getId());
+    }
 
-        final Map<Integer, RaidData> raidDataMap = activeRaidsByWorld.get(raidWorld);
+    /**
+     * Checks if a raid of a known world is currently registered.
+     * Does not allocate, unlike reading the world from the raid.
+     * Must be called on the main thread.
+     *
+     * @param world  World of the raid
+     * @param raidId Id of the raid
+     * @return True if the raid is registered, false otherwise.
+     */
+    public boolean isRaidRegistered(final World world, final int raidId) {
+        final IntObjectMap<RaidData> raidDataMap = getWorldRaids(world);
 
         return raidDataMap != null && raidDataMap.containsKey(raidId);
     }
+
+    /**
+     * Returns the registered data of a raid. Sees the
+     * writes of the current tick, so it must be called on
+     * the main thread.
+     *
+     * @param raid The raid
+     * @return Data of the raid, or null if it is not registered
+     */
+    public RaidData findRaid(final Raid raid) {
+        final IntObjectMap<RaidData> raidDataMap = getWorldRaids(raid.getLocation().getWorld());
+
+        return raidDataMap == null ? null : raidDataMap.get(raid.getId());
+    }
+
+    /**
+     * Finds the raids whose center is horizontally within
+     * the radius of the given point. Only the chunk cells
+     * overlapping the radius are visited, so the cost depends
+     * on how many raids are nearby rather than in the world.
+     * Must be called on the main thread.
+     *
+     * @param world  World to search in
+     * @param x      X coordinate of the point
+     * @param z      Z coordinate of the point
+     * @param radius Search radius in blocks
+     * @return Raids within the radius, empty if there are none
+     */
+    public List<RaidData> findRaidsWithin(final World world, final double x,
+                                          final double z, final double radius) {
+        return spatialIndex.findWithin(world, x, z, radius);
+    }
+
+    /**
+     * Adds a raider to the set of its raid if the raid is registered.
+     *
+     * @param raid   The raid the raider belongs to
+     * @param raider The raider to add
+     */
+    public void addRaider(final Raid raid, final Raider raider) {
+        checkMainThread();
+
+        final RaidData raidData = findRaid(raid);
+        if (raidData != null) {
+            trackRaider(raidData, raider);
+        }
+    }
+
+    /**
+     * Removes a raider from the set of the raid it was tracked
+     * in and tells the listeners which raid it left.
+     *
+     * @param raider The raider to remove
+     */
+    public void removeRaider(final Raider raider) {
+        checkMainThread();
+
+        final RaidData raidData = raidDataByRaider.remove(raider.getUniqueId());
+        if (raidData != null) {
+            raidData.getRaiderSet().remove(raider);
+            listeners.forEach(listener -> listener.onRaiderRemoved(raidData));
+        }
+    }
+
+    /**
+     * Adds the raider to the raider set of the raid and remembers its raid.
+     *
+     * @param raidData The raid the raider belongs to
+     * @param raider   The raider to track
+     */
+    private void trackRaider(final RaidData raidData, final Raider raider) {
+        raidData.getRaiderSet().add(raider);
+        raidDataByRaider.put(raider.getUniqueId(), raidData);
+    }
+
+    /**
+     * Returns the live raid map of a world.
+     *
+     * @param world The world
+     * @return Raids of the world by id, or null if the world never had raids
+     */
+    private IntObjectMap<RaidData> getWorldRaids(final World world) {
+        final int index = worldIndex.indexOf(world);
+        return index < 0 ? null : activeRaidsByWorld.get(index);
+    }
+
+    /**
+     * Returns the live raid map of a world, indexing the
+     * world on its first raid.
+     *
+     * @param world The world
+     * @return Raids of the world by id
+     */
+    private IntObjectMap<RaidData> getOrCreateWorldRaids(final World world) {
+        final int index = worldIndex.indexOrAdd(world);
+        if (index == activeRaidsByWorld.size()) {
+            activeRaidsByWorld.add(new IntObjectMap<>());
+        }
+        return activeRaidsByWorld.get(index);
+    }
+
+    /**
+     * Rejects writes from other threads, as the live maps
+     * are not synchronized.
+     */
+    private void checkMainThread() {
+        if (!Bukkit.isPrimaryThread()) {
+            throw new IllegalStateException("RaidManager can only be modified on the main thread.");
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package ru.ephy.raidhelper.raid.data;
+
+/**
+ * Listener for raids being registered in or removed from
+ * the {@link RaidManager}, and for raiders leaving them. Called on the main thread right
+ * after the change, before the next snapshot is published.
+ */
+public interface RaidRegistryListener {
+
+    /**
+     * Called after a raid has been registered.
+     *
+     * @param raidData The registered raid
+     */
+    void onRaidAdded(RaidData raidData);
+
+    /**
+     * Called after a raid has been removed.
+     *
+     * @param raidData The removed raid
+     */
+    void onRaidRemoved(RaidData raidData);
+
+    /**
+     * Called after a raider died or left the world and was
+     * removed from the raid it was tracked in.
+     *
+     * @param raidData The raid the raider was removed from
+     */
+    default void onRaiderRemoved(final RaidData raidData) {
+    }
+}
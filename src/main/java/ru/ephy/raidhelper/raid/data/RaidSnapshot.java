@@ -0,0 +1,97 @@
+package ru.ephy.raidhelper.raid.data;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.World;
+import ru.ephy.raidhelper.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable view of the registered raids, published by
+ * the {@link RaidManager} at most once per tick. It can be
+ * read from any thread without locks; the raids it holds
+ * are the same RaidData objects the plugin updates.
+ * Worlds are looked up through the dense world index of
+ * the manager; the per-world maps and lists are copies.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RaidSnapshot {
+
+    // Snapshot without raids, published before the first raid is registered
+    static final RaidSnapshot EMPTY = new RaidSnapshot(0L, new WorldIndex(), List.of(), List.of(), List.of());
+
+    private final long generation;                                // Number of the snapshot, increases with every publish
+    @Getter(AccessLevel.NONE)
+    private final WorldIndex worldIndex;                          // Index of the worlds, shared with the RaidManager
+    @Getter(AccessLevel.NONE)
+    private final List<IntObjectMap<RaidData>> raidMapsByWorld;   // Raids by id, per world index
+    @Getter(AccessLevel.NONE)
+    private final List<List<RaidData>> raidListsByWorld;          // Raids, per world index
+    private final List<RaidData> allRaids;                        // Raids of every world
+
+    /**
+     * Copies the given raids into a new snapshot.
+     *
+     * @param generation   Number of the snapshot
+     * @param worldIndex   Index of the worlds of the raids
+     * @param raidsByWorld Raids by id, per world index
+     * @return The snapshot
+     */
+    static RaidSnapshot of(final long generation, final WorldIndex worldIndex,
+                           final List<IntObjectMap<RaidData>> raidsByWorld) {
+        final List<IntObjectMap<RaidData>> raidMaps = new ArrayList<>(raidsByWorld.size());
+        final List<List<RaidData>> raidLists = new ArrayList<>(raidsByWorld.size());
+        final List<RaidData> allRaids = new ArrayList<>();
+
+        for (final IntObjectMap<RaidData> raidDataMap : raidsByWorld) {
+            final List<RaidData> raids = new ArrayList<>(raidDataMap.size());
+            for (int slot = raidDataMap.nextSlot(0); slot >= 0; slot = raidDataMap.nextSlot(slot + 1)) {
+                raids.add(raidDataMap.valueAt(slot));
+            }
+
+            raidMaps.add(raidDataMap.copy());
+            raidLists.add(List.copyOf(raids));
+            allRaids.addAll(raids);
+        }
+
+        return new RaidSnapshot(generation, worldIndex, List.copyOf(raidMaps),
+                List.copyOf(raidLists), List.copyOf(allRaids));
+    }
+
+    /**
+     * Returns the raids of a world. The list supports
+     * random access, so it can be walked without an iterator.
+     *
+     * @param world The world
+     * @return Raids of the world, empty if there are none
+     */
+    public List<RaidData> getRaids(final World world) {
+        final int index = worldIndex.indexOf(world);
+        return index < 0 || index >= raidListsByWorld.size() ? List.of() : raidListsByWorld.get(index);
+    }
+
+    /**
+     * Returns a raid by its world and id.
+     *
+     * @param world  World of the raid
+     * @param raidId Id of the raid
+     * @return The raid, or null if it was not registered
+     */
+    public RaidData getRaid(final World world, final int raidId) {
+        final int index = worldIndex.indexOf(world);
+        return index < 0 || index >= raidMapsByWorld.size() ? null : raidMapsByWorld.get(index).get(raidId);
+    }
+
+    /**
+     * Returns the number of registered raids.
+     *
+     * @return Number of raids
+     */
+    public int getRaidCount() {
+        return allRaids.size();
+    }
+}
@@ -0,0 +1,137 @@
+package ru.ephy.raidhelper.raid.data;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk-grid spatial index of active raids. Every raid is
+ * stored in the cell of the chunk its center belongs to,
+ * so a radius query only visits the cells that overlap
+ * the search square instead of every raid in the world.
+ */
+class RaidSpatialIndex {
+
+    private static final int CELL_SHIFT = 4; // Cells are one chunk (16 blocks) wide
+
+    private final Map<World, Map<Long, List<RaidData>>> cellsByWorld = new HashMap<>(); // Grid cells per world
+
+    /**
+     * Adds the raid to the cell of its center.
+     *
+     * @param raidData The raid to index
+     */
+    void add(final RaidData raidData) {
+        final Location location = raidData.getRaidLocation();
+
+        cellsByWorld.computeIfAbsent(raidData.getRaidWorld(), world -> new HashMap<>())
+                    .computeIfAbsent(cellKeyOf(location), key -> new ArrayList<>(1))
+                    .add(raidData);
+    }
+
+    /**
+     * Removes the raid from its cell. Empty cells and
+     * worlds are dropped from the index.
+     *
+     * @param raidData The raid to remove
+     */
+    void remove(final RaidData raidData) {
+        final long cellKey = cellKeyOf(raidData.getRaidLocation());
+
+        cellsByWorld.computeIfPresent(raidData.getRaidWorld(), (world, cells) -> {
+            cells.computeIfPresent(cellKey, (key, raids) -> {
+                raids.remove(raidData);
+                return raids.isEmpty() ? null : raids;
+            });
+            return cells.isEmpty() ? null : cells;
+        });
+    }
+
+    /**
+     * Returns the raids whose center is horizontally closer
+     * than the radius to the given point.
+     *
+     * @param world  World to search in
+     * @param x      X coordinate of the center of the search
+     * @param z      Z coordinate of the center of the search
+     * @param radius Search radius in blocks
+     * @return Raids within the radius, empty if there are none
+     */
+    List<RaidData> findWithin(final World world, final double x, final double z, final double radius) {
+        final Map<Long, List<RaidData>> cells = cellsByWorld.get(world);
+        if (cells == null) return List.of();
+
+        final int minCellX = (int) Math.floor(x - radius) >> CELL_SHIFT;
+        final int maxCellX = (int) Math.floor(x + radius) >> CELL_SHIFT;
+        final int minCellZ = (int) Math.floor(z - radius) >> CELL_SHIFT;
+        final int maxCellZ = (int) Math.floor(z + radius) >> CELL_SHIFT;
+        final double radiusSquared = radius * radius;
+        final List<RaidData> result = new ArrayList<>();
+
+        // A huge radius covers more cells than the world has, walk the occupied cells instead
+        final long coveredCells = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+        if (coveredCells > cells.size()) {
+            for (final List<RaidData> raids : cells.values()) {
+                collectWithin(raids, x, z, radiusSquared, result);
+            }
+            return result;
+        }
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                final List<RaidData> raids = cells.get(cellKey(cellX, cellZ));
+                if (raids != null) {
+                    collectWithin(raids, x, z, radiusSquared, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the raids of a cell that are within the radius to the result.
+     *
+     * @param raids         Raids of one cell
+     * @param x             X coordinate of the center of the search
+     * @param z             Z coordinate of the center of the search
+     * @param radiusSquared Search radius (squared)
+     * @param result        List the matching raids are added to
+     */
+    private void collectWithin(final List<RaidData> raids, final double x, final double z,
+                               final double radiusSquared, final List<RaidData> result) {
+        for (final RaidData raidData : raids) {
+            final Location location = raidData.getRaidLocation();
+            final double dx = location.getX() - x;
+            final double dz = location.getZ() - z;
+
+            if (dx * dx + dz * dz < radiusSquared) {
+                result.add(raidData);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the cell containing the location.
+     *
+     * @param location Location to get the cell of
+     * @return Packed cell coordinates
+     */
+    private static long cellKeyOf(final Location location) {
+        return cellKey(location.getBlockX() >> CELL_SHIFT, location.getBlockZ() >> CELL_SHIFT);
+    }
+
+    /**
+     * Packs cell coordinates into a single long.
+     *
+     * @param cellX Cell X coordinate
+     * @param cellZ Cell Z coordinate
+     * @return Packed cell coordinates
+     */
+    private static long cellKey(final int cellX, final int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
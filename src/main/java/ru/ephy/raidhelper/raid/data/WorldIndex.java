@@ -0,0 +1,87 @@
+package ru.ephy.raidhelper.raid.data;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Dense index of worlds. Every world gets the next free
+ * index when it is added, so per-world data can live in
+ * arrays instead of maps hashing World objects. Servers
+ * load a handful of worlds, so a lookup is a short scan
+ * by identity and does not allocate.
+ *
+ * Worlds are only added on the main thread. The array is
+ * replaced on every add, so lookups are safe from any thread.
+ */
+public final class WorldIndex {
+
+    private volatile World[] worlds; // World of every index
+
+    /**
+     * Creates an empty index.
+     */
+    public WorldIndex() {
+        worlds = new World[0];
+    }
+
+    /**
+     * Creates an index of the given worlds, in iteration order.
+     *
+     * @param worlds Worlds to index
+     */
+    public WorldIndex(final Collection<World> worlds) {
+        this.worlds = worlds.toArray(new World[0]);
+    }
+
+    /**
+     * Returns the index of a world.
+     *
+     * @param world The world
+     * @return Index of the world, or -1 if it is not indexed
+     */
+    public int indexOf(final World world) {
+        final World[] current = worlds;
+        for (int index = 0; index < current.length; index++) {
+            if (current[index] == world) return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of a world, adding it if needed.
+     * Main thread only.
+     *
+     * @param world The world
+     * @return Index of the world
+     */
+    public int indexOrAdd(final World world) {
+        final int index = indexOf(world);
+        if (index >= 0) return index;
+
+        final World[] grown = Arrays.copyOf(worlds, worlds.length + 1);
+        grown[grown.length - 1] = world;
+        worlds = grown;
+        return grown.length - 1;
+    }
+
+    /**
+     * Returns the world of an index.
+     *
+     * @param index Index of the world
+     * @return The world
+     */
+    public World get(final int index) {
+        return worlds[index];
+    }
+
+    /**
+     * Returns the number of indexed worlds.
+     *
+     * @return Number of worlds
+     */
+    public int size() {
+        return worlds.length;
+    }
+}
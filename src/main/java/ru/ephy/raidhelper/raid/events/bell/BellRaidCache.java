@@ -0,0 +1,211 @@
+package ru.ephy.raidhelper.raid.events.bell;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.data.RaidRegistryListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the raids in range of every bell.
+ * Bells are keyed per world by their block position packed
+ * into a long, so repeated rings of the same bell skip the
+ * range search entirely. When a raid is registered or
+ * removed, only the bells within its range are dropped.
+ * A reload drops every cached bell. Main thread only.
+ */
+public class BellRaidCache implements RaidRegistryListener {
+
+    private static final float LOAD_FACTOR = 0.75f; // Load factor of the per world maps
+
+    private final RaidManager raidManager;                            // Finds the raids near a bell on a miss
+    private final Map<World, Map<Long, List<RaidData>>> bellsByWorld; // Raids in range of every cached bell
+    private double radius;                                            // Bell effect radius
+    private double radiusSquared;                                     // Bell effect radius (squared)
+    private int maxBellsPerWorld;                                     // Max cached bells of a world
+
+    /**
+     * Initializes the cache.
+     *
+     * @param raidManager Finds the raids near a bell on a miss
+     * @param config      Contains the effect radius and the cache size
+     */
+    public BellRaidCache(final RaidManager raidManager, final Config config) {
+        // Initializes required instances
+        this.raidManager = raidManager;
+
+        // Initializes required variables
+        bellsByWorld = new HashMap<>();
+        reload(config);
+    }
+
+    /**
+     * Picks up the effect radius and the cache size and
+     * drops the cached bells, as their raids in range were
+     * found with the old radius.
+     *
+     * @param config The new settings snapshot
+     */
+    public void reload(final Config config) {
+        radius = config.getRadius();
+        radiusSquared = radius * radius;
+        maxBellsPerWorld = config.getBellCacheSize();
+        bellsByWorld.clear();
+    }
+
+    /**
+     * Returns the raids within the effect radius of the bell,
+     * searching the raid index only if the bell is not cached.
+     *
+     * @param bellLocation Block location of the bell
+     * @return Raids in range of the bell, empty if there are none
+     */
+    public List<RaidData> getRaidsNear(final Location bellLocation) {
+        final Map<Long, List<RaidData>> bells = bellsByWorld.computeIfAbsent(
+                bellLocation.getWorld(), world -> createWorldCache());
+        final long bellKey = packBlockPosition(
+                bellLocation.getBlockX(), bellLocation.getBlockY(), bellLocation.getBlockZ());
+
+        List<RaidData> raids = bells.get(bellKey);
+        if (raids == null) {
+            raids = findRaidsInRange(bellLocation);
+            bells.put(bellKey, raids);
+        }
+        return raids;
+    }
+
+    /**
+     * Drops the bells in range of the new raid.
+     *
+     * @param raidData The registered raid
+     */
+    @Override
+    public void onRaidAdded(final RaidData raidData) {
+        invalidateAround(raidData);
+    }
+
+    /**
+     * Drops the bells in range of the removed raid.
+     *
+     * @param raidData The removed raid
+     */
+    @Override
+    public void onRaidRemoved(final RaidData raidData) {
+        invalidateAround(raidData);
+    }
+
+    /**
+     * Returns the number of cached bells across all worlds.
+     *
+     * @return Number of cached bells
+     */
+    public int size() {
+        int size = 0;
+        for (final Map<Long, List<RaidData>> bells : bellsByWorld.values()) {
+            size += bells.size();
+        }
+        return size;
+    }
+
+    /**
+     * Searches the raid index for the raids in range of the bell.
+     *
+     * @param bellLocation Block location of the bell
+     * @return Immutable list of the raids in range
+     */
+    private List<RaidData> findRaidsInRange(final Location bellLocation) {
+        final List<RaidData> raids = new ArrayList<>();
+
+        for (final RaidData raidData : raidManager.findRaidsWithin(
+                bellLocation.getWorld(), bellLocation.getX(), bellLocation.getZ(), radius)) {
+            if (raidData.getRaidLocation().distanceSquared(bellLocation) < radiusSquared) {
+                raids.add(raidData);
+            }
+        }
+        return List.copyOf(raids);
+    }
+
+    /**
+     * Drops the cached bells of the raid's world that are
+     * in range of the raid.
+     *
+     * @param raidData The raid that was registered or removed
+     */
+    private void invalidateAround(final RaidData raidData) {
+        final Map<Long, List<RaidData>> bells = bellsByWorld.get(raidData.getRaidWorld());
+        if (bells == null) return;
+
+        final Location raidLocation = raidData.getRaidLocation();
+        bells.keySet().removeIf(bellKey -> {
+            final double dx = raidLocation.getX() - unpackX(bellKey);
+            final double dy = raidLocation.getY() - unpackY(bellKey);
+            final double dz = raidLocation.getZ() - unpackZ(bellKey);
+            return dx * dx + dy * dy + dz * dz < radiusSquared;
+        });
+    }
+
+    /**
+     * Creates the access ordered map of one world, evicting
+     * the least recently rung bell once it is full.
+     *
+     * @return Empty bell map of a world
+     */
+    private Map<Long, List<RaidData>> createWorldCache() {
+        return new LinkedHashMap<>(16, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, List<RaidData>> eldest) {
+                return size() > maxBellsPerWorld;
+            }
+        };
+    }
+
+    /**
+     * Packs a block position into a long: 26 bits of x,
+     * 26 bits of z and 12 bits of y.
+     *
+     * @param x Block x coordinate
+     * @param y Block y coordinate
+     * @param z Block z coordinate
+     * @return The packed position
+     */
+    static long packBlockPosition(final int x, final int y, final int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | (long) y & 0xFFFL;
+    }
+
+    /**
+     * Returns the block x coordinate of a packed position.
+     *
+     * @param packed The packed position
+     * @return Block x coordinate
+     */
+    static int unpackX(final long packed) {
+        return (int) (packed >> 38);
+    }
+
+    /**
+     * Returns the block y coordinate of a packed position.
+     *
+     * @param packed The packed position
+     * @return Block y coordinate
+     */
+    static int unpackY(final long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    /**
+     * Returns the block z coordinate of a packed position.
+     *
+     * @param packed The packed position
+     * @return Block z coordinate
+     */
+    static int unpackZ(final long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+}
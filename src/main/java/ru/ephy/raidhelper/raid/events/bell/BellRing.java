@@ -6,55 +6,46 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BellRingEvent;
-import org.bukkit.plugin.java.JavaPlugin;
-import ru.ephy.raidhelper.config.Config;
-import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.config.ConfigManager;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.stats.PerformanceStats;
 
-import java.util.*;
-import java.util.logging.Logger;
+import java.util.Set;
 
 /**
  * Handles bell ring events during a raid. If the bell
- * is located in a configured world, it triggers the
- * teleportation of raiders if conditions are met.
+ * is located in a configured world, the ring is added
+ * to the {@link BellRingBuffer}, which resolves all rings
+ * of a tick together. The ring is processed on the
+ * thread that owns the plugin state.
  */
 public class BellRing implements Listener {
 
-    private final JavaPlugin plugin;                // Plugin reference
-    private final Config config;                    // Configuration settings
-    private final RaidManager raidManager;          // Manages active raids
-    private final Logger logger;                    // Logger for debugging
-
-    private final TeleporterPool teleportPool;      // Pool for reusable Teleporter instances
-    private final Map<Location, Boolean> bellCache; // Cached bell locations
-    private final Set<World> validWorlds;           // Worlds where raid events are valid
+    private final PlatformScheduler platformScheduler; // Runs the rings on the owning thread
+    private final BellRingBuffer ringBuffer;           // Collects the rings of the tick
+    private final ConfigManager configManager;         // Holds the worlds where raid events are valid
+    private final PerformanceStats stats;              // Counts the rings
 
     /**
      * Constructs a BellRing handler for managing bell ring events during raids.
      *
-     * @param plugin       Plugin instance for scheduling and managing tasks
-     * @param raidManager  Manages raid data and processes active raids
-     * @param config       Contains settings related to raids
-     * @param logger       Logs events and errors
+     * @param platformScheduler Runs the rings on the owning thread
+     * @param ringBuffer        Collects the rings of the tick
+     * @param configManager     Holds the worlds where raid events are valid
+     * @param stats             Performance stats of the plugin
      */
-    public BellRing(final JavaPlugin plugin, final RaidManager raidManager,
-                    final Config config, final Logger logger) {
+    public BellRing(final PlatformScheduler platformScheduler, final BellRingBuffer ringBuffer,
+                    final ConfigManager configManager, final PerformanceStats stats) {
         // Initializes required instances
-        this.plugin = plugin;
-        this.config = config;
-        this.raidManager = raidManager;
-        this.logger = logger;
-
-        // Initializes required variables
-        validWorlds = config.getValidWorlds();
-
-        bellCache = new WeakHashMap<>();
-        teleportPool = new TeleporterPool(config);
+        this.platformScheduler = platformScheduler;
+        this.ringBuffer = ringBuffer;
+        this.configManager = configManager;
+        this.stats = stats;
     }
 
     /**
      * Handles the bell ring event. If the bell is in a valid world,
-     * triggers teleportation of raiders nearby.
+     * buffers the ring for the end of the tick.
      *
      * @param event Bell ring event triggered by a player
      */
@@ -62,36 +53,22 @@ public class BellRing implements Listener {
     public void on(final BellRingEvent event) {
         if (event.getEntity() instanceof final Player player) {
             final Location bellLocation = event.getBlock().getLocation();
-            final World bellWorld = bellLocation.getWorld();
-
-            if (isValidBellLocation(bellLocation, bellWorld)) {
-                processTeleport(player, bellWorld, bellLocation);
-            }
+            platformScheduler.runGlobal(() -> processRing(player, bellLocation));
         }
     }
 
     /**
-     * Handles teleportation by borrowing a Teleporter from the pool and
-     * initiating the teleport process.
+     * Buffers the ring if the bell is in a valid world of
+     * the current settings.
      *
      * @param player       Player who rang the bell
-     * @param bellWorld    The world where the bell is located
      * @param bellLocation Location of the bell
      */
-    private void processTeleport(final Player player, final World bellWorld, final Location bellLocation) {
-        final Teleporter teleporter = teleportPool.getTeleporter(plugin, raidManager, config, logger);
-
-        teleporter.initiateTeleport(player, bellWorld, bellLocation);
-    }
-
-    /**
-     * Checks if the bell is in a valid world or if the location is cached.
-     *
-     * @param bellLocation Bell's location
-     * @param bellWorld    World where the bell is located
-     * @return true if the bell location is valid, false otherwise
-     */
-    private boolean isValidBellLocation(final Location bellLocation, final World bellWorld) {
-        return bellCache.computeIfAbsent(bellLocation, location -> validWorlds.contains(bellWorld));
+    private void processRing(final Player player, final Location bellLocation) {
+        final Set<World> validWorlds = configManager.getConfig().getValidWorlds();
+        if (validWorlds.contains(bellLocation.getWorld())) {
+            ringBuffer.add(player, bellLocation);
+            stats.getBellRings().increment();
+        }
     }
 }
@@ -0,0 +1,126 @@
+package ru.ephy.raidhelper.raid.events.bell;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.pipeline.PipelineStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.raid.scheduler.TimingWheel;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Bell ring stage of the tick pipeline. Collects the bell
+ * rings of a tick and resolves them together on the next
+ * pipeline tick, so several players ringing around the
+ * same village cost one scan per bell, every raid is
+ * teleported at most once and every player gets one
+ * result message.
+ */
+public class BellRingBuffer implements PipelineStage {
+
+    private final PlatformScheduler platformScheduler; // Runs the teleports on their threads
+    private final TimingWheel timingWheel;             // Wheel for delayed teleports
+    private final PerformanceStats stats;              // Counts the teleported raiders
+    private final Logger logger;                       // Logger for debugging
+
+    private final TeleporterPool teleportPool;         // Pool for reusable Teleporter instances
+    private final BellRaidCache bellRaidCache;         // Raids in range of every bell
+    private final SafeTargetResolver targetResolver;   // Safe spot near every bell
+    private final List<PendingRing> pendingRings;      // Rings of the current tick
+    private Config config;                             // Settings new Teleporters are created with
+
+    /**
+     * Initializes the buffer.
+     *
+     * @param platformScheduler Runs the teleports on their threads
+     * @param raidManager       Manages raid data, kept in sync with the bell cache
+     * @param timingWheel       Wheel for delayed teleports
+     * @param targetResolver    Safe spot near every bell
+     * @param config            Contains settings related to raids
+     * @param stats             Performance stats of the plugin
+     * @param logger            Logs events and errors
+     */
+    public BellRingBuffer(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                          final TimingWheel timingWheel, final SafeTargetResolver targetResolver,
+                          final Config config, final PerformanceStats stats, final Logger logger) {
+        // Initializes required instances
+        this.platformScheduler = platformScheduler;
+        this.timingWheel = timingWheel;
+        this.targetResolver = targetResolver;
+        this.config = config;
+        this.stats = stats;
+        this.logger = logger;
+
+        // Initializes required variables
+        teleportPool = new TeleporterPool(config);
+        bellRaidCache = new BellRaidCache(raidManager, config);
+        raidManager.addListener(bellRaidCache);
+        pendingRings = new ArrayList<>();
+    }
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.BELL_RING;
+    }
+
+    @Override
+    public int getCadence() {
+        return 1;
+    }
+
+    /**
+     * Picks up the settings of the teleports. Pooled
+     * Teleporters, cached bells and cached targets are
+     * dropped; rings already buffered are resolved with
+     * the new settings.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        this.config = config;
+        teleportPool.reload(config);
+        bellRaidCache.reload(config);
+        targetResolver.reload(config);
+    }
+
+    /**
+     * Adds a ring to the buffer of the tick.
+     *
+     * @param player       Player who rang the bell
+     * @param bellLocation Location of the bell
+     */
+    public void add(final Player player, final Location bellLocation) {
+        pendingRings.add(new PendingRing(player, bellLocation));
+    }
+
+    /**
+     * Resolves the buffered rings with a pooled Teleporter.
+     *
+     * @param pipeline Pipeline the stage belongs to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        if (pendingRings.isEmpty()) return;
+
+        final Teleporter teleporter = teleportPool.getTeleporter(
+                platformScheduler, timingWheel, bellRaidCache, targetResolver, config, stats, logger);
+        teleporter.resolveRings(pendingRings, pipeline.getCurrentTick());
+        pendingRings.clear();
+    }
+
+    /**
+     * A ring waiting to be resolved.
+     *
+     * @param player       Player who rang the bell
+     * @param bellLocation Location of the bell
+     */
+    public record PendingRing(Player player, Location bellLocation) {
+    }
+}
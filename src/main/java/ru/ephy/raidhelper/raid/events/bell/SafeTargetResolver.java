@@ -0,0 +1,442 @@
+package ru.ephy.raidhelper.raid.events.bell;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockPistonEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds a safe spot near a bell to teleport raiders to:
+ * solid ground below, room for the feet and the head, and
+ * no lava, fire or other harmful block. The chunk of the
+ * bell is loaded without blocking the tick and captured
+ * in a {@link ChunkSnapshot}, which is searched off the
+ * server threads. The spot is cached per bell, so later
+ * rings of the bell need no block lookups at all. A block
+ * change in a column the search covers drops the spots of
+ * the bells around it: placed, broken, burnt, formed or
+ * spread blocks, poured or flowing liquids, fire, pistons
+ * and explosions.
+ * <p>
+ * The search stays within the chunk of the bell, so one
+ * snapshot is enough. If no spot is found the raiders go
+ * to the configured height above the bell, as before.
+ */
+public class SafeTargetResolver implements Listener {
+
+    private static final int SEARCH_RADIUS = 4;          // Max horizontal distance of a spot from the bell
+    private static final int SEARCH_DEPTH = 4;           // Max blocks a spot may be below the bell
+    private static final Set<Material> HARMFUL = EnumSet.of( // Blocks a raider must not stand on or in
+            Material.LAVA, Material.FIRE, Material.SOUL_FIRE, Material.MAGMA_BLOCK, Material.CAMPFIRE,
+            Material.SOUL_CAMPFIRE, Material.CACTUS, Material.SWEET_BERRY_BUSH, Material.WITHER_ROSE,
+            Material.POWDER_SNOW, Material.POINTED_DRIPSTONE, Material.WATER);
+
+    private final PlatformScheduler platformScheduler;   // Runs the search off the server threads
+    private final PerformanceStats stats;                // Records the search time
+    private final Map<World, Map<Long, Map<Long, CompletableFuture<Location>>>> spotsByWorld; // Spots by chunk
+
+    private volatile int height;                         // Height above the bell of the fallback target
+
+    /**
+     * Initializes the resolver.
+     *
+     * @param platformScheduler Runs the search off the server threads
+     * @param config            Contains the spawn height
+     * @param stats             Performance stats of the plugin
+     */
+    public SafeTargetResolver(final PlatformScheduler platformScheduler, final Config config,
+                              final PerformanceStats stats) {
+        // Initializes required instances
+        this.platformScheduler = platformScheduler;
+        this.stats = stats;
+
+        // Initializes required variables
+        spotsByWorld = new ConcurrentHashMap<>();
+        reload(config);
+    }
+
+    /**
+     * Picks up the spawn height and drops the cached spots,
+     * as they were searched from the old height.
+     *
+     * @param config The new settings snapshot
+     */
+    public void reload(final Config config) {
+        height = config.getHeight();
+        spotsByWorld.clear();
+    }
+
+    /**
+     * Returns the spot raiders ringing in at the bell are
+     * teleported to. A cached or running search is shared;
+     * otherwise the search starts. The future never fails.
+     *
+     * @param bellLocation Block location of the bell
+     * @return Future of the target location
+     */
+    public CompletableFuture<Location> resolve(final Location bellLocation) {
+        final World world = bellLocation.getWorld();
+        final int bellX = bellLocation.getBlockX();
+        final int bellY = bellLocation.getBlockY();
+        final int bellZ = bellLocation.getBlockZ();
+
+        return spotsByWorld.computeIfAbsent(world, key -> new ConcurrentHashMap<>())
+                           .computeIfAbsent(packChunk(bellX >> 4, bellZ >> 4), key -> new ConcurrentHashMap<>())
+                           .computeIfAbsent(BellRaidCache.packBlockPosition(bellX, bellY, bellZ),
+                                   key -> search(bellLocation));
+    }
+
+    /**
+     * Drops the spots around a placed block.
+     *
+     * @param event The event triggered when a block is placed
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around a broken block.
+     *
+     * @param event The event triggered when a block is broken
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around flowing lava or water.
+     *
+     * @param event The event triggered when a liquid flows
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockFromToEvent event) {
+        invalidate(event.getToBlock());
+    }
+
+    /**
+     * Drops the spots around lava or water poured from a
+     * bucket, which does not flow in a hole one block wide.
+     *
+     * @param event The event triggered when a bucket is emptied
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final PlayerBucketEmptyEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around a block set on fire.
+     *
+     * @param event The event triggered when a block is ignited
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockIgniteEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around a block burnt away by fire.
+     *
+     * @param event The event triggered when a block burns
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockBurnEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around a block formed by the world,
+     * such as ice, snow or obsidian.
+     *
+     * @param event The event triggered when a block forms
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockFormEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around a block that spread, such as fire.
+     *
+     * @param event The event triggered when a block spreads
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockSpreadEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Drops the spots around the blocks an extending piston
+     * pushes and around its head.
+     *
+     * @param event The event triggered when a piston extends
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockPistonExtendEvent event) {
+        invalidateMoved(event, event.getBlocks());
+    }
+
+    /**
+     * Drops the spots around the blocks a retracting piston
+     * pulls and around its head.
+     *
+     * @param event The event triggered when a piston retracts
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockPistonRetractEvent event) {
+        invalidateMoved(event, event.getBlocks());
+    }
+
+    /**
+     * Drops the spots around the blocks a block explosion destroys.
+     *
+     * @param event The event triggered when a block explodes
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final BlockExplodeEvent event) {
+        invalidateAll(event.blockList());
+    }
+
+    /**
+     * Drops the spots around the blocks an entity explosion destroys.
+     *
+     * @param event The event triggered when an entity explodes
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final EntityExplodeEvent event) {
+        invalidateAll(event.blockList());
+    }
+
+    /**
+     * Returns the number of cached spots across all worlds.
+     *
+     * @return Number of cached spots
+     */
+    public int size() {
+        int size = 0;
+        for (final Map<Long, Map<Long, CompletableFuture<Location>>> chunks : spotsByWorld.values()) {
+            for (final Map<Long, CompletableFuture<Location>> spots : chunks.values()) {
+                size += spots.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Loads the chunk of the bell, captures it and searches
+     * the snapshot off the server threads.
+     *
+     * @param bellLocation Block location of the bell
+     * @return Future of the target location
+     */
+    private CompletableFuture<Location> search(final Location bellLocation) {
+        final World world = bellLocation.getWorld();
+        final int spawnHeight = height;
+        final Location fallback = bellLocation.clone().add(0, spawnHeight, 0);
+        final int lowestY = Math.max(world.getMinHeight() + 1, bellLocation.getBlockY() - SEARCH_DEPTH);
+        final int highestY = Math.min(world.getMaxHeight() - 2, bellLocation.getBlockY() + spawnHeight);
+
+        return world.getChunkAtAsync(bellLocation.getBlockX() >> 4, bellLocation.getBlockZ() >> 4)
+                .thenApply(SafeTargetResolver::capture)
+                .thenApplyAsync(snapshot -> {
+                    if (snapshot == null) return fallback;
+
+                    final long startNanos = System.nanoTime();
+                    final Location spot = findSpot(snapshot, bellLocation, lowestY, highestY);
+                    stats.record(PerformanceStats.Stage.TARGET_SEARCH, System.nanoTime() - startNanos);
+                    return spot != null ? spot : fallback;
+                }, platformScheduler::runAsync)
+                .exceptionally(exception -> fallback);
+    }
+
+    /**
+     * Captures the blocks of a loaded chunk. Runs on the
+     * thread that owns the chunk.
+     *
+     * @param chunk The loaded chunk, null if it could not be loaded
+     * @return Snapshot of the blocks, or null
+     */
+    private static ChunkSnapshot capture(final Chunk chunk) {
+        return chunk == null ? null : chunk.getChunkSnapshot(false, false, false);
+    }
+
+    /**
+     * Searches the snapshot for the spot nearest to the bell,
+     * ring by ring around its column. In every column feet
+     * levels from the bell up to the spawn height are tried
+     * first, then the levels below the bell. The bell column
+     * itself is skipped.
+     *
+     * @param snapshot     Snapshot of the chunk of the bell
+     * @param bellLocation Block location of the bell
+     * @param lowestY      Lowest feet level to try
+     * @param highestY     Highest feet level to try
+     * @return The spot, or null if there is none
+     */
+    private static Location findSpot(final ChunkSnapshot snapshot, final Location bellLocation,
+                                     final int lowestY, final int highestY) {
+        final int bellX = bellLocation.getBlockX() & 15;
+        final int bellY = bellLocation.getBlockY();
+        final int bellZ = bellLocation.getBlockZ() & 15;
+
+        for (int ring = 1; ring <= SEARCH_RADIUS; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) continue;
+
+                    final int x = bellX + dx;
+                    final int z = bellZ + dz;
+                    if (x < 0 || x > 15 || z < 0 || z > 15) continue;
+
+                    final int feetY = findFeetLevel(snapshot, x, z, bellY, lowestY, highestY);
+                    if (feetY != Integer.MIN_VALUE) {
+                        return new Location(bellLocation.getWorld(),
+                                bellLocation.getBlockX() + dx + 0.5, feetY, bellLocation.getBlockZ() + dz + 0.5);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a safe feet level in a column.
+     *
+     * @param snapshot Snapshot of the chunk
+     * @param x        Column x within the chunk
+     * @param z        Column z within the chunk
+     * @param bellY    Block y of the bell
+     * @param lowestY  Lowest feet level to try
+     * @param highestY Highest feet level to try
+     * @return The feet level, or Integer.MIN_VALUE if the column has none
+     */
+    private static int findFeetLevel(final ChunkSnapshot snapshot, final int x, final int z, final int bellY,
+                                     final int lowestY, final int highestY) {
+        for (int y = Math.max(bellY, lowestY); y <= highestY; y++) {
+            if (isSafe(snapshot, x, y, z)) return y;
+        }
+        for (int y = Math.min(bellY - 1, highestY); y >= lowestY; y--) {
+            if (isSafe(snapshot, x, y, z)) return y;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Checks if a raider can stand at a feet level: solid
+     * and harmless ground below, free feet and head.
+     *
+     * @param snapshot Snapshot of the chunk
+     * @param x        Column x within the chunk
+     * @param y        Feet level
+     * @param z        Column z within the chunk
+     * @return true if the spot is safe
+     */
+    private static boolean isSafe(final ChunkSnapshot snapshot, final int x, final int y, final int z) {
+        final Material ground = snapshot.getBlockType(x, y - 1, z);
+        return ground.isSolid() && !HARMFUL.contains(ground)
+                && isFree(snapshot.getBlockType(x, y, z)) && isFree(snapshot.getBlockType(x, y + 1, z));
+    }
+
+    /**
+     * Checks if a raider's body fits into a block.
+     *
+     * @param material Type of the block
+     * @return true if the block is neither solid nor harmful
+     */
+    private static boolean isFree(final Material material) {
+        return !material.isSolid() && !HARMFUL.contains(material);
+    }
+
+    /**
+     * Drops the spots around every block of a list.
+     *
+     * @param blocks Changed blocks
+     */
+    private void invalidateAll(final List<Block> blocks) {
+        for (final Block block : blocks) {
+            invalidate(block);
+        }
+    }
+
+    /**
+     * Drops the spots around the head of a piston and
+     * around every block it moves, where the block was and
+     * where it goes in either direction along the piston.
+     *
+     * @param event  The piston event
+     * @param blocks Blocks the piston moves
+     */
+    private void invalidateMoved(final BlockPistonEvent event, final List<Block> blocks) {
+        final BlockFace direction = event.getDirection();
+
+        invalidate(event.getBlock().getRelative(direction));
+        for (final Block block : blocks) {
+            invalidate(block);
+            invalidate(block.getRelative(direction));
+            invalidate(block.getRelative(direction.getOppositeFace()));
+        }
+    }
+
+    /**
+     * Drops the spots of the bells whose search covers the
+     * column of a changed block. Events of worlds and chunks
+     * without cached spots cost two map lookups.
+     *
+     * @param block The changed block
+     */
+    private void invalidate(final Block block) {
+        final Map<Long, Map<Long, CompletableFuture<Location>>> chunks = spotsByWorld.get(block.getWorld());
+        if (chunks == null) return;
+
+        final int blockX = block.getX();
+        final int blockZ = block.getZ();
+        final Map<Long, CompletableFuture<Location>> spots = chunks.get(packChunk(blockX >> 4, blockZ >> 4));
+        if (spots == null || spots.isEmpty()) return;
+
+        spots.keySet().removeIf(bellKey -> Math.abs(BellRaidCache.unpackX(bellKey) - blockX) <= SEARCH_RADIUS
+                && Math.abs(BellRaidCache.unpackZ(bellKey) - blockZ) <= SEARCH_RADIUS);
+    }
+
+    /**
+     * Packs chunk coordinates into a long.
+     *
+     * @param chunkX Chunk x coordinate
+     * @param chunkZ Chunk z coordinate
+     * @return The packed coordinates
+     */
+    private static long packChunk(final int chunkX, final int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+}
@@ -1,179 +1,300 @@
 package ru.ephy.raidhelper.raid.events.bell;
 
-import net.kyori.adventure.text.Component;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Raider;
-import org.bukkit.plugin.java.JavaPlugin;
 import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.MessageCatalog;
+import ru.ephy.raidhelper.config.Messages;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
 import ru.ephy.raidhelper.raid.data.RaidData;
-import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.scheduler.TimingWheel;
+import ru.ephy.raidhelper.stats.PerformanceStats;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Handles raider teleportation when a bell rings during a raid.
+ * Handles raider teleportation when bells ring during a raid.
  * Manages range, delay, cooldown, and triggers teleportation.
+ * The rings of a tick are resolved together, so a raid is
+ * teleported at most once, to the nearest ringing bell.
+ * Every raider is teleported on the thread that owns it, to
+ * the safe spot the {@link SafeTargetResolver} found near
+ * the bell. The spot is resolved when the rings are, so it
+ * is ready by the time the delay has passed. In async mode
+ * every raider is teleported with {@link Raider#teleportAsync},
+ * and once all teleports have settled the player is told
+ * how many raiders arrived.
  */
 public class Teleporter {
 
-    private final JavaPlugin plugin;                  // Plugin instance for scheduling
-    private final RaidManager raidManager;            // Manages active raids
-    private final TeleporterPool pool;                // Reusable teleporter pool
-    private final Logger logger;                      // Logger for debug and info
+    private final PlatformScheduler platformScheduler; // Runs the teleport of every raider on its thread
+    private final TimingWheel timingWheel;             // Wheel for delayed teleports
+    private final BellRaidCache bellRaidCache;         // Raids in range of every bell
+    private final SafeTargetResolver targetResolver;   // Safe spot near every bell
+    private final TeleporterPool pool;                 // Reusable teleporter pool
+    private final PerformanceStats stats;              // Counts the teleported raiders
+    private final Logger logger;                       // Logger for debug and info
 
-    private final Component teleportMessage;          // Message when teleport is successful
-    private final Component cooldownMessage;          // Message when raid is on cooldown
-    private final Component partialCooldownMesssage;  // Message for partial cooldowns
-    private final double teleportRadiusSquared;       // Teleport range (squared)
+    private final MessageCatalog messages;            // Messages of every locale
     private final int cooldownDuration;               // Cooldown duration (ticks)
     private final int delay;                          // Delay before teleport (ticks)
-    private final int teleportHeightOffset;           // Height offset for teleport location
+    private final boolean asyncTeleport;              // Whether raiders are teleported asynchronously
 
     /**
      * Initializes Teleporter with configuration and resources.
      *
-     * @param plugin      Main plugin instance
-     * @param pool        Teleporter pool
-     * @param raidManager Manages raids
-     * @param config      Configuration
-     * @param logger      For logging information
+     * @param platformScheduler Runs the teleport of every raider on its thread
+     * @param timingWheel       Wheel for delayed teleports
+     * @param pool              Teleporter pool
+     * @param bellRaidCache     Raids in range of every bell
+     * @param targetResolver    Safe spot near every bell
+     * @param config            Configuration
+     * @param stats             Performance stats of the plugin
+     * @param logger            For logging information
      */
-    public Teleporter(final JavaPlugin plugin, final TeleporterPool pool,
-                      final RaidManager raidManager, final Config config, final Logger logger) {
+    public Teleporter(final PlatformScheduler platformScheduler, final TimingWheel timingWheel,
+                      final TeleporterPool pool, final BellRaidCache bellRaidCache,
+                      final SafeTargetResolver targetResolver, final Config config,
+                      final PerformanceStats stats, final Logger logger) {
         // Initializes required instances
-        this.plugin = plugin;
+        this.platformScheduler = platformScheduler;
+        this.timingWheel = timingWheel;
         this.pool = pool;
-        this.raidManager = raidManager;
+        this.bellRaidCache = bellRaidCache;
+        this.targetResolver = targetResolver;
+        this.stats = stats;
         this.logger = logger;
 
         // Initializes required variables
-        cooldownMessage = config.getCooldownWarning();
-        partialCooldownMesssage = config.getPartialCooldownWarning();
-        teleportMessage = config.getTeleportMessage();
+        messages = config.getMessages();
 
-        teleportRadiusSquared = Math.pow(config.getRadius(), 2); // Calculate radius squared
         cooldownDuration = config.getBellCooldown();
         delay = config.getTeleportDelay();
-        teleportHeightOffset = config.getHeight();
+        asyncTeleport = config.getTeleportMode() == Config.TeleportMode.ASYNC
+                || platformScheduler.isRegionized(); // Folia cannot teleport across regions synchronously
     }
 
     /**
-     * Starts raider teleportation when a bell is rung.
+     * Resolves the bell rings of one tick together. Every
+     * raid in range of a ringing bell and not on cooldown is
+     * teleported once, to the nearest ringing bell, and every
+     * player gets one message for all of their rings. The
+     * message is picked once the raids are assigned, so a
+     * player whose raids all went to a nearer bell of someone
+     * else is not told that raiders are on their way.
      *
-     * @param player       The player ringing the bell
-     * @param bellWorld    The world of the bell
-     * @param bellLocation Location of the bell
+     * @param rings       Rings of the tick, in the order they happened
+     * @param currentTick Game tick the rings are resolved on
      */
-    public void initiateTeleport(final Player player, final World bellWorld, final Location bellLocation) {
-        processRaidsInWorld(player, bellWorld, bellLocation);
-    }
+    public void resolveRings(final List<BellRingBuffer.PendingRing> rings, final long currentTick) {
+        final Map<RaidData, BellRingBuffer.PendingRing> nearestRings = new HashMap<>(); // Nearest ring of every raid
+        final Map<Player, RingResult> results = new LinkedHashMap<>();                // Result of every player
 
-    /**
-     * Processes raids in the world, checks cooldowns, and teleports raiders.
-     *
-     * @param player       The player who rang the bell
-     * @param bellWorld    World where the bell is
-     * @param bellLocation Bell's location
-     */
-    private void processRaidsInWorld(final Player player, final World bellWorld, final Location bellLocation) {
-        final Map<Integer, RaidData> raidMap = raidManager.getActiveRaidsByWorld().get(bellWorld);
-        if (raidMap == null || raidMap.isEmpty()) {
-            logger.warning("No raids to process in world: " + bellWorld.getName());
-            return;
+        for (final BellRingBuffer.PendingRing ring : rings) {
+            final RingResult result = results.computeIfAbsent(ring.player(), player -> new RingResult());
+            processRaidsNearBell(ring, currentTick, result, nearestRings);
         }
 
-        boolean allOnCooldown = true;   // If all raids are in cooldown
-        boolean someOnCooldown = false; // If some of raids are not in cooldown
-        boolean raidsNearby = false;
+        final Map<Player, Map<Location, List<RaidData>>> raidsByPlayer = new HashMap<>();
+        nearestRings.forEach((raidData, ring) -> {
+            raidData.startCooldown(currentTick, cooldownDuration);
+            results.get(ring.player()).someAssigned = true;
+            raidsByPlayer.computeIfAbsent(ring.player(), player -> new HashMap<>())
+                         .computeIfAbsent(ring.bellLocation(), bell -> new ArrayList<>())
+                         .add(raidData);
+        });
+        raidsByPlayer.forEach(this::scheduleTeleportUpdate);
+
+        results.forEach((player, result) -> {
+            if (result.someAssigned || result.someOnCooldown) {
+                sendMessage(player, !result.someAssigned, result.someOnCooldown);
+            }
+        });
 
-        for (final RaidData raidData : raidMap.values()) {
-            if (raidData.isTeleportEnabled() && isWithinTeleportRange(raidData.getRaidLocation(), bellLocation)) {
-                raidsNearby = true;
+        pool.returnTeleporter(this);
+    }
 
-                if (raidData.isCooldownActive()) {
-                    someOnCooldown = true;
+    /**
+     * Checks the raids near one ringing bell. Raids on cooldown
+     * are only noted for the message; every other raid keeps
+     * the nearest bell that rang for it.
+     * The raids in range come from the {@link BellRaidCache}, so
+     * only the first ring of a bell searches the raid index.
+     *
+     * @param ring         The ring to process
+     * @param currentTick  Game tick the rings are resolved on
+     * @param result       Result of the player who rang the bell
+     * @param nearestRings Nearest ring of every raid so far
+     */
+    private void processRaidsNearBell(final BellRingBuffer.PendingRing ring, final long currentTick,
+                                      final RingResult result,
+                                      final Map<RaidData, BellRingBuffer.PendingRing> nearestRings) {
+        for (final RaidData raidData : bellRaidCache.getRaidsNear(ring.bellLocation())) {
+            if (raidData.isTeleportEnabled(currentTick)) {
+                if (raidData.isCooldownActive(currentTick)) {
+                    result.someOnCooldown = true;
                 } else {
-                    allOnCooldown = false;
-                    teleportRaiders(raidData, bellLocation);
-                    activateCooldown(raidData);
+                    nearestRings.merge(raidData, ring, (current, candidate) ->
+                            isCloser(raidData, candidate, current) ? candidate : current);
                 }
             }
         }
+    }
 
-        if (raidsNearby) {
-            sendMessage(player, allOnCooldown, someOnCooldown);
-        }
+    /**
+     * Checks if a ring is closer to the raid than another one.
+     * Ties keep the earlier ring.
+     *
+     * @param raidData  The raid
+     * @param candidate Ring to check
+     * @param current   Nearest ring so far
+     * @return true if the candidate is strictly closer
+     */
+    private boolean isCloser(final RaidData raidData, final BellRingBuffer.PendingRing candidate,
+                             final BellRingBuffer.PendingRing current) {
+        final Location raidLocation = raidData.getRaidLocation();
+        return raidLocation.distanceSquared(candidate.bellLocation())
+                < raidLocation.distanceSquared(current.bellLocation());
+    }
 
-        pool.returnTeleporter(this);
+    /**
+     * Resolves the target of every bell and schedules the
+     * teleport of the raids of one player with a delay on
+     * the timing wheel. Every raid goes to the bell it was
+     * assigned to.
+     *
+     * @param player      The player who rang the bells
+     * @param raidsByBell Raids to teleport per bell
+     */
+    private void scheduleTeleportUpdate(final Player player, final Map<Location, List<RaidData>> raidsByBell) {
+        final Map<Location, CompletableFuture<Location>> targets = new HashMap<>();
+        raidsByBell.keySet().forEach(bellLocation -> targets.put(bellLocation, targetResolver.resolve(bellLocation)));
+
+        if (asyncTeleport) {
+            timingWheel.schedule(() -> teleportRaidersAsync(player, raidsByBell, targets), delay);
+        } else {
+            timingWheel.schedule(() -> raidsByBell.forEach((bellLocation, raids) ->
+                    targets.get(bellLocation).thenAccept(targetLocation ->
+                            raids.forEach(raidData -> raidData.getRaiderSet()
+                                    .forEach(raider -> teleportRaider(raider, targetLocation))))), delay);
+        }
     }
 
     /**
-     * Teleports raiders from the raid near the bell.
+     * Teleports a single raider to the target location on
+     * the thread that owns the raider.
      *
-     * @param raidData     The raid to teleport raiders from
-     * @param bellLocation Location of the bell
+     * @param raider         Raider entity to teleport
+     * @param targetLocation Target teleport location
      */
-    private void teleportRaiders(final RaidData raidData, final Location bellLocation) {
-        final Location targetLocation = bellLocation.clone().add(0, teleportHeightOffset, 0);
-        scheduleTeleportUpdate(raidData, targetLocation);
+    private void teleportRaider(final Raider raider, final Location targetLocation) {
+        platformScheduler.runForEntity(raider, () -> {
+            if (raider.teleport(targetLocation)) {
+                stats.getTeleports().increment();
+            }
+        }, () -> { });
     }
 
     /**
-     * Checks if the raid's location is within the bell's teleport range.
+     * Waits for the targets, whose chunks the resolver has
+     * loaded, then teleports the raiders asynchronously and
+     * tells the player how many of them arrived once all
+     * teleports have settled.
      *
-     * @param raidLocation Location of the raid
-     * @param bellLocation Location of the bell
-     * @return true if within range, false otherwise
+     * @param player      The player who rang the bells
+     * @param raidsByBell Raids to teleport per bell
+     * @param targets     Target of every bell
      */
-    private boolean isWithinTeleportRange(final Location raidLocation, final Location bellLocation) {
-        return raidLocation.distanceSquared(bellLocation) < teleportRadiusSquared;
+    private void teleportRaidersAsync(final Player player, final Map<Location, List<RaidData>> raidsByBell,
+                                      final Map<Location, CompletableFuture<Location>> targets) {
+        final List<CompletableFuture<Integer>> bellArrivals = new ArrayList<>();
+
+        raidsByBell.forEach((bellLocation, raids) -> bellArrivals.add(targets.get(bellLocation)
+                .thenCompose(targetLocation -> teleportAllAsync(raids, targetLocation))));
+
+        CompletableFuture.allOf(bellArrivals.toArray(new CompletableFuture[0])).whenComplete((ignored, exception) -> {
+            if (exception != null) {
+                logger.log(Level.WARNING, "Could not teleport raiders to the bell.", exception);
+                return;
+            }
+
+            int arrived = 0;
+            for (final CompletableFuture<Integer> bellArrival : bellArrivals) {
+                arrived += bellArrival.join();
+            }
+            sendArrivedMessage(player, arrived);
+        });
     }
 
     /**
-     * Schedules raider teleportation with a delay.
+     * Starts the async teleport of every raider of the raids.
      *
-     * @param targetLocation Target location for teleportation
+     * @param raids          The raids to teleport raiders from
+     * @param targetLocation Target teleport location
+     * @return Future of the number of raiders that arrived
      */
-    private void scheduleTeleportUpdate(final RaidData raidData, final Location targetLocation) {
-        if (targetLocation == null) {
-            logger.warning("Raid or target location is null. Cannot schedule teleport.");
-            return;
+    private CompletableFuture<Integer> teleportAllAsync(final List<RaidData> raids, final Location targetLocation) {
+        final List<CompletableFuture<Boolean>> arrivals = new ArrayList<>();
+        for (final RaidData raidData : raids) {
+            for (final Raider raider : raidData.getRaiderSet()) {
+                arrivals.add(teleportRaiderAsync(raider, targetLocation));
+            }
         }
 
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            final Set<Raider> raiders = raidData.getRaiderSet() != null
-                    ? raidData.getRaiderSet()
-                    : new HashSet<>(raidData.getRaidInstance().getRaiders());
-
-            raiders.forEach(raider -> teleportRaider(raider, targetLocation));
-        }, delay);
+        return CompletableFuture.allOf(arrivals.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            int arrived = 0;
+            for (final CompletableFuture<Boolean> arrival : arrivals) {
+                if (arrival.join()) arrived++;
+            }
+            return arrived;
+        });
     }
 
     /**
-     * Teleports a single raider to the target location.
+     * Teleports a single raider asynchronously on the thread
+     * that owns the raider. The returned future never fails;
+     * it completes with false if the raider did not arrive.
      *
      * @param raider         Raider entity to teleport
      * @param targetLocation Target teleport location
+     * @return Future telling whether the raider arrived
      */
-    private void teleportRaider(final Raider raider, final Location targetLocation) {
-        raider.teleport(targetLocation);
+    private CompletableFuture<Boolean> teleportRaiderAsync(final Raider raider, final Location targetLocation) {
+        final CompletableFuture<Boolean> arrival = new CompletableFuture<>();
+
+        platformScheduler.runForEntity(raider, () -> {
+            try {
+                raider.teleportAsync(targetLocation).whenComplete((teleported, exception) -> {
+                    final boolean arrived = exception == null && Boolean.TRUE.equals(teleported);
+                    if (arrived) {
+                        stats.getTeleports().increment();
+                    }
+                    arrival.complete(arrived);
+                });
+            } catch (final RuntimeException exception) {
+                arrival.complete(false);
+            }
+        }, () -> arrival.complete(false));
+        return arrival;
     }
 
     /**
-     * Puts the raid into cooldown after teleporting raiders.
+     * Tells the player how many raiders arrived at the bell.
      *
-     * @param raidData The raid to set cooldown for
+     * @param player  The player who rang the bell
+     * @param arrived Number of raiders that arrived
      */
-    private void activateCooldown(final RaidData raidData) {
-        raidData.setCooldownActive(true);
-        Bukkit.getScheduler().runTaskLater(plugin, () ->
-                raidData.setCooldownActive(false), cooldownDuration);
+    private void sendArrivedMessage(final Player player, final int arrived) {
+        platformScheduler.runForEntity(player,
+                () -> player.sendMessage(messages.forPlayer(player).formatArrived(arrived)), () -> { });
     }
 
     /**
@@ -184,12 +305,23 @@ public class Teleporter {
      * @param someOnCooldown If some raids are on cooldown
      */
     private void sendMessage(final Player player, final boolean allOnCooldown, final boolean someOnCooldown) {
+        final Messages playerMessages = messages.forPlayer(player);
+
         if (allOnCooldown) {
-            player.sendMessage(cooldownMessage);
+            player.sendMessage(playerMessages.cooldown());
         } else if (someOnCooldown) {
-            player.sendMessage(partialCooldownMesssage);
+            player.sendMessage(playerMessages.someCooldown());
         } else {
-            player.sendMessage(teleportMessage);
+            player.sendMessage(playerMessages.teleport());
         }
     }
+
+    /**
+     * Result of the rings of one player in a tick.
+     */
+    private static final class RingResult {
+
+        private boolean someAssigned;   // Whether any raid goes to a bell the player rang
+        private boolean someOnCooldown; // Whether any raid in range was on cooldown
+    }
 }
@@ -1,8 +1,9 @@
 package ru.ephy.raidhelper.raid.events.bell;
 
-import org.bukkit.plugin.java.JavaPlugin;
 import ru.ephy.raidhelper.config.Config;
-import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.scheduler.TimingWheel;
+import ru.ephy.raidhelper.stats.PerformanceStats;
 
 import java.util.LinkedList;
 import java.util.Queue;
@@ -16,7 +17,7 @@ import java.util.logging.Logger;
 public class TeleporterPool {
 
     private final Queue<Teleporter> teleporterQueue;  // Queue holding available Teleporters
-    private final int maxPoolSize;                    // Max number of Teleporters in the pool
+    private int maxPoolSize;                          // Max number of Teleporters in the pool
 
     /**
      * Initializes the TeleporterPool to manage reusable Teleporter instances.
@@ -28,21 +29,38 @@ public class TeleporterPool {
         maxPoolSize = config.getMaxPoolSize();
     }
 
+    /**
+     * Discards the pooled Teleporters, which hold the old
+     * settings, and picks up the new pool size. Teleports
+     * already scheduled by a Teleporter still run.
+     *
+     * @param config The new settings snapshot
+     */
+    public void reload(final Config config) {
+        teleporterQueue.clear();
+        maxPoolSize = config.getMaxPoolSize();
+    }
+
     /**
      * Provides an available Teleporter instance or creates a new one if the pool is empty.
      *
-     * @param plugin       The plugin instance required by the teleporter.
-     * @param raidManager  The RaidManager handling raid logic.
-     * @param config       Config instance for initializing teleport variables.
-     * @param logger       Logger for logging debug or informational messages.
+     * @param platformScheduler The scheduler running the teleports.
+     * @param timingWheel       The timing wheel used by the teleporter.
+     * @param bellRaidCache     The cache of the raids in range of every bell.
+     * @param targetResolver    The resolver of the safe spot near every bell.
+     * @param config            Config instance for initializing teleport variables.
+     * @param stats             PerformanceStats counting the teleports.
+     * @param logger            Logger for logging debug or informational messages.
      * @return A Teleporter instance from the pool or a newly created one.
      */
-    public Teleporter getTeleporter(final JavaPlugin plugin, final RaidManager raidManager,
-                                    final Config config, final Logger logger) {
+    public Teleporter getTeleporter(final PlatformScheduler platformScheduler, final TimingWheel timingWheel,
+                                    final BellRaidCache bellRaidCache, final SafeTargetResolver targetResolver,
+                                    final Config config, final PerformanceStats stats, final Logger logger) {
         if (!teleporterQueue.isEmpty()) {
             return teleporterQueue.poll();
         }
-        return new Teleporter(plugin, this, raidManager, config, logger);
+        return new Teleporter(
+                platformScheduler, timingWheel, this, bellRaidCache, targetResolver, config, stats, logger);
     }
 
     /**
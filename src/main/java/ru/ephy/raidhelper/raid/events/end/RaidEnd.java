@@ -6,17 +6,20 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.raid.RaidFinishEvent;
 import org.bukkit.event.raid.RaidStopEvent;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
 import ru.ephy.raidhelper.raid.data.RaidManager;
 
 /**
  * Listens for events related to the completion
  * or termination of raids. This class handles
  * the removal of raids from the active list when
- * they finish or stop.
+ * they finish or stop. Removals are handed to the
+ * thread that owns the plugin state.
  */
 @RequiredArgsConstructor
 public class RaidEnd implements Listener {
-    private final RaidManager raidManager; // Manages active raids
+    private final PlatformScheduler platformScheduler; // Runs removals on the owning thread
+    private final RaidManager raidManager;             // Manages active raids
 
     /**
      * Handles the completion of a raid.
@@ -45,6 +48,6 @@ public class RaidEnd implements Listener {
      * @param raid The raid instance to be removed.
      */
     private void removeRaid(final Raid raid) {
-        raidManager.removeRaidIfPresent(raid);
+        platformScheduler.runGlobal(() -> raidManager.removeRaidIfPresent(raid));
     }
 }
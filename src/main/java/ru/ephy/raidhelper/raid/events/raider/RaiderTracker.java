@@ -0,0 +1,89 @@
+package ru.ephy.raidhelper.raid.events.raider;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Raid;
+import org.bukkit.entity.Raider;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.raid.RaidSpawnWaveEvent;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+
+import java.util.List;
+
+/**
+ * Keeps the raider sets of the registered raids up
+ * to date. Raiders are added when a wave spawns or
+ * their chunk is loaded again, and removed when they
+ * die or leave the world, so reading the raiders of
+ * a raid never needs a copy of {@link Raid#getRaiders()}.
+ * The updates are handed to the thread that owns the
+ * plugin state.
+ */
+@RequiredArgsConstructor
+public class RaiderTracker implements Listener {
+    private final PlatformScheduler platformScheduler; // Runs updates on the owning thread
+    private final RaidManager raidManager;             // Manages active raids
+
+    /**
+     * Adds the raiders of a new wave to their raid.
+     *
+     * @param event The event triggered when a raid spawns a wave
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final RaidSpawnWaveEvent event) {
+        final Raid raid = event.getRaid();
+        final List<Raider> raiders = List.copyOf(event.getRaiders());
+
+        platformScheduler.runGlobal(() -> {
+            for (final Raider raider : raiders) {
+                raidManager.addRaider(raid, raider);
+            }
+        });
+    }
+
+    /**
+     * Removes a raider that died from its raid.
+     *
+     * @param event The event triggered when an entity dies
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final EntityDeathEvent event) {
+        if (event.getEntity() instanceof final Raider raider) {
+            platformScheduler.runGlobal(() -> raidManager.removeRaider(raider));
+        }
+    }
+
+    /**
+     * Removes a raider that was removed from the world
+     * or unloaded with its chunk.
+     *
+     * @param event The event triggered when an entity leaves the world
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final EntityRemoveFromWorldEvent event) {
+        if (event.getEntity() instanceof final Raider raider) {
+            platformScheduler.runGlobal(() -> raidManager.removeRaider(raider));
+        }
+    }
+
+    /**
+     * Adds a raider back to its raid when its chunk is loaded again.
+     *
+     * @param event The event triggered when an entity is added to the world
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final EntityAddToWorldEvent event) {
+        if (event.getEntity() instanceof final Raider raider) {
+            final Raid raid = raider.getRaid();
+
+            if (raid != null) {
+                platformScheduler.runGlobal(() -> raidManager.addRaider(raid, raider));
+            }
+        }
+    }
+}
@@ -1,54 +1,61 @@
 package ru.ephy.raidhelper.raid.monitor;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Raid;
 import org.bukkit.World;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.raid.*;
-import org.bukkit.plugin.java.JavaPlugin;
-import org.jetbrains.annotations.Nullable;
 import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.ConfigManager;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
 import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.data.WorldIndex;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.util.IntObjectMap;
 
 import java.util.*;
-import java.util.logging.Logger;
 
 /**
  * Listens for and processes raid-related events,
  * handling the registration of active raids using the RaidManager.
+ * Registrations are queued as discover work of the tick pipeline.
+ * The raids are read on the thread that fired the event,
+ * which on Folia only sees the raids of its own region.
+ * They are queued on the thread that owns the plugin state,
+ * which picks up reloaded worlds on the next event.
  */
 public class RaidEventMonitor implements Listener {
 
-    private final JavaPlugin plugin;          // Plugin instance for scheduling tasks
-    private final RaidManager raidManager;    // Manages raid-related operations
-    private final Logger logger;              // Logger for debugging
+    private final PlatformScheduler platformScheduler; // Runs the queueing on the owning thread
+    private final TickPipeline pipeline;               // Pipeline the registrations are queued in
+    private final RaidManager raidManager;             // Manages raid-related operations
+    private final ConfigManager configManager;         // Holds the monitored worlds
 
-    private final Set<Integer> raidSet;          // Set to ensure no duplicate raids are queued
-    private final Set<World> monitoredWorlds; // Worlds that are monitored for raid activity
-    private final int raidBatchLimit;         // Maximum number of raids processed per tick
-
-    private int taskId = -1;                  // Task ID for the scheduler
+    private List<IntObjectMap<Raid>> queuedRaids;       // Queued raids by id, per monitored world
+    private WorldIndex monitoredWorlds;                 // Worlds that are monitored for raid activity
+    private Config config;                              // Settings snapshot the worlds come from
 
     /**
      * Initializes the RaidEventMonitor to listen and handle raid events.
      *
-     * @param plugin      Main plugin instance
-     * @param raidManager RaidManager responsible for handling raid registration
-     * @param config      Config object to retrieve world and raid processing settings
+     * @param platformScheduler Runs the queueing on the owning thread
+     * @param pipeline          Pipeline the registrations are queued in
+     * @param raidManager       RaidManager responsible for handling raid registration
+     * @param configManager     Holds the monitored worlds
      */
-    public RaidEventMonitor(final JavaPlugin plugin, final RaidManager raidManager,
-                            final Config config, final Logger logger) {
+    public RaidEventMonitor(final PlatformScheduler platformScheduler, final TickPipeline pipeline,
+                            final RaidManager raidManager, final ConfigManager configManager) {
         // Initializes required instances
-        this.plugin = plugin;
+        this.platformScheduler = platformScheduler;
+        this.pipeline = pipeline;
         this.raidManager = raidManager;
-        this.logger = logger;
+        this.configManager = configManager;
 
         // Initializes required variables
-        monitoredWorlds = config.getValidWorlds();
-        raidBatchLimit = config.getMaxChecksPerTick();
-
-        raidSet = new HashSet<>();
+        monitoredWorlds = new WorldIndex();
+        queuedRaids = List.of();
+        reload(configManager.getConfig());
     }
 
     /**
@@ -60,95 +67,79 @@ public class RaidEventMonitor implements Listener {
     @EventHandler
     public void on(final RaidEvent event) {
         final World world = event.getWorld();
-        scanWorldForRaids(world);
+        final List<RegionRaidScan.ScannedRaid> raids = new ArrayList<>();
+        RegionRaidScan.collectOwnedRaids(platformScheduler, raidManager, world, raids);
+
+        if (!raids.isEmpty()) {
+            platformScheduler.runGlobal(() -> queueRaidsOfWorld(world, raids));
+        }
     }
 
     /**
-     * Checks the provided world for active raids
+     * Queues the raids found in the provided world
      * if it's in the monitored list.
      *
      * @param world World where the event occurred
+     * @param raids Raids of the world that were not registered
      */
-    private void scanWorldForRaids(final World world) {
-        if (monitoredWorlds.contains(world)) {
-            processRaidsInWorld(world);
+    private void queueRaidsOfWorld(final World world, final List<RegionRaidScan.ScannedRaid> raids) {
+        if (configManager.getConfig() != config) {
+            reload(configManager.getConfig());
+        }
+
+        final int index = monitoredWorlds.indexOf(world);
+        if (index >= 0) {
+            processRaidsInWorld(world, queuedRaids.get(index), raids);
         }
     }
 
     /**
-     * Adds active raids from the specified
-     * world to the queue for processing.
+     * Queues the registration of the unregistered
+     * raids of the specified world.
      *
-     * @param world World to scan for raids
+     * @param world  World the raids were found in
+     * @param queued Queued raids of the world
+     * @param raids  Raids of the world that were not registered
      */
-    private void processRaidsInWorld(final World world) {
-        final Set<Raid> raidsInWorld = new HashSet<>(world.getRaids());
-
-        for (final Raid raid : raidsInWorld) {
-            final int raidId = raid.getId();
-
-            if (raidManager.isRaidRegistered(raid)) {
-                raidSet.add(raidId);
+    private void processRaidsInWorld(final World world, final IntObjectMap<Raid> queued,
+                                     final List<RegionRaidScan.ScannedRaid> raids) {
+        for (final RegionRaidScan.ScannedRaid scannedRaid : raids) {
+            final int raidId = scannedRaid.raid().getId();
+            if (!raidManager.isRaidRegistered(world, raidId) && queued.put(raidId, scannedRaid.raid()) == null) {
+                pipeline.submit(PerformanceStats.Stage.DISCOVER, () -> registerRaid(queued, scannedRaid));
             }
         }
-
-        if (!raidSet.isEmpty() && taskId == -1) {
-            taskId = Bukkit.getScheduler().runTaskTimer(
-                    plugin, () -> processRaidsInBatches(world), 0L, 1L
-            ).getTaskId();
-        } else if (taskId != -1) {
-            logger.warning("Cannot scan raids because the scheduler is busy. TaskId: " + taskId);
-        }
     }
 
     /**
-     * Processes raids in the queue in batches,
-     * limiting the number per tick.
+     * Picks up the monitored worlds of a settings snapshot.
+     * Worlds that stay monitored keep their queued raids.
+     *
+     * @param reloaded The settings snapshot
      */
-    private void processRaidsInBatches(final World world) {
-        final Iterator<Integer> raidIterator = raidSet.iterator();
-        int processedCount = 0;
-
-        while (processedCount < raidBatchLimit && raidIterator.hasNext()) {
-            final int raidId = raidIterator.next();
-            final Raid raid = getRaid(world, raidId);
-
-            if (raid != null) {
-                registerRaid(raid);
-                raidSet.remove(raidId);
-                processedCount++;
-            } else {
-                logger.warning("The raid by id " + raidId + " is null");
-            }
-        }
+    private void reload(final Config reloaded) {
+        final WorldIndex worlds = new WorldIndex(reloaded.getValidWorlds());
+        final List<IntObjectMap<Raid>> queued = new ArrayList<>(worlds.size());
 
-        if (!raidIterator.hasNext() && taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
-            taskId = -1;
-        } else if (taskId == -1) {
-            logger.warning("Cannot cancel the task for raids scan because the scheduler is asleep. TaskId: " + taskId);
+        for (int index = 0; index < worlds.size(); index++) {
+            final int previousIndex = monitoredWorlds.indexOf(worlds.get(index));
+            queued.add(previousIndex >= 0 ? queuedRaids.get(previousIndex) : new IntObjectMap<>());
         }
-    }
 
-    /**
-     * Gets the raid by ID from the specified world.
-     *
-     * @param world  World to look for the raid
-     * @param raidId The ID of the raid
-     * @return The raid instance, if not null. Returns null otherwise.
-     */
-    @Nullable
-    private Raid getRaid(final World world, final int raidId) {
-        return world.getRaid(raidId);
+        monitoredWorlds = worlds;
+        queuedRaids = queued;
+        config = reloaded;
     }
 
     /**
      * Registers the raid in the RaidManager if
      * it's not already registered.
      *
-     * @param raid The raid to register
+     * @param queued      Queued raids of the world of the raid
+     * @param scannedRaid The raid to register, with the raiders read on the event thread
      */
-    private void registerRaid(final Raid raid) {
-        raidManager.addRaidIfAbsent(raid);
+    private void registerRaid(final IntObjectMap<Raid> queued, final RegionRaidScan.ScannedRaid scannedRaid) {
+        queued.remove(scannedRaid.raid().getId());
+        raidManager.addRaidIfAbsent(scannedRaid.raid(), scannedRaid.raiders());
     }
 }
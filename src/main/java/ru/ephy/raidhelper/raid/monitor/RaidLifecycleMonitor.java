@@ -0,0 +1,194 @@
+package ru.ephy.raidhelper.raid.monitor;
+
+import org.bukkit.Raid;
+import org.bukkit.World;
+import org.bukkit.entity.Raider;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.raid.RaidSpawnWaveEvent;
+import org.bukkit.event.raid.RaidTriggerEvent;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.pipeline.PipelineStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the RaidManager up to date from raid lifecycle
+ * events only. Raids are registered when they are
+ * triggered or spawn a wave; finished and stopped raids
+ * are removed by {@link ru.ephy.raidhelper.raid.events.end.RaidEnd}.
+ * A full scan of the worlds only runs as the discover
+ * stage of the tick pipeline at the reconcile frequency
+ * to catch raids the events missed, so idle worlds cost
+ * nothing. Registrations from the events are handed to
+ * the thread that owns the plugin state, with the raiders
+ * read on the thread that fired the event.
+ * <p>
+ * The scan reads the raids on the threads that own them:
+ * missing raids are found by a {@link RegionRaidScan}, and
+ * every registered raid checks its status on its region.
+ */
+public class RaidLifecycleMonitor implements Listener, PipelineStage {
+
+    private final PlatformScheduler platformScheduler; // Runs registrations on the owning thread
+    private final RaidManager raidManager;             // Manages raid registrations
+    private final Logger logger;                       // Logger for debugging
+
+    private volatile Set<World> monitoredWorlds; // Worlds monitored for raids, read by the event threads
+    private int reconcileFrequency;              // Ticks between two reconciliation scans
+
+    /**
+     * Initializes the RaidLifecycleMonitor.
+     *
+     * @param platformScheduler Runs registrations on the owning thread
+     * @param raidManager       The RaidManager instance
+     * @param config            The Config instance for settings
+     * @param logger            The Logger instance for logging
+     */
+    public RaidLifecycleMonitor(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                                final Config config, final Logger logger) {
+        // Initialize required instances
+        this.platformScheduler = platformScheduler;
+        this.raidManager = raidManager;
+        this.logger = logger;
+
+        // Initialize required variables
+        reload(config);
+    }
+
+    /**
+     * Picks up the monitored worlds and the reconcile frequency.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        monitoredWorlds = config.getValidWorlds();
+        reconcileFrequency = config.getReconcileFrequency();
+    }
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.DISCOVER;
+    }
+
+    @Override
+    public int getCadence() {
+        return reconcileFrequency;
+    }
+
+    /**
+     * Reconciles the registered raids. The first pass picks
+     * up raids that were running before the start.
+     *
+     * @param pipeline Pipeline the stage belongs to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        reconcileRaids();
+    }
+
+    /**
+     * Registers a raid when it is triggered.
+     *
+     * @param event The event triggered when a player starts a raid
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final RaidTriggerEvent event) {
+        registerRaid(event.getWorld(), event.getRaid());
+    }
+
+    /**
+     * Registers a raid when it spawns a wave, in case
+     * its trigger was missed.
+     *
+     * @param event The event triggered when a raid spawns a wave
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final RaidSpawnWaveEvent event) {
+        registerRaid(event.getWorld(), event.getRaid());
+    }
+
+    /**
+     * Registers the raid if its world is monitored.
+     *
+     * @param world World of the raid
+     * @param raid  The raid to register
+     */
+    private void registerRaid(final World world, final Raid raid) {
+        if (monitoredWorlds.contains(world)) {
+            final List<Raider> raiders = List.copyOf(raid.getRaiders());
+            platformScheduler.runGlobal(() -> raidManager.addRaidIfAbsent(raid, raiders));
+        }
+    }
+
+    /**
+     * Compares the registered raids with the raids of
+     * each monitored world. Registers ongoing raids that
+     * are missing once the scan is merged, and removes raids
+     * that are no longer ongoing once their region has read
+     * their status.
+     */
+    private void reconcileRaids() {
+        final Set<World> worlds = monitoredWorlds;
+        RegionRaidScan.scan(platformScheduler, raidManager, worlds, false,
+                result -> registerMissingRaids(worlds, result));
+
+        for (final World world : worlds) {
+            for (final RaidData raidData : raidManager.getRaids(world)) {
+                final Raid raid = raidData.getRaidInstance();
+
+                platformScheduler.runAtLocation(raidData.getRaidLocation(), () -> {
+                    if (raid.getStatus() != Raid.RaidStatus.ONGOING) {
+                        platformScheduler.runGlobal(() -> removeEndedRaid(world, raid));
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Registers the ongoing raids the scan found unregistered.
+     *
+     * @param worlds The scanned worlds
+     * @param result Raids the scan found
+     */
+    private void registerMissingRaids(final Set<World> worlds, final RegionRaidScan result) {
+        int added = 0;
+
+        for (final World world : worlds) {
+            for (final RegionRaidScan.ScannedRaid scannedRaid : result.getNewRaids(world)) {
+                if (scannedRaid.ongoing() && !raidManager.isRaidRegistered(world, scannedRaid.raid().getId())) {
+                    raidManager.addRaidIfAbsent(scannedRaid.raid(), scannedRaid.raiders());
+                    added++;
+                }
+            }
+        }
+
+        if (added > 0) {
+            logger.info("Raid reconciliation registered " + added + " raids.");
+        }
+    }
+
+    /**
+     * Removes a raid that is no longer ongoing if it is
+     * still registered.
+     *
+     * @param world World of the raid
+     * @param raid  The raid to remove
+     */
+    private void removeEndedRaid(final World world, final Raid raid) {
+        if (raidManager.isRaidRegistered(world, raid.getId())) {
+            raidManager.removeRaidIfPresent(raid);
+            logger.info("Raid reconciliation removed raid " + raid.getId() + ", which is no longer ongoing.");
+        }
+    }
+}
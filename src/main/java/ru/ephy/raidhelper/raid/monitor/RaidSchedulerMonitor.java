@@ -1,109 +1,237 @@
 package ru.ephy.raidhelper.raid.monitor;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Raid;
 import org.bukkit.World;
-import org.bukkit.plugin.java.JavaPlugin;
 import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
 import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.data.WorldIndex;
+import ru.ephy.raidhelper.raid.pipeline.PipelineStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.util.IntObjectMap;
 
 import java.util.*;
-import java.util.logging.Logger;
 
 /**
- * Monitors specified worlds for active raids
- * and periodically registers them in the RaidManager.
+ * Discover stage of the tick pipeline. Monitors specified
+ * worlds for active raids and periodically registers
+ * them in the RaidManager. Queued raids are tracked by
+ * world index and raid id, so a scan does not box ids.
+ * A reload keeps the queued raids of the worlds that
+ * stay monitored.
+ * <p>
+ * Every world has its own scan interval. By default it is
+ * the world frequency. With adaptive scan the interval of
+ * a world doubles after every scan that finds no raid and
+ * no player with Bad Omen, up to the max frequency, and
+ * drops to the min frequency as soon as one is found. The
+ * current interval of every world is shown in the stats.
+ * <p>
+ * The raids and players are read through a
+ * {@link RegionRaidScan}, so on Folia every region is
+ * scanned on its own thread and the registrations are
+ * queued once all of them are merged.
  */
-public class RaidSchedulerMonitor {
+public class RaidSchedulerMonitor implements PipelineStage {
 
-    private final JavaPlugin plugin;           // Plugin instance for task scheduling
-    private final RaidManager raidManager;     // Manages raid registrations
-    private final Logger logger;               // Logger for debugging
+    private final PlatformScheduler platformScheduler; // Runs the scan on the threads owning the raids
+    private final RaidManager raidManager;             // Manages raid registrations
+    private final PerformanceStats stats;              // Shows the scan interval of every world
 
-    private final Set<Raid> raidSet;           // Set to ensure no duplicate raids are queued
-    private final Set<World> monitoredWorlds;  // Worlds currently monitored for raids
-    private final int raidBatchLimit;          // Max number of raids processed per update
-
-    private int taskId = -1;                   // Task ID for the scheduler
+    private List<WorldScan> worldScans;        // Scan state, per monitored world
+    private WorldIndex monitoredWorlds;        // Worlds currently monitored for raids
+    private int worldCheckFrequency;           // Ticks between two scans of a world (fixed scan)
+    private boolean adaptiveScan;              // Whether the interval adapts to the activity of the world
+    private int minWorldFrequency;             // Ticks between two scans of a busy world (adaptive scan)
+    private int maxWorldFrequency;             // Max ticks between two scans of an idle world (adaptive scan)
 
     /**
      * Initializes the RaidMonitor to track and process raids.
      *
-     * @param plugin      The JavaPlugin instance
-     * @param raidManager The RaidManager instance
-     * @param config      The Config instance for settings
-     * @param logger      The Logger instance for logging
+     * @param platformScheduler Runs the scan on the threads owning the raids
+     * @param raidManager       The RaidManager instance
+     * @param config            The Config instance for settings
+     * @param stats             Performance stats of the plugin
      */
-    public RaidSchedulerMonitor(final JavaPlugin plugin, final RaidManager raidManager,
-                                final Config config, final Logger logger) {
+    public RaidSchedulerMonitor(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                                final Config config, final PerformanceStats stats) {
         // Initialize required instances
-        this.plugin = plugin;
+        this.platformScheduler = platformScheduler;
         this.raidManager = raidManager;
-        this.logger = logger;
+        this.stats = stats;
 
         // Initialize required variables
-        monitoredWorlds = config.getValidWorlds();
-        raidBatchLimit = config.getMaxChecksPerTick();
+        monitoredWorlds = new WorldIndex();
+        worldScans = List.of();
+        reload(config);
+    }
+
+    /**
+     * Picks up the monitored worlds and the scan frequencies.
+     * Worlds that stay monitored keep their queued raids and
+     * are scanned on the next tick with the new interval.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        worldCheckFrequency = config.getWorldCheckFrequency();
+        adaptiveScan = config.isAdaptiveScan();
+        minWorldFrequency = config.getMinWorldFrequency();
+        maxWorldFrequency = config.getMaxWorldFrequency();
+
+        final WorldIndex worlds = new WorldIndex(config.getValidWorlds());
+        final List<WorldScan> scans = new ArrayList<>(worlds.size());
+        stats.getScanIntervals().clear();
+
+        for (int index = 0; index < worlds.size(); index++) {
+            final World world = worlds.get(index);
+            final int previousIndex = monitoredWorlds.indexOf(world);
+            final WorldScan scan = previousIndex >= 0 ? worldScans.get(previousIndex) : new WorldScan();
+
+            scan.interval = adaptiveScan ? minWorldFrequency : worldCheckFrequency;
+            scan.nextScanTick = 0L;
+            scans.add(scan);
+            stats.getScanIntervals().put(world.getName(), scan.interval);
+        }
+
+        monitoredWorlds = worlds;
+        worldScans = scans;
+    }
 
-        raidSet = new HashSet<>();
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.DISCOVER;
+    }
 
-        // Start the scheduler
-        Bukkit.getScheduler().runTaskTimer(
-                plugin, this::scanWorldsForRaids, 0L, config.getWorldCheckFrequency());
+    /**
+     * Runs every tick to check which worlds are due, unless
+     * the fixed frequency turns the scans off.
+     *
+     * @return 1, or 0 if the worlds are never scanned
+     */
+    @Override
+    public int getCadence() {
+        return adaptiveScan || worldCheckFrequency > 0 ? 1 : 0;
     }
 
     /**
-     * Scans all monitored worlds for active
-     * raids and enqueues them for processing.
+     * Scans the monitored worlds whose interval has passed
+     * for active raids. Their next scan is planned right
+     * away; the interval adapts once the scan is merged,
+     * and a shorter interval pulls the next scan in.
+     *
+     * @param pipeline Pipeline to submit work to
      */
-    private void scanWorldsForRaids() {
-        for (final World world : monitoredWorlds) {
-            final Set<Raid> raidsInWorld = new HashSet<>(world.getRaids());
-
-            for (final Raid raid : raidsInWorld) {
-                if (!raidManager.isRaidRegistered(raid)) {
-                    raidSet.add(raid);
-                }
+    @Override
+    public void run(final TickPipeline pipeline) {
+        final long currentTick = pipeline.getCurrentTick();
+        List<World> dueWorlds = null;
+        List<WorldScan> dueScans = null;
+
+        for (int index = 0; index < monitoredWorlds.size(); index++) {
+            final WorldScan scan = worldScans.get(index);
+            if (currentTick < scan.nextScanTick) continue;
+
+            if (dueWorlds == null) {
+                dueWorlds = new ArrayList<>();
+                dueScans = new ArrayList<>();
             }
+            dueWorlds.add(monitoredWorlds.get(index));
+            dueScans.add(scan);
+            scan.scanTick = currentTick;
+            scan.nextScanTick = currentTick + scan.interval;
         }
+        if (dueWorlds == null) return;
+
+        final List<World> worlds = dueWorlds;
+        final List<WorldScan> scans = dueScans;
+        RegionRaidScan.scan(platformScheduler, raidManager, worlds, adaptiveScan,
+                result -> applyScan(pipeline, worlds, scans, result));
+    }
 
-        if (!raidSet.isEmpty() && taskId == -1) {
-            taskId = Bukkit.getScheduler().runTaskTimer(
-                    plugin, this::processRaids, 0L, 1L
-            ).getTaskId();
-        } else if (taskId != -1) {
-            logger.warning("Cannot scan raids because the scheduler is busy. TaskId: " + taskId);
+    /**
+     * Queues the registration of the raids a scan found and
+     * adapts the interval of the scanned worlds.
+     *
+     * @param pipeline Pipeline to submit work to
+     * @param worlds   The scanned worlds
+     * @param scans    Scan state of every scanned world
+     * @param result   Raids and players the scan found
+     */
+    private void applyScan(final TickPipeline pipeline, final List<World> worlds, final List<WorldScan> scans,
+                           final RegionRaidScan result) {
+        for (int index = 0; index < worlds.size(); index++) {
+            final World world = worlds.get(index);
+            final WorldScan scan = scans.get(index);
+
+            queueRaids(pipeline, world, scan.queued, result.getNewRaids(world));
+            if (adaptiveScan) {
+                adaptInterval(world, scan, result.hasRaids(world) || result.hasBadOmenPlayer(world));
+            }
         }
     }
 
     /**
-     * Processes active raids in manageable batches.
+     * Queues the registration of the unregistered raids of
+     * a world.
+     *
+     * @param pipeline Pipeline to submit work to
+     * @param world    The scanned world
+     * @param queued   Queued raids of the world
+     * @param raids    Raids the scan found unregistered
      */
-    private void processRaids() {
-        final Iterator<Raid> raidIterator = raidSet.iterator();
-        int processedCount = 0;
-
-        while (processedCount < raidBatchLimit && raidIterator.hasNext()) {
-            final Raid raid = raidIterator.next();
-            registerRaid(raid);
-            raidSet.remove(raid);
-            processedCount++;
+    private void queueRaids(final TickPipeline pipeline, final World world, final IntObjectMap<Raid> queued,
+                            final List<RegionRaidScan.ScannedRaid> raids) {
+        for (final RegionRaidScan.ScannedRaid scannedRaid : raids) {
+            final int raidId = scannedRaid.raid().getId();
+            if (!raidManager.isRaidRegistered(world, raidId) && queued.put(raidId, scannedRaid.raid()) == null) {
+                pipeline.submit(getStage(), () -> registerRaid(queued, scannedRaid));
+            }
         }
+    }
+
+    /**
+     * Tightens the interval of a world to the minimum while
+     * it has raids or a player with Bad Omen, and doubles it
+     * up to the maximum otherwise. A tightened interval
+     * also moves the planned scan closer, counted from the
+     * tick the last scan started on.
+     *
+     * @param world  The scanned world
+     * @param scan   Scan state of the world
+     * @param active Whether the scan found a raid or a player with Bad Omen
+     */
+    private void adaptInterval(final World world, final WorldScan scan, final boolean active) {
+        final int interval = active ? minWorldFrequency : (int) Math.min(scan.interval * 2L, maxWorldFrequency);
 
-        if (!raidIterator.hasNext() && taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
-            taskId = -1;
-        } else if (taskId == -1) {
-            logger.warning("Cannot cancel the task for raids scan because the scheduler is asleep. TaskId: " + taskId);
+        if (interval != scan.interval) {
+            scan.interval = interval;
+            scan.nextScanTick = Math.min(scan.nextScanTick, scan.scanTick + interval);
+            stats.getScanIntervals().put(world.getName(), interval);
         }
     }
 
     /**
      * Registers a raid with the RaidManager if it is not already registered.
      *
-     * @param raid The raid to register
+     * @param queued      Queued raids of the world of the raid
+     * @param scannedRaid The raid to register, with the raiders read by the scan
+     */
+    private void registerRaid(final IntObjectMap<Raid> queued, final RegionRaidScan.ScannedRaid scannedRaid) {
+        queued.remove(scannedRaid.raid().getId());
+        raidManager.addRaidIfAbsent(scannedRaid.raid(), scannedRaid.raiders());
+    }
+
+    /**
+     * Scan state of one monitored world.
      */
-    private void registerRaid(final Raid raid) {
-        raidManager.addRaidIfAbsent(raid);
+    private static final class WorldScan {
+
+        private final IntObjectMap<Raid> queued = new IntObjectMap<>(); // Queued raids by id
+        private int interval;                                           // Ticks between two scans
+        private long scanTick;                                          // Game tick the last scan started on
+        private long nextScanTick;                                      // Game tick of the next scan
     }
 }
@@ -0,0 +1,260 @@
+package ru.ephy.raidhelper.raid.monitor;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Raid;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Raider;
+import org.bukkit.potion.PotionEffectType;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Scan of the monitored worlds for raids that are not
+ * registered yet and for players with Bad Omen. Raids and
+ * players are read on the threads that own them. On Paper
+ * this is the main thread, and the scan is done before
+ * {@link #scan} returns. On Folia a world has no thread of
+ * its own: every online player is visited on its entity
+ * scheduler, which reads the raids of the region around
+ * the player. Raids in regions without players are found
+ * once a player comes near them. The results of all
+ * regions are merged on the thread that owns the plugin
+ * state, which also runs the callback.
+ */
+public final class RegionRaidScan {
+
+    private final Map<World, WorldResult> resultsByWorld; // Results of every scanned world
+    private int pending;                                  // Players not merged yet, owning thread only
+
+    /**
+     * Creates an empty result for the given worlds.
+     *
+     * @param worlds Worlds to scan
+     */
+    private RegionRaidScan(final Collection<World> worlds) {
+        resultsByWorld = new HashMap<>();
+        for (final World world : worlds) {
+            resultsByWorld.put(world, new WorldResult());
+        }
+    }
+
+    /**
+     * Scans the given worlds and hands the result to the
+     * callback on the thread that owns the plugin state.
+     *
+     * @param platformScheduler Runs the reads on the threads owning the raids
+     * @param raidManager       Tells which raids are registered already
+     * @param worlds            Worlds to scan
+     * @param checkBadOmen      Whether to look for players with Bad Omen
+     * @param callback          Receives the result once every region is scanned
+     */
+    public static void scan(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                            final Collection<World> worlds, final boolean checkBadOmen,
+                            final Consumer<RegionRaidScan> callback) {
+        final RegionRaidScan scan = new RegionRaidScan(worlds);
+
+        if (!platformScheduler.isRegionized()) {
+            for (final World world : worlds) {
+                final WorldResult result = scan.resultsByWorld.get(world);
+                result.raidsFound = collectOwnedRaids(platformScheduler, raidManager, world, result.newRaids);
+                if (checkBadOmen && !result.raidsFound) {
+                    result.badOmenFound = hasBadOmenPlayer(world.getPlayers());
+                }
+            }
+            callback.accept(scan);
+            return;
+        }
+
+        final List<Player> players = List.copyOf(Bukkit.getOnlinePlayers());
+        scan.pending = players.size();
+        if (players.isEmpty()) {
+            callback.accept(scan);
+            return;
+        }
+
+        for (final Player player : players) {
+            platformScheduler.runForEntity(player,
+                    () -> scanRegionOf(platformScheduler, raidManager, scan, player, checkBadOmen, callback),
+                    () -> platformScheduler.runGlobal(() -> scan.merge(null, null, false, false, callback)));
+        }
+    }
+
+    /**
+     * Finds the raids of a world that the current thread
+     * owns and that are not registered as of the latest
+     * snapshot. Their raiders are copied here, as the
+     * thread registering them may not read them.
+     *
+     * @param platformScheduler Tells which raids the current thread owns
+     * @param raidManager       Tells which raids are registered already
+     * @param world             World to look in
+     * @param newRaids          Receives the raids that are not registered
+     * @return true if the current thread owns any raid of the world
+     */
+    public static boolean collectOwnedRaids(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                                            final World world, final List<ScannedRaid> newRaids) {
+        boolean raidsFound = false;
+
+        for (final Raid raid : world.getRaids()) {
+            if (!platformScheduler.isOwnedByCurrentThread(raid.getLocation())) continue;
+
+            raidsFound = true;
+            if (raidManager.getSnapshot().getRaid(world, raid.getId()) == null) {
+                newRaids.add(new ScannedRaid(raid, raid.getStatus() == Raid.RaidStatus.ONGOING,
+                        List.copyOf(raid.getRaiders())));
+            }
+        }
+        return raidsFound;
+    }
+
+    /**
+     * Returns the raids of a world that were not registered
+     * when they were scanned. A raid may be listed more than
+     * once if several players are near it.
+     *
+     * @param world The scanned world
+     * @return Raids that are not registered, empty if there are none
+     */
+    public List<ScannedRaid> getNewRaids(final World world) {
+        final WorldResult result = resultsByWorld.get(world);
+        return result == null ? List.of() : result.newRaids;
+    }
+
+    /**
+     * Tells whether any raid was found in a world,
+     * registered or not.
+     *
+     * @param world The scanned world
+     * @return true if the world has a raid
+     */
+    public boolean hasRaids(final World world) {
+        final WorldResult result = resultsByWorld.get(world);
+        return result != null && result.raidsFound;
+    }
+
+    /**
+     * Tells whether a player with Bad Omen was found in a
+     * world. Only looked for if the scan asked for it, and
+     * on Paper only in worlds without raids.
+     *
+     * @param world The scanned world
+     * @return true if a player of the world has Bad Omen
+     */
+    public boolean hasBadOmenPlayer(final World world) {
+        final WorldResult result = resultsByWorld.get(world);
+        return result != null && result.badOmenFound;
+    }
+
+    /**
+     * Scans the region of a player on its entity scheduler
+     * and hands the findings to the owning thread.
+     *
+     * @param platformScheduler Runs the merge on the owning thread
+     * @param raidManager       Tells which raids are registered already
+     * @param scan              Scan to merge into
+     * @param player            The player whose region is scanned
+     * @param checkBadOmen      Whether to look for players with Bad Omen
+     * @param callback          Receives the result once every region is scanned
+     */
+    private static void scanRegionOf(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                                     final RegionRaidScan scan, final Player player, final boolean checkBadOmen,
+                                     final Consumer<RegionRaidScan> callback) {
+        World world = null;
+        final List<ScannedRaid> newRaids = new ArrayList<>();
+        boolean raidsFound = false;
+        boolean badOmen = false;
+
+        try {
+            final Location location = player.getLocation();
+            if (scan.resultsByWorld.containsKey(location.getWorld())) {
+                world = location.getWorld();
+                raidsFound = collectOwnedRaids(platformScheduler, raidManager, world, newRaids);
+                badOmen = checkBadOmen && hasBadOmen(player);
+            }
+        } finally {
+            final World scannedWorld = world; // A failing read must not hold the result back
+            final boolean scannedRaids = raidsFound;
+            final boolean scannedBadOmen = badOmen;
+            platformScheduler.runGlobal(() -> scan.merge(
+                    scannedWorld, newRaids, scannedRaids, scannedBadOmen, callback));
+        }
+    }
+
+    /**
+     * Merges the findings of one player into the result and
+     * runs the callback once every player is merged. Runs on
+     * the thread that owns the plugin state.
+     *
+     * @param world        World of the player, or null if it is not scanned
+     * @param newRaids     Raids of the region that are not registered
+     * @param raidsFound   Whether the region has any raid
+     * @param badOmenFound Whether the player has Bad Omen
+     * @param callback     Receives the result once every player is merged
+     */
+    private void merge(final World world, final List<ScannedRaid> newRaids, final boolean raidsFound,
+                       final boolean badOmenFound, final Consumer<RegionRaidScan> callback) {
+        if (world != null) {
+            final WorldResult result = resultsByWorld.get(world);
+            result.newRaids.addAll(newRaids);
+            result.raidsFound |= raidsFound;
+            result.badOmenFound |= badOmenFound;
+        }
+
+        if (--pending == 0) {
+            callback.accept(this);
+        }
+    }
+
+    /**
+     * Checks if any of the players has Bad Omen.
+     *
+     * @param players Players of a world
+     * @return true if a player has Bad Omen
+     */
+    private static boolean hasBadOmenPlayer(final List<Player> players) {
+        for (final Player player : players) {
+            if (hasBadOmen(player)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a player has Bad Omen and may start a raid
+     * at any moment.
+     *
+     * @param player The player
+     * @return true if the player has Bad Omen
+     */
+    private static boolean hasBadOmen(final Player player) {
+        return player.hasPotionEffect(PotionEffectType.BAD_OMEN);
+    }
+
+    /**
+     * A raid found by the scan, read on its owning thread.
+     *
+     * @param raid    The raid
+     * @param ongoing Whether the raid was ongoing when it was read
+     * @param raiders Raiders of the raid when it was read
+     */
+    public record ScannedRaid(Raid raid, boolean ongoing, List<Raider> raiders) {
+    }
+
+    /**
+     * Findings of one scanned world.
+     */
+    private static final class WorldResult {
+
+        private final List<ScannedRaid> newRaids = new ArrayList<>(); // Raids that are not registered
+        private boolean raidsFound;                                    // Whether the world has any raid
+        private boolean badOmenFound;                                  // Whether a player has Bad Omen
+    }
+}
@@ -0,0 +1,133 @@
+package ru.ephy.raidhelper.raid.pipeline;
+
+import org.bukkit.World;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.data.RaidRegistryListener;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationDispatcher;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.NotificationManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidWaveProcessor;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pipeline stage that notifies the players near every
+ * raid with an ongoing wave once per second. The stage
+ * checks the raids every tick, so a raid whose bell state
+ * changed (available, on or off cooldown) is notified on
+ * the next tick instead of at the end of the cycle. Its
+ * work is queued after the wave state updates of the same
+ * tick.
+ */
+public class NotifyStage implements PipelineStage, RaidRegistryListener {
+
+    private static final int NOTIFY_PERIOD = 20;           // Ticks between two notifications of a raid
+
+    private final RaidManager raidManager;                                // Manages active raids across worlds
+    private final RaidWaveProcessor waveProcessor;                        // Tells whether a wave has ended
+    private final NotificationManager notificationManager;                // Sends the notifications
+    private World[] monitoredWorlds;                                      // Worlds where raids are monitored
+    private final Map<RaidData, NotificationDispatcher.State> lastStates; // State of every raid at its last check
+
+    /**
+     * Initializes the stage.
+     *
+     * @param raidManager         Manages raid data across worlds
+     * @param waveProcessor       Tells whether a wave has ended
+     * @param notificationManager Sends the notifications
+     * @param config              Configuration with the monitored worlds
+     */
+    public NotifyStage(final RaidManager raidManager, final RaidWaveProcessor waveProcessor,
+                       final NotificationManager notificationManager, final Config config) {
+        // Initializes required instances
+        this.raidManager = raidManager;
+        this.waveProcessor = waveProcessor;
+        this.notificationManager = notificationManager;
+
+        // Initializes required variables
+        monitoredWorlds = config.getValidWorlds().toArray(new World[0]);
+
+        lastStates = new HashMap<>();
+    }
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.NOTIFY;
+    }
+
+    @Override
+    public int getCadence() {
+        return 1;
+    }
+
+    /**
+     * Queues the notification of the raids of the monitored
+     * worlds whose state changed, or of all of them once per
+     * notify period. Raids already queued are skipped.
+     *
+     * @param pipeline Pipeline to submit work to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        final long currentTick = pipeline.getCurrentTick();
+        final boolean periodDue = (currentTick - 1) % NOTIFY_PERIOD == 0;
+
+        for (final World world : monitoredWorlds) {
+            final List<RaidData> raids = raidManager.getRaids(world);
+            for (int index = 0; index < raids.size(); index++) {
+                final RaidData raidData = raids.get(index);
+                final NotificationDispatcher.State state = NotificationDispatcher.State.of(raidData, currentTick);
+                final boolean stateChanged = lastStates.put(raidData, state) != state;
+
+                if (periodDue || stateChanged) {
+                    pipeline.submit(getStage(), raidData, () -> notifyPlayers(raidData, currentTick));
+                }
+            }
+        }
+        if (periodDue) {
+            notificationManager.purge(currentTick);
+        }
+    }
+
+    /**
+     * Picks up the monitored worlds and the messages and
+     * interval of the action bars.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        monitoredWorlds = config.getValidWorlds().toArray(new World[0]);
+        notificationManager.reload(config);
+    }
+
+    @Override
+    public void onRaidAdded(final RaidData raidData) {
+    }
+
+    /**
+     * Forgets the state of the removed raid.
+     *
+     * @param raidData The removed raid
+     */
+    @Override
+    public void onRaidRemoved(final RaidData raidData) {
+        lastStates.remove(raidData);
+    }
+
+    /**
+     * Notifies the players near the raid if its wave is ongoing.
+     *
+     * @param raidData    The raid to notify about
+     * @param currentTick Tick the notification was queued in
+     */
+    private void notifyPlayers(final RaidData raidData, final long currentTick) {
+        if (!waveProcessor.hasWaveEnded(raidData)) {
+            notificationManager.notifyPlayers(raidData, currentTick);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.ephy.raidhelper.raid.pipeline;
+
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+/**
+ * A stage of the {@link TickPipeline}. When its cadence
+ * is due the stage plans the work of the tick, either
+ * inline or by submitting work to the shared queue.
+ * Stages run on the main thread in the order of their
+ * {@link PerformanceStats.Stage}.
+ */
+public interface PipelineStage {
+
+    /**
+     * Returns which stage this is.
+     *
+     * @return The stage
+     */
+    PerformanceStats.Stage getStage();
+
+    /**
+     * Returns the ticks between two runs of the stage.
+     *
+     * @return Cadence in ticks, 0 if the stage never runs on its own
+     */
+    int getCadence();
+
+    /**
+     * Plans the work of the current tick.
+     *
+     * @param pipeline Pipeline to submit work to
+     */
+    void run(TickPipeline pipeline);
+
+    /**
+     * Picks up reloaded settings. Called on the main thread
+     * at the start of the first tick after a reload, before
+     * any stage runs. Work already queued or scheduled keeps
+     * the settings it was planned with.
+     *
+     * @param config The new settings snapshot
+     */
+    default void reload(final Config config) {
+    }
+}
@@ -0,0 +1,37 @@
+package ru.ephy.raidhelper.raid.pipeline;
+
+import lombok.RequiredArgsConstructor;
+import ru.ephy.raidhelper.raid.scheduler.TimingWheel;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+/**
+ * Pipeline stage that advances the timing wheel every
+ * tick, firing the delayed raider teleports. Timers
+ * run inline rather than through the queue so they are
+ * never delayed by the budget.
+ */
+@RequiredArgsConstructor
+public class TeleportStage implements PipelineStage {
+
+    private final TimingWheel timingWheel; // Wheel for delayed teleports
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.TELEPORT;
+    }
+
+    @Override
+    public int getCadence() {
+        return 1;
+    }
+
+    /**
+     * Advances the timing wheel by one tick.
+     *
+     * @param pipeline Pipeline the stage belongs to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        timingWheel.tick();
+    }
+}
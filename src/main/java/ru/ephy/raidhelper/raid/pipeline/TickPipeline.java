@@ -0,0 +1,308 @@
+package ru.ephy.raidhelper.raid.pipeline;
+
+import lombok.Getter;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.ConfigManager;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.platform.PlatformTask;
+import ru.ephy.raidhelper.platform.TickClock;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.scheduler.TickBudget;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs all periodic work of the plugin from one repeating
+ * main-thread task. Every tick the raid snapshot is
+ * published, the stages whose cadence is due plan their
+ * work in order (discover, refresh cache, wave state,
+ * notify, teleport), and the shared work queue is drained
+ * within one shared tick budget. Work that does not fit is
+ * left for the next tick, so no tasks are created or
+ * cancelled while the plugin runs. Cadences count the
+ * runs of the pipeline; the stages measure time with the
+ * {@link TickClock}.
+ * <p>
+ * A reloaded config is handed to the budget and to every
+ * stage at the start of the next tick, and new cadences
+ * apply from that tick on.
+ * <p>
+ * Work submitted for a raid is handed to the platform
+ * scheduler at the raid location. On Paper it runs inline;
+ * on Folia it runs on the region that owns the raid, so the
+ * budget only limits how much work is dispatched per tick.
+ */
+public class TickPipeline {
+
+    private final PlatformScheduler platformScheduler;     // Runs the task and the raid work
+    private final RaidManager raidManager;                 // Publishes the raid snapshot
+    private final ConfigManager configManager;             // Holds the current settings snapshot
+    private final TickClock tickClock;                     // Current game tick the stages measure time with
+    private final PerformanceStats stats;                  // Records the latency of the stages
+    private final Logger logger;                           // Logger for failing work
+
+    private final List<PipelineStage> stages;              // Stages in execution order
+    private final ArrayDeque<WorkItem> workQueue;          // Work shared by all stages
+    private final Map<PerformanceStats.Stage, Set<RaidData>> queuedRaids; // Raids queued per stage
+    private final long[] tickNanos;                        // Time of every stage in the last tick
+    @Getter
+    private final TickBudget tickBudget;                   // Limits the work drained per tick
+
+    private long runCount;                                 // Ticks the pipeline has run, for the cadences
+    private Config config;                                 // Settings snapshot the stages use
+    private PlatformTask task;                             // Repeating task of the pipeline
+
+    /**
+     * Initializes the pipeline and starts its task.
+     *
+     * @param platformScheduler Runs the task and the raid work
+     * @param raidManager       Manages raid data across worlds
+     * @param configManager     Holds the settings, including the budget
+     * @param tickClock         Current game tick the stages measure time with
+     * @param stats             Performance stats of the plugin
+     * @param logger            Logger for debugging
+     */
+    public TickPipeline(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                        final ConfigManager configManager, final TickClock tickClock,
+                        final PerformanceStats stats, final Logger logger) {
+        // Initializes required instances
+        this.platformScheduler = platformScheduler;
+        this.raidManager = raidManager;
+        this.configManager = configManager;
+        this.tickClock = tickClock;
+        this.stats = stats;
+        this.logger = logger;
+
+        // Initializes required variables
+        config = configManager.getConfig();
+        tickBudget = new TickBudget(config);
+        stages = new ArrayList<>();
+        workQueue = new ArrayDeque<>();
+        queuedRaids = new EnumMap<>(PerformanceStats.Stage.class);
+        tickNanos = new long[PerformanceStats.Stage.values().length];
+
+        // Start the pipeline
+        task = platformScheduler.runTimer(this::tick, 1L, 1L);
+    }
+
+    /**
+     * Adds a stage. Stages run in the order of their
+     * {@link PerformanceStats.Stage}, whatever order they
+     * are added in.
+     *
+     * @param stage Stage to add
+     */
+    public void addStage(final PipelineStage stage) {
+        stages.add(stage);
+        stages.sort(Comparator.comparing(PipelineStage::getStage));
+    }
+
+    /**
+     * Submits work to the shared queue.
+     *
+     * @param stage  Stage the work belongs to
+     * @param action Work to run
+     */
+    public void submit(final PerformanceStats.Stage stage, final Runnable action) {
+        workQueue.offer(new WorkItem(stage, null, action));
+    }
+
+    /**
+     * Submits work for a raid to the shared queue unless
+     * the stage has already queued the raid. The work runs
+     * on the thread that owns the raid location and its
+     * time is added to the processing time of the raid.
+     *
+     * @param stage    Stage the work belongs to
+     * @param raidData Raid the work is for
+     * @param action   Work to run
+     * @return true if the work was queued, false if the raid was queued already
+     */
+    public boolean submit(final PerformanceStats.Stage stage, final RaidData raidData, final Runnable action) {
+        if (!queuedRaids.computeIfAbsent(stage, key -> new HashSet<>()).add(raidData)) return false;
+
+        workQueue.offer(new WorkItem(stage, raidData, action));
+        return true;
+    }
+
+    /**
+     * Returns the number of work items waiting in the queue.
+     *
+     * @return Depth of the work queue
+     */
+    public int getQueueDepth() {
+        return workQueue.size();
+    }
+
+    /**
+     * Returns the current game tick of the tick clock.
+     * Safe to call from any thread.
+     *
+     * @return The current tick
+     */
+    public long getCurrentTick() {
+        return tickClock.getCurrentTick();
+    }
+
+    /**
+     * Returns the time a stage took in the last tick,
+     * including the queued work it submitted.
+     *
+     * @param stage The stage
+     * @return Time in nanoseconds
+     */
+    public long getLastTickNanos(final PerformanceStats.Stage stage) {
+        return tickNanos[stage.ordinal()];
+    }
+
+    /**
+     * Cancels the task of the pipeline and drops the queued work.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        workQueue.clear();
+        queuedRaids.clear();
+    }
+
+    /**
+     * Runs one tick of the pipeline: picks up reloaded
+     * settings, publishes the raid snapshot, runs the due
+     * stages and drains the queue within the budget.
+     */
+    private void tick() {
+        runCount++;
+        for (int index = 0; index < tickNanos.length; index++) {
+            tickNanos[index] = 0L;
+        }
+
+        final Config current = configManager.getConfig();
+        if (current != config) {
+            reload(current);
+        }
+
+        raidManager.publishSnapshot();
+
+        for (final PipelineStage stage : stages) {
+            if (isDue(stage)) {
+                final long startNanos = System.nanoTime();
+                runSafely(() -> stage.run(this));
+                tickNanos[stage.getStage().ordinal()] += System.nanoTime() - startNanos;
+            }
+        }
+
+        if (!workQueue.isEmpty()) {
+            drainQueue();
+        }
+
+        for (final PerformanceStats.Stage stage : PerformanceStats.Stage.values()) {
+            final long nanoseconds = tickNanos[stage.ordinal()];
+            if (nanoseconds > 0) {
+                stats.record(stage, nanoseconds);
+            }
+        }
+        stats.getQueueDepth().set(workQueue.size());
+    }
+
+    /**
+     * Hands a reloaded settings snapshot to the budget and
+     * to every stage. Queued work is kept.
+     *
+     * @param reloaded The new settings snapshot
+     */
+    private void reload(final Config reloaded) {
+        config = reloaded;
+        tickBudget.reload(reloaded);
+        for (final PipelineStage stage : stages) {
+            runSafely(() -> stage.reload(reloaded));
+        }
+    }
+
+    /**
+     * Checks if the cadence of the stage is due. Every stage
+     * runs on the first tick, then once per cadence.
+     *
+     * @param stage Stage to check
+     * @return true if the stage runs in this tick
+     */
+    private boolean isDue(final PipelineStage stage) {
+        final int cadence = stage.getCadence();
+        return cadence > 0 && (runCount - 1) % cadence == 0;
+    }
+
+    /**
+     * Runs queued work until the queue is empty or the
+     * budget of the tick is used up.
+     */
+    private void drainQueue() {
+        tickBudget.begin();
+        while (tickBudget.hasRemaining() && !workQueue.isEmpty()) {
+            final WorkItem workItem = workQueue.poll();
+            final long startNanos = System.nanoTime();
+
+            final RaidData raidData = workItem.raidData();
+            if (raidData != null) {
+                queuedRaids.get(workItem.stage()).remove(raidData);
+                platformScheduler.runAtLocation(raidData.getRaidLocation(),
+                        () -> runForRaid(raidData, workItem.action()));
+            } else {
+                runSafely(workItem.action());
+            }
+
+            tickNanos[workItem.stage().ordinal()] += System.nanoTime() - startNanos;
+            tickBudget.consume();
+        }
+        tickBudget.end();
+    }
+
+    /**
+     * Runs work of a raid and adds its time to the
+     * processing time of the raid.
+     *
+     * @param raidData Raid the work is for
+     * @param action   Work to run
+     */
+    private void runForRaid(final RaidData raidData, final Runnable action) {
+        final long startNanos = System.nanoTime();
+        runSafely(action);
+        raidData.addProcessingNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Runs work of a stage. Failing work is logged and
+     * does not stop the pipeline.
+     *
+     * @param work Work to run
+     */
+    private void runSafely(final Runnable work) {
+        try {
+            work.run();
+        } catch (final RuntimeException exception) {
+            logger.log(Level.WARNING, "A raid pipeline stage has failed.", exception);
+        }
+    }
+
+    /**
+     * Work waiting in the shared queue.
+     *
+     * @param stage    Stage the work belongs to
+     * @param raidData Raid the work is for, or null
+     * @param action   Work to run
+     */
+    private record WorkItem(PerformanceStats.Stage stage, RaidData raidData, Runnable action) {
+    }
+}
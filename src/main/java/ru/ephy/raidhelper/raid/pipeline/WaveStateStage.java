@@ -0,0 +1,100 @@
+package ru.ephy.raidhelper.raid.pipeline;
+
+import org.bukkit.World;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidWaveProcessor;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.List;
+
+/**
+ * Pipeline stage that queues every raid of the monitored
+ * worlds once per second to update its wave phase: a wave
+ * starts when raiders show up and ends when none are left.
+ * Only these transitions write the raid; the bell work
+ * delay is a tick stamp set when the wave starts.
+ */
+public class WaveStateStage implements PipelineStage {
+
+    private static final int CADENCE = 20;           // Ticks between two wave updates of a raid
+
+    private final RaidManager raidManager;           // Manages active raids across worlds
+    private final RaidWaveProcessor waveProcessor;   // Updates the wave state of a raid
+    private World[] monitoredWorlds;                 // Worlds where raids are monitored
+
+    /**
+     * Initializes the stage.
+     *
+     * @param raidManager   Manages raid data across worlds
+     * @param waveProcessor Updates the wave state of a raid
+     * @param config        Configuration with the monitored worlds
+     */
+    public WaveStateStage(final RaidManager raidManager, final RaidWaveProcessor waveProcessor,
+                          final Config config) {
+        // Initializes required instances
+        this.raidManager = raidManager;
+        this.waveProcessor = waveProcessor;
+
+        // Initializes required variables
+        monitoredWorlds = config.getValidWorlds().toArray(new World[0]);
+    }
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.WAVE_STATE;
+    }
+
+    @Override
+    public int getCadence() {
+        return CADENCE;
+    }
+
+    /**
+     * Picks up the monitored worlds and the bell work delay.
+     * The wave processor is shared with the notify stage and
+     * reloaded here only.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        monitoredWorlds = config.getValidWorlds().toArray(new World[0]);
+        waveProcessor.reload(config);
+    }
+
+    /**
+     * Queues the raids of the monitored worlds that are
+     * not queued yet.
+     *
+     * @param pipeline Pipeline to submit work to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        for (final World world : monitoredWorlds) {
+            final List<RaidData> raids = raidManager.getRaids(world);
+            for (int index = 0; index < raids.size(); index++) {
+                final RaidData raidData = raids.get(index);
+                pipeline.submit(getStage(), raidData, () -> updateWaveState(pipeline, raidData));
+            }
+        }
+    }
+
+    /**
+     * Updates the wave phase of the raid. The tick is read
+     * when the update runs rather than when it was queued,
+     * as the shared budget may hold it back for some ticks
+     * and a wave must not start in the past.
+     *
+     * @param pipeline Pipeline whose clock gives the current tick
+     * @param raidData The raid to update
+     */
+    private void updateWaveState(final TickPipeline pipeline, final RaidData raidData) {
+        if (waveProcessor.hasWaveEnded(raidData)) {
+            waveProcessor.processWaveEnd(raidData);
+        } else {
+            waveProcessor.processWaveOngoing(raidData, pipeline.getCurrentTick());
+        }
+    }
+}
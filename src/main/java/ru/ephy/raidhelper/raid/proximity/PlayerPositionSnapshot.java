@@ -0,0 +1,217 @@
+package ru.ephy.raidhelper.raid.proximity;
+
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Immutable copy of the player positions in the monitored
+ * worlds, stored in primitive coordinate arrays. It is
+ * captured on the threads that own the players and can
+ * then be read from any thread without touching the server.
+ */
+public final class PlayerPositionSnapshot {
+
+    private final Map<World, WorldPositions> positionsByWorld; // Player positions per world
+
+    /**
+     * Creates a snapshot from already captured positions.
+     *
+     * @param positionsByWorld Player positions per world
+     */
+    private PlayerPositionSnapshot(final Map<World, WorldPositions> positionsByWorld) {
+        this.positionsByWorld = positionsByWorld;
+    }
+
+    /**
+     * Captures the positions of all players in the given
+     * worlds on the threads that own them and hands the
+     * snapshot to the callback. On Paper the players are
+     * read on the main thread and the callback runs before
+     * this returns. On Folia a player's position belongs to
+     * its region, so every online player is read on its own
+     * entity scheduler, and the callback runs on the thread
+     * that read the last player.
+     *
+     * @param platformScheduler Runs the reads on the threads owning the players
+     * @param worlds            Worlds to capture the players of
+     * @param callback          Receives the snapshot once every player is read
+     */
+    public static void capture(final PlatformScheduler platformScheduler, final Collection<World> worlds,
+                               final Consumer<PlayerPositionSnapshot> callback) {
+        if (!platformScheduler.isRegionized()) {
+            callback.accept(capture(worlds));
+            return;
+        }
+
+        final List<Player> players = List.copyOf(Bukkit.getOnlinePlayers());
+        if (players.isEmpty()) {
+            callback.accept(empty());
+            return;
+        }
+
+        final Queue<CapturedPosition> captured = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger(players.size());
+        final Runnable arrive = () -> {
+            if (pending.decrementAndGet() == 0) {
+                callback.accept(merge(captured));
+            }
+        };
+
+        for (final Player player : players) {
+            platformScheduler.runForEntity(player, () -> {
+                try {
+                    final Location location = player.getLocation();
+                    if (worlds.contains(location.getWorld())) {
+                        captured.add(new CapturedPosition(player, location));
+                    }
+                } finally {
+                    arrive.run(); // A failing read must not hold the snapshot back
+                }
+            }, arrive);
+        }
+    }
+
+    /**
+     * Captures the positions of all players in the given
+     * worlds. Must be called on the main thread of Paper.
+     *
+     * @param worlds Worlds to capture the players of
+     * @return Snapshot of the player positions
+     */
+    public static PlayerPositionSnapshot capture(final Collection<World> worlds) {
+        final Map<World, WorldPositions> positionsByWorld = new HashMap<>();
+        final Location scratch = new Location(null, 0, 0, 0); // Reused to avoid a Location per player
+
+        for (final World world : worlds) {
+            final List<Player> players = world.getPlayers();
+            if (players.isEmpty()) continue;
+
+            final int count = players.size();
+            final Player[] playerArray = new Player[count];
+            final double[] xs = new double[count];
+            final double[] ys = new double[count];
+            final double[] zs = new double[count];
+
+            for (int index = 0; index < count; index++) {
+                final Player player = players.get(index);
+                player.getLocation(scratch);
+
+                playerArray[index] = player;
+                xs[index] = scratch.getX();
+                ys[index] = scratch.getY();
+                zs[index] = scratch.getZ();
+            }
+
+            positionsByWorld.put(world, new WorldPositions(playerArray, xs, ys, zs));
+        }
+
+        return new PlayerPositionSnapshot(Map.copyOf(positionsByWorld));
+    }
+
+    /**
+     * Groups the positions captured on the entity schedulers
+     * by world into a snapshot.
+     *
+     * @param captured Positions of the players in the given worlds
+     * @return Snapshot of the player positions
+     */
+    private static PlayerPositionSnapshot merge(final Collection<CapturedPosition> captured) {
+        final Map<World, List<CapturedPosition>> capturedByWorld = new HashMap<>();
+        for (final CapturedPosition position : captured) {
+            capturedByWorld.computeIfAbsent(position.location().getWorld(), world -> new ArrayList<>()).add(position);
+        }
+
+        final Map<World, WorldPositions> positionsByWorld = new HashMap<>();
+        capturedByWorld.forEach((world, positions) -> {
+            final int count = positions.size();
+            final Player[] playerArray = new Player[count];
+            final double[] xs = new double[count];
+            final double[] ys = new double[count];
+            final double[] zs = new double[count];
+
+            for (int index = 0; index < count; index++) {
+                final CapturedPosition position = positions.get(index);
+                playerArray[index] = position.player();
+                xs[index] = position.location().getX();
+                ys[index] = position.location().getY();
+                zs[index] = position.location().getZ();
+            }
+
+            positionsByWorld.put(world, new WorldPositions(playerArray, xs, ys, zs));
+        });
+
+        return new PlayerPositionSnapshot(Map.copyOf(positionsByWorld));
+    }
+
+    /**
+     * Returns an empty snapshot.
+     *
+     * @return Snapshot without players
+     */
+    public static PlayerPositionSnapshot empty() {
+        return new PlayerPositionSnapshot(Map.of());
+    }
+
+    /**
+     * Returns the player positions of a world.
+     *
+     * @param world World to get the positions of
+     * @return Positions of the players, or null if the world had no players
+     */
+    public WorldPositions getPositions(final World world) {
+        return positionsByWorld.get(world);
+    }
+
+    /**
+     * Position of a player read on its entity scheduler.
+     *
+     * @param player   The player
+     * @param location Location of the player when it was read
+     */
+    private record CapturedPosition(Player player, Location location) {
+    }
+
+    /**
+     * Player positions of a single world. The arrays
+     * share indexes and must not be modified.
+     */
+    @Getter
+    public static final class WorldPositions {
+
+        private final Player[] players; // Players of the world
+        private final double[] xs;      // X coordinates of the players
+        private final double[] ys;      // Y coordinates of the players
+        private final double[] zs;      // Z coordinates of the players
+
+        private WorldPositions(final Player[] players, final double[] xs,
+                               final double[] ys, final double[] zs) {
+            this.players = players;
+            this.xs = xs;
+            this.ys = ys;
+            this.zs = zs;
+        }
+
+        /**
+         * Returns the number of players.
+         *
+         * @return Number of players
+         */
+        public int size() {
+            return players.length;
+        }
+    }
+}
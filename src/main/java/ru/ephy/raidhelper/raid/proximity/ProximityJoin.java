@@ -0,0 +1,140 @@
+package ru.ephy.raidhelper.raid.proximity;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import ru.ephy.raidhelper.raid.data.RaidData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Joins raids against a player position snapshot in a
+ * single pass. The players of each world are put into a
+ * spatial hash with cells as wide as the radius, so every
+ * raid only checks the players of the 3x3 cells around
+ * it. The cost grows with players + raids instead of
+ * players * raids. Touches no server state and is safe
+ * to run off the main thread.
+ */
+public final class ProximityJoin {
+
+    private final double radiusSquared; // Radius of the join (squared)
+    private final double cellSize;      // Width of a spatial hash cell
+
+    /**
+     * Initializes the join for the given radius.
+     *
+     * @param radius Max distance between a raid and its players
+     */
+    public ProximityJoin(final double radius) {
+        radiusSquared = radius * radius;
+        cellSize = Math.max(1.0, radius);
+    }
+
+    /**
+     * Finds the players within the radius of every raid.
+     *
+     * @param raids    Raids to join
+     * @param snapshot Player positions to join against
+     * @return Immutable map of every raid to the immutable set of its players
+     */
+    public Map<RaidData, Set<Player>> join(final Collection<RaidData> raids,
+                                           final PlayerPositionSnapshot snapshot) {
+        final Map<World, List<RaidData>> raidsByWorld = new HashMap<>();
+        for (final RaidData raidData : raids) {
+            raidsByWorld.computeIfAbsent(raidData.getRaidWorld(), world -> new ArrayList<>()).add(raidData);
+        }
+
+        final Map<RaidData, Set<Player>> result = new HashMap<>();
+        raidsByWorld.forEach((world, worldRaids) -> {
+            final PlayerPositionSnapshot.WorldPositions positions = snapshot.getPositions(world);
+
+            if (positions == null) {
+                worldRaids.forEach(raidData -> result.put(raidData, Set.of()));
+            } else {
+                joinWorld(worldRaids, positions, result);
+            }
+        });
+
+        return Map.copyOf(result);
+    }
+
+    /**
+     * Joins the raids of one world against its players.
+     *
+     * @param raids     Raids of the world
+     * @param positions Player positions of the world
+     * @param result    Map the players of each raid are put into
+     */
+    private void joinWorld(final List<RaidData> raids, final PlayerPositionSnapshot.WorldPositions positions,
+                           final Map<RaidData, Set<Player>> result) {
+        final double[] xs = positions.getXs();
+        final double[] ys = positions.getYs();
+        final double[] zs = positions.getZs();
+        final Player[] players = positions.getPlayers();
+
+        // Chains players of the same cell through next[], starting at the index stored per cell
+        final int count = positions.size();
+        final int[] next = new int[count];
+        final Map<Long, Integer> firstByCell = new HashMap<>(count * 2);
+
+        for (int index = 0; index < count; index++) {
+            final Integer first = firstByCell.put(cellKey(cell(xs[index]), cell(zs[index])), index);
+            next[index] = first == null ? -1 : first;
+        }
+
+        for (final RaidData raidData : raids) {
+            final Location location = raidData.getRaidLocation();
+            final double raidX = location.getX();
+            final double raidY = location.getY();
+            final double raidZ = location.getZ();
+            final int cellX = cell(raidX);
+            final int cellZ = cell(raidZ);
+            final List<Player> nearby = new ArrayList<>();
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    final Integer first = firstByCell.get(cellKey(cellX + dx, cellZ + dz));
+
+                    for (int index = first == null ? -1 : first; index != -1; index = next[index]) {
+                        final double distX = xs[index] - raidX;
+                        final double distY = ys[index] - raidY;
+                        final double distZ = zs[index] - raidZ;
+
+                        if (distX * distX + distY * distY + distZ * distZ <= radiusSquared) {
+                            nearby.add(players[index]);
+                        }
+                    }
+                }
+            }
+
+            result.put(raidData, Set.copyOf(nearby));
+        }
+    }
+
+    /**
+     * Converts a coordinate to a cell coordinate.
+     *
+     * @param coordinate Block coordinate
+     * @return Cell coordinate
+     */
+    private int cell(final double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs cell coordinates into a single long.
+     *
+     * @param cellX Cell X coordinate
+     * @param cellZ Cell Z coordinate
+     * @return Packed cell coordinates
+     */
+    private static long cellKey(final int cellX, final int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
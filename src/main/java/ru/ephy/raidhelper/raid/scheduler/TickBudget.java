@@ -0,0 +1,98 @@
+package ru.ephy.raidhelper.raid.scheduler;
+
+import ru.ephy.raidhelper.config.Config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how much work the tick pipeline does in one tick.
+ * In COUNT mode at most max_checks_per_tick items are
+ * processed; in TIME mode items are processed until the
+ * configured budget in microseconds is used up. Work that
+ * does not fit is left for the next tick. The budget is
+ * shared by all stages and must be used by one thread
+ * at a time.
+ */
+public class TickBudget {
+
+    private final AtomicLong overBudgetTicks = new AtomicLong(); // Ticks that used more than the budget
+
+    private Config.BudgetMode mode;                           // Whether items or time are limited
+    private int maxItems;                                     // Max items per tick (COUNT mode)
+    private long budgetNanos;                                 // Time budget per tick (TIME mode)
+
+    private long startNanos;                                  // Start of the current tick's work
+    private int processedCount;                               // Items processed in the current tick
+
+    /**
+     * Initializes the budget from the configuration.
+     *
+     * @param config Configuration with the budget settings
+     */
+    public TickBudget(final Config config) {
+        reload(config);
+    }
+
+    /**
+     * Applies the budget settings of a configuration. Takes
+     * effect from the next tick; must not be called while
+     * a tick's work is running.
+     *
+     * @param config Configuration with the budget settings
+     */
+    public void reload(final Config config) {
+        mode = config.getBudgetMode();
+        maxItems = config.getMaxChecksPerTick();
+        budgetNanos = config.getTickBudgetMicros() * 1_000L;
+    }
+
+    /**
+     * Starts the work of a new tick.
+     */
+    public void begin() {
+        processedCount = 0;
+        if (mode == Config.BudgetMode.TIME) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Checks if another item may be processed in this tick.
+     * In TIME mode at least one item is always allowed so
+     * the queue keeps moving even with a tiny budget.
+     *
+     * @return true if another item fits into the budget
+     */
+    public boolean hasRemaining() {
+        if (mode == Config.BudgetMode.COUNT) {
+            return processedCount < maxItems;
+        }
+        return processedCount == 0 || System.nanoTime() - startNanos < budgetNanos;
+    }
+
+    /**
+     * Records that an item was processed.
+     */
+    public void consume() {
+        processedCount++;
+    }
+
+    /**
+     * Finishes the work of the tick and records
+     * whether it went over the time budget.
+     */
+    public void end() {
+        if (mode == Config.BudgetMode.TIME && System.nanoTime() - startNanos > budgetNanos) {
+            overBudgetTicks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns how many ticks went over the time budget.
+     *
+     * @return Number of ticks over budget
+     */
+    public long getOverBudgetTicks() {
+        return overBudgetTicks.get();
+    }
+}
@@ -0,0 +1,196 @@
+package ru.ephy.raidhelper.raid.scheduler;
+
+import lombok.Getter;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel advanced once per tick by the
+ * teleport stage of the tick pipeline. Delayed actions are stored as entries in tick buckets
+ * instead of one-shot Bukkit tasks, so both scheduling
+ * and cancelling a timer are O(1). Must only be used
+ * from the main thread; the counters may be read from
+ * any thread, for example by the stats command.
+ */
+public class TimingWheel {
+
+    private static final int WHEEL_SIZE = 512;          // Number of buckets, a power of two
+    private static final int MASK = WHEEL_SIZE - 1;     // Mask to map a tick onto a bucket
+
+    private final Logger logger;                        // Logger for failing timers
+    private final Timeout[] buckets;                    // Heads of the bucket lists
+
+    @Getter
+    private volatile int pendingTimers;                 // Timers waiting to fire, single writer
+    @Getter
+    private volatile long firedTimers;                  // Timers fired since the start, single writer
+    private long currentTick;                           // Ticks the wheel has advanced
+
+    /**
+     * Initializes an empty wheel.
+     *
+     * @param logger Logger for debugging
+     */
+    public TimingWheel(final Logger logger) {
+        this.logger = logger;
+
+        buckets = new Timeout[WHEEL_SIZE];
+    }
+
+    /**
+     * Schedules the action to run after the given delay.
+     *
+     * @param action     Action to run
+     * @param delayTicks Delay in ticks, at least one tick is always waited
+     * @return Handle that can cancel the timer
+     */
+    public Timeout schedule(final Runnable action, final long delayTicks) {
+        final Timeout timeout = new Timeout(action, currentTick + Math.max(1L, delayTicks));
+        link(timeout);
+        pendingTimers++;
+        return timeout;
+    }
+
+    /**
+     * Drops all pending timers.
+     */
+    public void stop() {
+        for (int index = 0; index < WHEEL_SIZE; index++) {
+            Timeout timeout = buckets[index];
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                timeout.prev = timeout.next = null;
+                timeout.linked = false;
+                timeout.due = false;
+                timeout = next;
+            }
+            buckets[index] = null;
+        }
+        pendingTimers = 0;
+    }
+
+    /**
+     * Advances the wheel by one tick and fires the timers
+     * of the current bucket whose deadline has come. Timers
+     * more than one rotation away stay in the bucket.
+     * All due timers are unlinked before the first one
+     * fires, so an action may cancel or schedule any timer;
+     * a due timer cancelled by an earlier action does not fire.
+     */
+    public void tick() {
+        currentTick++;
+
+        Timeout due = null;
+        Timeout timeout = buckets[(int) (currentTick & MASK)];
+        while (timeout != null) {
+            final Timeout next = timeout.next;
+
+            if (timeout.deadline <= currentTick) {
+                unlink(timeout);
+                timeout.due = true;
+                timeout.nextDue = due;
+                due = timeout;
+            }
+            timeout = next;
+        }
+
+        while (due != null) {
+            final Timeout next = due.nextDue;
+            due.nextDue = null;
+
+            if (due.due) {
+                due.due = false;
+                pendingTimers--;
+                firedTimers++;
+                fire(due);
+            }
+            due = next;
+        }
+    }
+
+    /**
+     * Runs the action of the timer. A failing action
+     * is logged and does not stop the wheel.
+     *
+     * @param timeout Timer to fire
+     */
+    private void fire(final Timeout timeout) {
+        try {
+            timeout.action.run();
+        } catch (final RuntimeException exception) {
+            logger.log(Level.WARNING, "A scheduled timer has failed.", exception);
+        }
+    }
+
+    /**
+     * Links the timer at the head of its bucket.
+     *
+     * @param timeout Timer to link
+     */
+    private void link(final Timeout timeout) {
+        final int index = (int) (timeout.deadline & MASK);
+        final Timeout head = buckets[index];
+
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[index] = timeout;
+        timeout.linked = true;
+    }
+
+    /**
+     * Unlinks the timer from its bucket.
+     *
+     * @param timeout Timer to unlink
+     */
+    private void unlink(final Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.deadline & MASK)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = timeout.next = null;
+        timeout.linked = false;
+    }
+
+    /**
+     * A timer stored in the wheel.
+     */
+    public final class Timeout {
+
+        private final Runnable action; // Action to run when the timer fires
+        private final long deadline;   // Wheel tick the timer fires at
+        private Timeout prev;          // Previous timer in the bucket
+        private Timeout next;          // Next timer in the bucket
+        private boolean linked;        // Whether the timer is still in the wheel
+        private boolean due;           // Whether the timer is unlinked and fires in this tick
+        private Timeout nextDue;       // Next due timer of the tick
+
+        private Timeout(final Runnable action, final long deadline) {
+            this.action = action;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timer if it has not fired yet.
+         *
+         * @return true if the timer was cancelled, false if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            if (due) {
+                due = false; // Unlinked already, skipped when the due timers fire
+            } else if (linked) {
+                unlink(this);
+            } else {
+                return false;
+            }
+            pendingTimers--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ru.ephy.raidhelper.raid.scheduler.raidstatemanager;
+
+import org.bukkit.entity.Player;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.config.MessageCatalog;
+import ru.ephy.raidhelper.config.Messages;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends the raid action bar of every player. Raids report
+ * their state for each nearby player; the player sees the
+ * best state of the raids around them, at most once per
+ * interval no matter how many raids overlap. A change of
+ * that state is sent right away. Reports may come from
+ * several region threads at once. The action bar is the
+ * precompiled message of the locale of the player.
+ */
+public class NotificationDispatcher {
+
+    private static final int STATE_LIFETIME = 40; // Ticks a raid report stays relevant, two notify cycles
+
+    private final PerformanceStats stats;                      // Counts the sent and saved action bars
+    private final Map<UUID, PlayerNotifications> playerStates; // Reports and last action bar per player
+    private volatile MessageCatalog messages;                  // Action bars of every locale
+    private volatile int interval;                             // Min ticks between two action bars of a player
+
+    /**
+     * Raid state a player is notified about, best first.
+     */
+    public enum State {
+        AVAILABLE,
+        COOLDOWN,
+        NONE;
+
+        /**
+         * Returns the state a raid shows to its players.
+         *
+         * @param raidData    The raid
+         * @param currentTick Current game tick
+         * @return NONE if the bell does not work yet
+         */
+        public static State of(final RaidData raidData, final long currentTick) {
+            if (!raidData.isTeleportEnabled(currentTick)) return NONE;
+            return raidData.isCooldownActive(currentTick) ? COOLDOWN : AVAILABLE;
+        }
+    }
+
+    /**
+     * Initializes the dispatcher.
+     *
+     * @param config Contains the messages and the interval
+     * @param stats  Performance stats of the plugin
+     */
+    public NotificationDispatcher(final Config config, final PerformanceStats stats) {
+        // Initializes required instances
+        this.stats = stats;
+
+        // Initializes required variables
+        playerStates = new ConcurrentHashMap<>();
+        reload(config);
+    }
+
+    /**
+     * Picks up the messages and the interval. Reports on
+     * region threads see the new values from their next
+     * report on.
+     *
+     * @param config The new settings snapshot
+     */
+    public void reload(final Config config) {
+        messages = config.getMessages();
+        interval = config.getNotifyInterval();
+    }
+
+    /**
+     * Reports the state of a raid to a nearby player and
+     * sends the action bar if the best state of the player
+     * changed or the interval has passed.
+     *
+     * @param player      Player near the raid
+     * @param raidData    The reporting raid
+     * @param state       State of the raid
+     * @param currentTick Game tick of the report
+     */
+    public void report(final Player player, final RaidData raidData, final State state, final long currentTick) {
+        final PlayerNotifications notifications = playerStates.computeIfAbsent(
+                player.getUniqueId(), id -> new PlayerNotifications());
+
+        final State toSend;
+        synchronized (notifications) {
+            toSend = notifications.report(raidData, state, currentTick, interval);
+        }
+
+        if (toSend == null) {
+            if (state != State.NONE) {
+                stats.getActionBarsSaved().increment();
+            }
+            return;
+        }
+        final Messages playerMessages = messages.forPlayer(player);
+        player.sendActionBar(toSend == State.AVAILABLE ? playerMessages.ring() : playerMessages.cooldown());
+        stats.getActionBarsSent().increment();
+    }
+
+    /**
+     * Drops the players that have not been reported about
+     * for a while, such as those who left or walked away.
+     *
+     * @param currentTick Current game tick
+     */
+    public void purge(final long currentTick) {
+        playerStates.values().removeIf(notifications -> {
+            synchronized (notifications) {
+                return notifications.isStale(currentTick);
+            }
+        });
+    }
+
+    /**
+     * Reports and last action bar of one player.
+     */
+    private static class PlayerNotifications {
+
+        private final Map<RaidData, Report> reports = new HashMap<>(2); // Latest report of every nearby raid
+        private State sentState = State.NONE;                          // State of the last action bar
+        private long sentTick = 0L;                                    // Tick of the last action bar
+        private long reportTick = 0L;                                  // Tick of the latest report
+
+        /**
+         * Stores the report and decides whether to send.
+         *
+         * @param raidData    The reporting raid
+         * @param state       State of the raid
+         * @param currentTick Tick of the report
+         * @param interval    Min ticks between two action bars
+         * @return State to send, or null to send nothing
+         */
+        private State report(final RaidData raidData, final State state, final long currentTick,
+                             final int interval) {
+            reportTick = Math.max(reportTick, currentTick);
+            if (state == State.NONE) {
+                reports.remove(raidData);
+            } else {
+                reports.put(raidData, new Report(state, currentTick));
+            }
+
+            final State bestState = getBestState(currentTick);
+            if (bestState == State.NONE) {
+                sentState = State.NONE;
+                return null;
+            }
+            if (bestState == sentState && currentTick - sentTick < interval) return null;
+
+            sentState = bestState;
+            sentTick = currentTick;
+            return bestState;
+        }
+
+        /**
+         * Returns the best state among the raids reported
+         * recently. Older reports are dropped.
+         *
+         * @param currentTick Tick of the report
+         * @return Best state, NONE if there is no recent report
+         */
+        private State getBestState(final long currentTick) {
+            State bestState = State.NONE;
+
+            reports.values().removeIf(report -> currentTick - report.tick() > STATE_LIFETIME);
+            for (final Report report : reports.values()) {
+                if (report.state().ordinal() < bestState.ordinal()) {
+                    bestState = report.state();
+                }
+            }
+            return bestState;
+        }
+
+        /**
+         * Tells whether no raid has reported about the player
+         * within the lifetime of a report.
+         *
+         * @param currentTick Current tick
+         * @return true if the player can be dropped
+         */
+        private boolean isStale(final long currentTick) {
+            return currentTick - reportTick > STATE_LIFETIME;
+        }
+    }
+
+    /**
+     * Latest state reported by one raid.
+     *
+     * @param state State of the raid
+     * @param tick  Tick of the report
+     */
+    private record Report(State state, long tick) {
+    }
+}
@@ -1,29 +1,56 @@
 package ru.ephy.raidhelper.raid.scheduler.raidstatemanager;
 
-import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
 import ru.ephy.raidhelper.config.Config;
 import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.stats.PerformanceStats;
 
-import java.util.HashSet;
-import java.util.Set;
-
+/**
+ * Reports the state of a raid to the players near it.
+ * The {@link NotificationDispatcher} decides which of the
+ * reports of overlapping raids reach the player.
+ * Every report reads the player cache of the raid and
+ * counts as a hit or, if the cache is stale, a miss.
+ */
 public class NotificationManager {
-    private final Component actionBarMessage;
-    private final double notifyRadius;
+    private final NotificationDispatcher dispatcher;
+    private final PerformanceStats stats;
 
-    public NotificationManager(final Config config) {
-        actionBarMessage = config.getRingMessage();
-        notifyRadius = config.getRadius();
+    public NotificationManager(final NotificationDispatcher dispatcher, final PerformanceStats stats) {
+        this.dispatcher = dispatcher;
+        this.stats = stats;
     }
 
-    public void notifyPlayers(final RaidData raidData) {
-        if (raidData.isTeleportEnabled()) {
-            final Set<Player> players = raidData.getPlayersWithinRaid() != null
-                    ? raidData.getPlayersWithinRaid()
-                    : new HashSet<>(raidData.getRaidLocation().getNearbyPlayers(notifyRadius));
+    /**
+     * Reports the state of the raid to every player near it.
+     *
+     * @param raidData    The raid
+     * @param currentTick Game tick of the notification
+     */
+    public void notifyPlayers(final RaidData raidData, final long currentTick) {
+        final NotificationDispatcher.State state = NotificationDispatcher.State.of(raidData, currentTick);
+        (raidData.isCacheStale() ? stats.getCacheMisses() : stats.getCacheHits()).increment();
 
-            players.forEach(player -> player.sendActionBar(actionBarMessage));
+        for (final Player player : raidData.getPlayersWithinRaid()) {
+            dispatcher.report(player, raidData, state, currentTick);
         }
     }
+
+    /**
+     * Picks up the messages and interval of the action bars.
+     *
+     * @param config The new settings snapshot
+     */
+    public void reload(final Config config) {
+        dispatcher.reload(config);
+    }
+
+    /**
+     * Drops the players no raid has reported about for a while.
+     *
+     * @param currentTick Current game tick
+     */
+    public void purge(final long currentTick) {
+        dispatcher.purge(currentTick);
+    }
 }
@@ -1,113 +1,341 @@
 package ru.ephy.raidhelper.raid.scheduler.raidstatemanager;
 
-import org.bukkit.Bukkit;
-import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.Location;
+import org.bukkit.Raid;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.raid.RaidSpawnWaveEvent;
 import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.platform.TickClock;
 import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.data.RaidRegistryListener;
+import ru.ephy.raidhelper.raid.pipeline.PipelineStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.raid.proximity.PlayerPositionSnapshot;
+import ru.ephy.raidhelper.raid.proximity.ProximityJoin;
+import ru.ephy.raidhelper.stats.PerformanceStats;
 
-import java.util.HashSet;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Manages the caching of RaidData objects, ensuring
- * efficient updates to nearby players and raiders
- * based on configurable expiration times.
+ * Refresh cache stage of the tick pipeline. Keeps the
+ * players near every raid up to date. Every raid carries
+ * a cache generation that is bumped whenever something
+ * may have moved players in or out of it: the raid being
+ * registered, a wave spawning, a raider dying or leaving, or a player
+ * joining, quitting or teleporting near it. Bumped raids
+ * are collected as dirty, and raids whose cache is older
+ * than the expiration time are added to them, to catch
+ * players that simply walked in or out.
+ * <p>
+ * The stage only runs on ticks with dirty raids or a due
+ * expiry, so an idle server costs nothing. A run refreshes
+ * all dirty raids in one batch: the player positions are
+ * captured on the threads that own the players and joined
+ * against the raids off the server threads. Raids dirtied while a join is
+ * running stay stale and are refreshed by the next run.
  */
-public class RaidCacheManager {
+public class RaidCacheManager implements PipelineStage, RaidRegistryListener, Listener {
 
-    private final JavaPlugin plugin;
+    private final PlatformScheduler platformScheduler; // Runs the join off the main thread
+    private final RaidManager raidManager;             // Finds the raids an event touches
+    private final TickClock tickClock;                 // Current game tick the expiry is measured in
+    private final PerformanceStats stats;              // Counts the refreshed raids
 
-    private final ConcurrentLinkedQueue<RaidData> cache;
-    private final double notifyRadius;
-    private final int cacheExpirationTime;
-    private final int batchSize;
-    private int taskId = -1;
+    private final Set<RaidData> dirtyRaids;            // Raids to refresh in the next run, main thread only
+    private final AtomicBoolean joinRunning;           // Whether an async join has not finished yet
+
+    private ProximityJoin proximityJoin;               // Join with the effect radius
+    private double radius;                             // Radius of the raids, for player events
+    private volatile Set<World> monitoredWorlds;       // Worlds monitored for raids, read by the event threads
+    private int cacheExpirationTime;                   // Ticks after which a cache is refreshed anyway
+
+    private long nextExpiryTick = 0L;                  // Tick the oldest cache expires in
 
     /**
-     * Initializes the RaidCacheManager with the plugin
-     * instance and config values.
+     * Initializes the RaidCacheManager with the platform
+     * scheduler and config values.
      *
-     * @param plugin The plugin instance
-     * @param config Configuration object for cache settings
+     * @param platformScheduler Runs the join off the main thread
+     * @param raidManager       Manages raid data across worlds
+     * @param tickClock         Current game tick the expiry is measured in
+     * @param config            Configuration object for cache settings
+     * @param stats             Performance stats of the plugin
      */
-    public RaidCacheManager(final JavaPlugin plugin, final Config config) {
+    public RaidCacheManager(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                            final TickClock tickClock, final Config config, final PerformanceStats stats) {
         // Initializes required instances
-        this.plugin = plugin;
+        this.platformScheduler = platformScheduler;
+        this.raidManager = raidManager;
+        this.tickClock = tickClock;
+        this.stats = stats;
 
         // Initializes required variables
-        notifyRadius = config.getRadius();
+        dirtyRaids = new LinkedHashSet<>();
+        joinRunning = new AtomicBoolean();
+        reload(config);
+    }
+
+    /**
+     * Picks up the effect radius, the monitored worlds and
+     * the cache expiration time. A join that is running
+     * finishes with the radius it started with. Every
+     * cache is checked against the new settings on the
+     * next tick.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        proximityJoin = new ProximityJoin(config.getRadius());
+        radius = config.getRadius();
+        monitoredWorlds = config.getValidWorlds();
         cacheExpirationTime = config.getCacheExpireTime();
-        batchSize = config.getMaxChecksPerTick();
+        nextExpiryTick = 0L;
+    }
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.REFRESH_CACHE;
+    }
+
+    /**
+     * Runs on every tick that has dirty raids or a due
+     * expiry, and not at all otherwise.
+     *
+     * @return 1 if there is work, 0 if the caches are fresh
+     */
+    @Override
+    public int getCadence() {
+        return dirtyRaids.isEmpty() && tickClock.getCurrentTick() < nextExpiryTick ? 0 : 1;
+    }
+
+    /**
+     * Adds the expired raids to the dirty ones and refreshes
+     * them in one batch, unless the previous join is still
+     * running.
+     *
+     * @param pipeline Pipeline the stage belongs to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        final long currentTick = tickClock.getCurrentTick();
+
+        if (currentTick >= nextExpiryTick) {
+            collectExpiredRaids(currentTick);
+        }
+        if (dirtyRaids.isEmpty() || !joinRunning.compareAndSet(false, true)) return;
 
-        cache = new ConcurrentLinkedQueue<>();
+        refreshDirtyRaids(currentTick);
+    }
 
-        // Starts the scheduler
-        startCacheScheduler();
+    /**
+     * Marks a newly registered raid dirty, so its players
+     * are joined on the next tick.
+     *
+     * @param raidData The registered raid
+     */
+    @Override
+    public void onRaidAdded(final RaidData raidData) {
+        invalidate(raidData);
     }
 
     /**
-     * Adds RaidData to the cache for processing.
+     * Marks the raid a raider died in or left dirty.
      *
-     * @param raidData The RaidData object to add to the cache
+     * @param raidData The raid the raider was removed from
      */
-    public void addRaidData(final RaidData raidData) {
-        cache.offer(raidData);
+    @Override
+    public void onRaiderRemoved(final RaidData raidData) {
+        invalidate(raidData);
     }
 
     /**
-     * Starts an asynchronous task that processes
-     * RaidData objects in batches. Updates cache
-     * if necessary based on expiration time.
+     * Drops a removed raid from the dirty raids.
+     *
+     * @param raidData The removed raid
      */
-    private void startCacheScheduler() {
-        taskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
-            if (!cache.isEmpty()) {
-                int processedCount = 0;
+    @Override
+    public void onRaidRemoved(final RaidData raidData) {
+        dirtyRaids.remove(raidData);
+    }
 
-                while (processedCount < batchSize && !cache.isEmpty()) {
-                    final RaidData raidData = cache.poll();
+    /**
+     * Marks the raid that spawned a wave dirty.
+     *
+     * @param event The event triggered when a raid spawns a wave
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final RaidSpawnWaveEvent event) {
+        invalidateRaid(event.getRaid());
+    }
 
-                    if (raidData != null && doWeNeedToUpdateCache(raidData)) {
-                        updateCacheIfNeeded(raidData);
-                    }
+    /**
+     * Marks the raids near a joining player dirty.
+     *
+     * @param event The event triggered when a player joins
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final PlayerJoinEvent event) {
+        invalidateNear(event.getPlayer().getLocation());
+    }
 
-                    processedCount++;
-                }
-            } else {
-                if (Bukkit.getScheduler().isCurrentlyRunning(taskId)) {
-                    Bukkit.getScheduler().cancelTask(taskId);
+    /**
+     * Marks the raids near a quitting player dirty.
+     *
+     * @param event The event triggered when a player quits
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void on(final PlayerQuitEvent event) {
+        invalidateNear(event.getPlayer().getLocation());
+    }
+
+    /**
+     * Marks the raids near both ends of a teleport dirty.
+     *
+     * @param event The event triggered when a player teleports
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void on(final PlayerTeleportEvent event) {
+        invalidateNear(event.getFrom());
+        invalidateNear(event.getTo());
+    }
+
+    /**
+     * Hands the invalidation of a raid to the thread that
+     * owns the plugin state.
+     *
+     * @param raid The raid, may be null
+     */
+    private void invalidateRaid(final Raid raid) {
+        if (raid == null || !monitoredWorlds.contains(raid.getLocation().getWorld())) return;
+
+        platformScheduler.runGlobal(() -> {
+            final RaidData raidData = raidManager.findRaid(raid);
+            if (raidData != null) {
+                invalidate(raidData);
+            }
+        });
+    }
+
+    /**
+     * Hands the invalidation of the raids within the
+     * radius of a location to the thread that owns the
+     * plugin state.
+     *
+     * @param location The location, may be null
+     */
+    private void invalidateNear(final Location location) {
+        if (location == null || !monitoredWorlds.contains(location.getWorld())) return;
+
+        platformScheduler.runGlobal(() -> {
+            for (final RaidData raidData : raidManager.findRaidsWithin(
+                    location.getWorld(), location.getX(), location.getZ(), radius)) {
+                invalidate(raidData);
+            }
+        });
+    }
+
+    /**
+     * Bumps the cache generation of a raid and marks it dirty.
+     *
+     * @param raidData The raid
+     */
+    private void invalidate(final RaidData raidData) {
+        raidData.invalidateCache();
+        dirtyRaids.add(raidData);
+    }
+
+    /**
+     * Marks the raids whose cache has expired dirty and
+     * finds the tick the next cache expires in.
+     *
+     * @param currentTick Current game tick
+     */
+    private void collectExpiredRaids(final long currentTick) {
+        long nextExpiry = Long.MAX_VALUE;
+
+        for (final World world : monitoredWorlds) {
+            final List<RaidData> raids = raidManager.getRaids(world);
+            for (int index = 0; index < raids.size(); index++) {
+                final RaidData raidData = raids.get(index);
+                final long expiryTick = raidData.getLastUpdatedTime() + cacheExpirationTime + 1;
+
+                if (currentTick >= expiryTick) {
+                    invalidate(raidData);
+                } else {
+                    nextExpiry = Math.min(nextExpiry, expiryTick);
                 }
             }
-        }, 0L, 1L).getTaskId();
+        }
+        nextExpiryTick = nextExpiry;
     }
 
     /**
-     * Checks if the cache for a given RaidData needs to be updated.
+     * Captures the player positions and starts the join
+     * of the dirty raids off the server threads once every
+     * player is read. The caches restart their expiry from
+     * this tick.
      *
-     * @param raidData The RaidData to check
-     * @return true if the cache should be updated, false otherwise
+     * @param currentTick Current game tick
      */
-    private boolean doWeNeedToUpdateCache(final RaidData raidData) {
-        final long currentTime = System.currentTimeMillis() / 50; // We get current time in ticks. 1 tick has 50ms
-        final long lastUpdatedTime = raidData.getLastUpdatedTime();
+    private void refreshDirtyRaids(final long currentTick) {
+        final List<RaidData> raids = new ArrayList<>(dirtyRaids);
+        final long[] generations = new long[raids.size()];
+        dirtyRaids.clear();
 
-        if (currentTime - lastUpdatedTime > cacheExpirationTime) { // We compare the amount of time passed
-            raidData.setLastUpdatedTime(currentTime); // Updates the last updated time if the cache should be updated
-            return true;
+        for (int index = 0; index < raids.size(); index++) {
+            final RaidData raidData = raids.get(index);
+            raidData.setLastUpdatedTime(currentTick);
+            generations[index] = raidData.getCacheGeneration();
         }
-        return false;
+        nextExpiryTick = Math.min(nextExpiryTick, currentTick + cacheExpirationTime + 1);
+
+        final ProximityJoin join = proximityJoin;
+        PlayerPositionSnapshot.capture(platformScheduler, monitoredWorlds, playerSnapshot ->
+                platformScheduler.runAsync(() -> updateCache(join, raids, generations, playerSnapshot)));
     }
 
     /**
-     * Updates the cache for a given RaidData by
-     * fetching nearby players and raiders.
+     * Updates the cache of the given raids by joining them
+     * against the player snapshot and publishing the
+     * immutable player set of every raid along with the
+     * generation it was joined for.
      *
-     * @param raidData The RaidData whose cache needs to be updated
+     * @param join           Join with the radius of the pass
+     * @param raids          The raids whose cache needs to be updated
+     * @param generations    Cache generation of every raid when it was collected
+     * @param playerSnapshot Player positions captured on the threads owning the players
      */
-    public void updateCacheIfNeeded(final RaidData raidData) {
-        Bukkit.getScheduler().runTask(plugin, () -> { // We cache new values here
-            raidData.setPlayersWithinRaid(new HashSet<>(raidData.getRaidLocation().getNearbyPlayers(notifyRadius)));
-            raidData.setRaiderSet(new HashSet<>(raidData.getRaidInstance().getRaiders()));
-        });
+    private void updateCache(final ProximityJoin join, final List<RaidData> raids, final long[] generations,
+                             final PlayerPositionSnapshot playerSnapshot) {
+        final long startNanos = System.nanoTime();
+
+        try {
+            final Map<RaidData, Set<Player>> joined = join.join(raids, playerSnapshot);
+
+            for (int index = 0; index < raids.size(); index++) {
+                final RaidData raidData = raids.get(index);
+                raidData.setPlayersWithinRaid(joined.get(raidData));
+                raidData.setCachedGeneration(generations[index]);
+            }
+            stats.getCacheRefreshes().add(raids.size());
+        } finally {
+            joinRunning.set(false);
+            stats.record(PerformanceStats.Stage.CACHE_JOIN, System.nanoTime() - startNanos);
+        }
     }
 }
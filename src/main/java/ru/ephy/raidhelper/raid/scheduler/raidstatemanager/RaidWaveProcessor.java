@@ -1,43 +1,34 @@
 package ru.ephy.raidhelper.raid.scheduler.raidstatemanager;
 
-import org.bukkit.entity.Raider;
 import ru.ephy.raidhelper.config.Config;
 import ru.ephy.raidhelper.raid.data.RaidData;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class RaidWaveProcessor {
-    private final int bellWorkDelay;
+    private static final int TICKS_PER_SECOND = 20;
+
+    private volatile long bellWorkDelayTicks; // Read by the raids on their region threads
 
     public RaidWaveProcessor(final Config config) {
-        bellWorkDelay = config.getBellWorkDelay();
+        reload(config);
     }
 
-    public boolean hasWaveEnded(final RaidData raidData) {
-        final Set<Raider> raiders = raidData.getRaiderSet() != null
-                ? raidData.getRaiderSet()
-                : new HashSet<>(raidData.getRaidInstance().getRaiders());
+    public void reload(final Config config) {
+        bellWorkDelayTicks = (long) config.getBellWorkDelay() * TICKS_PER_SECOND;
+    }
 
-        return raiders.isEmpty();
+    public boolean hasWaveEnded(final RaidData raidData) {
+        return raidData.getRaiderSet().isEmpty();
     }
 
     public void processWaveEnd(final RaidData raidData) {
-        if (raidData.isCounterResetAllowed()) {
-            raidData.setCounterResetAllowed(false);
-            raidData.setTeleportEnabled(false);
-            raidData.resetCounter();
+        if (raidData.getPhase() == RaidData.Phase.WAVE) {
+            raidData.endWave();
         }
     }
 
-    public void processWaveOngoing(final RaidData raidData) {
-        if (!raidData.isTeleportEnabled()) {
-            if (raidData.getTickCounter() > bellWorkDelay) {
-                raidData.setTeleportEnabled(true);
-                raidData.setCounterResetAllowed(true);
-            } else {
-                raidData.incrementCounter();
-            }
+    public void processWaveOngoing(final RaidData raidData, final long currentTick) {
+        if (raidData.getPhase() == RaidData.Phase.IDLE) {
+            raidData.startWave(currentTick, bellWorkDelayTicks);
         }
     }
 }
@@ -0,0 +1,459 @@
+package ru.ephy.raidhelper.raid.store;
+
+import org.bukkit.World;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.platform.TickClock;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.data.RaidRegistryListener;
+import ru.ephy.raidhelper.raid.pipeline.PipelineStage;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.util.IntObjectMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the bell state of the raids across restarts. The
+ * state of every raid, keyed by world UUID and raid id,
+ * is written to a small binary file in the background at
+ * the configured interval. The file is read off the main
+ * thread on startup and every saved raid gets its state
+ * back when the RaidManager registers it again.
+ *
+ * The file holds a header (magic, format version, entry
+ * count) followed by fixed-size entries, so thousands of
+ * raids are read in one pass over a byte buffer. The tick
+ * stamps of a raid are saved relative to the tick of the
+ * save, as the server counts from zero again after a
+ * restart, and are made absolute again on restore.
+ *
+ * Writes are serialized and numbered in the order their
+ * states were captured, so the blocking save on disable
+ * waits for a background write still running and is never
+ * overwritten by an older one that starts after it.
+ */
+public class RaidStateStore implements PipelineStage, RaidRegistryListener {
+
+    private static final int MAGIC = 0x52485354;        // "RHST", marks a raid state file
+    private static final int FORMAT_VERSION = 2;        // Version of the entry layout
+    private static final int HEADER_BYTES = 12;         // Magic, version and entry count
+    private static final int ENTRY_BYTES = 33;          // World UUID, raid id, phase and three tick spans
+    private static final int PENDING_LIFETIME = 6000;   // Ticks a loaded state waits for its raid
+
+    private final PlatformScheduler platformScheduler;  // Runs the file access off the main thread
+    private final RaidManager raidManager;              // Raids whose state is saved
+    private final TickClock tickClock;                  // Current tick the stamps are relative to
+    private final PerformanceStats stats;               // Records the capture and write times
+    private final Logger logger;                        // Logs file errors
+    private final Path file;                            // The raid state file
+
+    private final Map<UUID, IntObjectMap<SavedState>> pendingStates; // Loaded states not restored yet
+    private final AtomicBoolean writeRunning;           // Whether a background write has not finished yet
+    private final Object writeLock;                     // Serializes the writes of the file
+    private int saveInterval;                           // Ticks between two saves
+
+    private long captureSequence = 0L;                  // Number of the last capture, owning thread only
+    private long writtenSequence = 0L;                  // Number of the capture last written, under the lock
+
+    private List<SavedState> lastSaved = List.of();     // States of the last save, to skip unchanged ones
+    private long pendingExpiryTick = 0L;                // Tick after which unclaimed states are dropped
+    private long pendingLoadedTick = 0L;                // Tick the unclaimed states were loaded on
+
+    /**
+     * Initializes the store.
+     *
+     * @param platformScheduler Runs the file access off the main thread
+     * @param raidManager       Raids whose state is saved
+     * @param tickClock         Current tick the stamps are relative to
+     * @param config            Contains the save interval
+     * @param stats             Performance stats of the plugin
+     * @param logger            Logs file errors
+     * @param file              The raid state file
+     */
+    public RaidStateStore(final PlatformScheduler platformScheduler, final RaidManager raidManager,
+                          final TickClock tickClock, final Config config, final PerformanceStats stats,
+                          final Logger logger, final Path file) {
+        // Initializes required instances
+        this.platformScheduler = platformScheduler;
+        this.raidManager = raidManager;
+        this.tickClock = tickClock;
+        this.stats = stats;
+        this.logger = logger;
+        this.file = file;
+
+        // Initializes required variables
+        pendingStates = new HashMap<>();
+        writeRunning = new AtomicBoolean();
+        writeLock = new Object();
+        reload(config);
+    }
+
+    /**
+     * Picks up the save interval.
+     *
+     * @param config The new settings snapshot
+     */
+    @Override
+    public void reload(final Config config) {
+        saveInterval = config.getSaveInterval();
+    }
+
+    @Override
+    public PerformanceStats.Stage getStage() {
+        return PerformanceStats.Stage.STATE_SAVE;
+    }
+
+    @Override
+    public int getCadence() {
+        return saveInterval;
+    }
+
+    /**
+     * Reads the file off the main thread and hands the
+     * states back to the owning thread, where the raids
+     * registered in the meantime get theirs at once.
+     * Nothing is loaded while saving is disabled.
+     */
+    public void load() {
+        if (saveInterval <= 0) return;
+
+        platformScheduler.runAsync(() -> {
+            final List<SavedState> states = readFile();
+            if (!states.isEmpty()) {
+                platformScheduler.runGlobal(() -> restoreLoaded(states, tickClock.getCurrentTick()));
+            }
+        });
+    }
+
+    /**
+     * Captures the state of the raids and writes it in the
+     * background if it changed since the last save. Loaded
+     * states that no raid claimed in time are dropped.
+     *
+     * @param pipeline Pipeline the stage belongs to
+     */
+    @Override
+    public void run(final TickPipeline pipeline) {
+        if (!pendingStates.isEmpty() && tickClock.getCurrentTick() > pendingExpiryTick) {
+            pendingStates.clear();
+        }
+        if (writeRunning.get()) return;
+
+        final List<SavedState> states = capture();
+        if (states.equals(lastSaved)) return;
+
+        lastSaved = states;
+        writeRunning.set(true);
+        final long sequence = ++captureSequence;
+        platformScheduler.runAsync(() -> {
+            final long startNanos = System.nanoTime();
+            try {
+                writeFile(states, sequence);
+            } finally {
+                writeRunning.set(false);
+                stats.record(PerformanceStats.Stage.STATE_WRITE, System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    /**
+     * Writes the current state on the calling thread. Used
+     * when the plugin is disabled, as background tasks no
+     * longer start then. A background write that is still
+     * running is waited for. Does nothing while saving is
+     * disabled.
+     */
+    public void saveNow() {
+        if (saveInterval <= 0) return;
+
+        writeFile(capture(), ++captureSequence);
+    }
+
+    /**
+     * Gives a newly registered raid its saved state, aged
+     * by the ticks it waited since it was loaded.
+     *
+     * @param raidData The registered raid
+     */
+    @Override
+    public void onRaidAdded(final RaidData raidData) {
+        final IntObjectMap<SavedState> worldStates = pendingStates.get(raidData.getRaidWorld().getUID());
+        if (worldStates == null) return;
+
+        final SavedState state = worldStates.remove(raidData.getRaidId());
+        if (state != null) {
+            restore(raidData, state.aged(tickClock.getCurrentTick() - pendingLoadedTick));
+        }
+        if (worldStates.isEmpty()) {
+            pendingStates.remove(raidData.getRaidWorld().getUID());
+        }
+    }
+
+    @Override
+    public void onRaidRemoved(final RaidData raidData) {
+    }
+
+    /**
+     * Restores the loaded states of the raids that are
+     * registered already and keeps the others pending.
+     *
+     * @param states      States read from the file
+     * @param currentTick Current game tick
+     */
+    private void restoreLoaded(final List<SavedState> states, final long currentTick) {
+        for (final SavedState state : states) {
+            pendingStates.computeIfAbsent(state.worldId(), id -> new IntObjectMap<>())
+                         .put(state.raidId(), state);
+        }
+        pendingLoadedTick = currentTick;
+        pendingExpiryTick = currentTick + PENDING_LIFETIME;
+
+        for (final RaidData raidData : raidManager.getAllRaids()) {
+            onRaidAdded(raidData);
+        }
+        logger.info("Loaded the saved state of " + states.size() + " raids.");
+    }
+
+    /**
+     * Applies a saved state to a raid, turning the saved
+     * spans back into stamps of the current tick. The bell
+     * delay and the cooldown go on where they stopped.
+     *
+     * @param raidData The raid
+     * @param state    Its saved state
+     */
+    private void restore(final RaidData raidData, final SavedState state) {
+        final long currentTick = tickClock.getCurrentTick();
+
+        raidData.setWaveStartedTick(currentTick - state.waveAge());
+        raidData.setTeleportEnabledTick(currentTick + state.enableIn());
+        raidData.setCooldownUntilTick(currentTick + state.cooldownLeft());
+        raidData.setPhase(state.phase());
+    }
+
+    /**
+     * Captures the state of the registered raids and of the
+     * loaded states still waiting for their raid. Waiting
+     * states are aged by the ticks since they were loaded,
+     * so their delay and cooldown count down across saves.
+     *
+     * @return States to save
+     */
+    private List<SavedState> capture() {
+        final List<SavedState> states = new ArrayList<>();
+        final long currentTick = tickClock.getCurrentTick();
+
+        for (final RaidData raidData : raidManager.getAllRaids()) {
+            final World world = raidData.getRaidWorld();
+            final RaidData.Phase phase = raidData.getPhase();
+            final boolean wave = phase == RaidData.Phase.WAVE;
+
+            states.add(new SavedState(world.getUID(), raidData.getRaidId(), phase,
+                    wave ? span(currentTick - raidData.getWaveStartedTick()) : 0,
+                    wave ? span(raidData.getTeleportEnabledTick() - currentTick) : 0,
+                    span(raidData.getCooldownUntilTick() - currentTick)));
+        }
+        final long waited = currentTick - pendingLoadedTick;
+        for (final IntObjectMap<SavedState> worldStates : pendingStates.values()) {
+            for (int slot = worldStates.nextSlot(0); slot >= 0; slot = worldStates.nextSlot(slot + 1)) {
+                states.add(worldStates.valueAt(slot).aged(waited));
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Clamps a span of ticks to what an entry holds. Spans
+     * that have passed already are saved as zero, so idle
+     * raids save the same entry every time.
+     *
+     * @param ticks Span in ticks
+     * @return The span, between zero and Integer.MAX_VALUE
+     */
+    private static int span(final long ticks) {
+        return (int) Math.max(0L, Math.min(ticks, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Writes the states to a temporary file of its own and
+     * moves it over the raid state file, so a crash never
+     * leaves a half-written file behind. States older than
+     * the ones written last are dropped.
+     *
+     * @param states   States to write
+     * @param sequence Number of the capture the states come from
+     */
+    private void writeFile(final List<SavedState> states, final long sequence) {
+        synchronized (writeLock) {
+            if (sequence <= writtenSequence) return;
+
+            writtenSequence = sequence;
+            writeStates(states);
+        }
+    }
+
+    /**
+     * Writes the states through a new temporary file.
+     * Must hold the write lock.
+     *
+     * @param states States to write
+     */
+    private void writeStates(final List<SavedState> states) {
+        Path temporary = null;
+
+        try {
+            Files.createDirectories(file.getParent());
+            temporary = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(states.size());
+
+                for (final SavedState state : states) {
+                    output.writeLong(state.worldId().getMostSignificantBits());
+                    output.writeLong(state.worldId().getLeastSignificantBits());
+                    output.writeInt(state.raidId());
+                    output.writeByte(state.phase().ordinal());
+                    output.writeInt(state.waveAge());
+                    output.writeInt(state.enableIn());
+                    output.writeInt(state.cooldownLeft());
+                }
+            }
+            moveOver(temporary);
+            temporary = null;
+        } catch (final IOException exception) {
+            logger.log(Level.WARNING, "Could not save the raid state to " + file + ".", exception);
+        } finally {
+            deleteQuietly(temporary);
+        }
+    }
+
+    /**
+     * Deletes a temporary file that was not moved over the
+     * raid state file.
+     *
+     * @param temporary The temporary file, or null if there is none
+     */
+    private void deleteQuietly(final Path temporary) {
+        if (temporary == null) return;
+
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (final IOException exception) {
+            logger.log(Level.FINE, "Could not delete " + temporary + ".", exception);
+        }
+    }
+
+    /**
+     * Replaces the raid state file with the temporary one,
+     * atomically where the file system supports it.
+     *
+     * @param temporary The written temporary file
+     * @throws IOException If the file cannot be moved
+     */
+    private void moveOver(final Path temporary) throws IOException {
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the states from the raid state file. A missing
+     * file means no saved state; a damaged or foreign file
+     * is reported and ignored.
+     *
+     * @return States read, empty if there are none
+     */
+    private List<SavedState> readFile() {
+        if (!Files.isRegularFile(file)) return List.of();
+
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                logger.warning("Ignoring " + file + ": not a raid state file.");
+                return List.of();
+            }
+
+            final int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                logger.warning("Ignoring " + file + ": unsupported format version " + version + ".");
+                return List.of();
+            }
+
+            final int count = buffer.getInt();
+            if (count < 0 || (long) count * ENTRY_BYTES > buffer.remaining()) {
+                logger.warning("Ignoring " + file + ": the file is truncated.");
+                return List.of();
+            }
+
+            final RaidData.Phase[] phases = RaidData.Phase.values();
+            final List<SavedState> states = new ArrayList<>(count);
+            for (int index = 0; index < count; index++) {
+                final UUID worldId = new UUID(buffer.getLong(), buffer.getLong());
+                final int raidId = buffer.getInt();
+                final int phase = buffer.get();
+                if (phase < 0 || phase >= phases.length) {
+                    logger.warning("Ignoring " + file + ": unknown raid phase " + phase + ".");
+                    return List.of();
+                }
+                states.add(new SavedState(worldId, raidId, phases[phase],
+                        buffer.getInt(), buffer.getInt(), buffer.getInt()));
+            }
+            return states;
+        } catch (final IOException | BufferUnderflowException exception) {
+            logger.log(Level.WARNING, "Could not load the raid state from " + file + ".", exception);
+            return List.of();
+        }
+    }
+
+    /**
+     * Saved bell state of one raid.
+     *
+     * @param worldId      UUID of the world of the raid
+     * @param raidId       Id of the raid
+     * @param phase        Wave phase of the raid
+     * @param waveAge      Ticks since the ongoing wave started
+     * @param enableIn     Ticks until the bell works in the ongoing wave
+     * @param cooldownLeft Ticks until the cooldown of the bell ends
+     */
+    private record SavedState(UUID worldId, int raidId, RaidData.Phase phase,
+                              int waveAge, int enableIn, int cooldownLeft) {
+
+        /**
+         * Returns the state as it is the given number of
+         * ticks later. The wave only ages during a wave.
+         *
+         * @param ticks Ticks that passed
+         * @return The aged state
+         */
+        private SavedState aged(final long ticks) {
+            final boolean wave = phase == RaidData.Phase.WAVE;
+            return new SavedState(worldId, raidId, phase,
+                    wave ? span(waveAge + ticks) : 0,
+                    wave ? span(enableIn - ticks) : 0,
+                    span(cooldownLeft - ticks));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.ephy.raidhelper.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ * Every power of two is split into four buckets, so a
+ * percentile is accurate within 25% while recording is
+ * a couple of atomic increments and never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;                        // Buckets per power of two (log2)
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;         // Buckets per power of two
+    private static final int BUCKET_COUNT = Long.SIZE * SUB_BUCKETS;     // Buckets for every long value
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT); // Samples per bucket
+    private final AtomicLong count = new AtomicLong();                   // Number of samples
+    private final AtomicLong totalNanos = new AtomicLong();              // Sum of the samples
+    private final AtomicLong maxNanos = new AtomicLong();                // Largest sample
+
+    /**
+     * Records one sample.
+     *
+     * @param nanoseconds Measured latency
+     */
+    public void record(final long nanoseconds) {
+        final long value = Math.max(0L, nanoseconds);
+
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return Number of samples
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the recorded samples.
+     *
+     * @return Total latency in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Returns the largest recorded sample.
+     *
+     * @return Max latency in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the
+     * given percentile.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Latency in nanoseconds, 0 if there are no samples
+     */
+    public long getPercentileNanos(final double percentile) {
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            total += buckets.get(bucket);
+        }
+        if (total == 0) return 0;
+
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Drops every recorded sample.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            buckets.set(bucket, 0L);
+        }
+        count.set(0L);
+        totalNanos.set(0L);
+        maxNanos.set(0L);
+    }
+
+    /**
+     * Returns the bucket of a value. Values below four get a
+     * bucket each; larger values are bucketed by their highest
+     * bit and the two bits below it.
+     *
+     * @param value Non-negative value
+     * @return Index of the bucket
+     */
+    private static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value of a bucket.
+     *
+     * @param bucket Index of the bucket
+     * @return Largest value that falls into the bucket
+     */
+    private static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        final int exponent = bucket / SUB_BUCKETS + 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+        if (exponent >= 61) return Long.MAX_VALUE;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
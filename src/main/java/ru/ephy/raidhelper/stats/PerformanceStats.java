@@ -0,0 +1,119 @@
+package ru.ephy.raidhelper.stats;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.ephy.raidhelper.raid.data.RaidData;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the cost of the plugin on a live server:
+ * a latency histogram per processing stage, counters
+ * for the work done and the processing time of every
+ * raid. Recording is lock-free and may happen on any thread.
+ */
+@Getter
+public class PerformanceStats {
+
+    private final Map<Stage, LatencyHistogram> histograms;        // Latency of every stage
+    private final LongAdder cacheRefreshes = new LongAdder();     // Raids whose player cache was refreshed
+    private final LongAdder cacheHits = new LongAdder();          // Player cache reads of a fresh raid
+    private final LongAdder cacheMisses = new LongAdder();        // Player cache reads of a stale raid
+    private final LongAdder bellRings = new LongAdder();          // Bell rings handled in monitored worlds
+    private final LongAdder teleports = new LongAdder();          // Raiders teleported to a bell
+    private final LongAdder actionBarsSent = new LongAdder();     // Raid action bars sent to players
+    private final LongAdder actionBarsSaved = new LongAdder();    // Raid action bars skipped as duplicates
+    private final AtomicInteger queueDepth = new AtomicInteger(); // Raids waiting for a state update
+    private final Map<String, Integer> scanIntervals = new ConcurrentHashMap<>(); // Scan interval of every world
+
+    private volatile long resetTimeMillis = System.currentTimeMillis(); // Start of the current measurement
+
+    /**
+     * Creates empty stats with a histogram for every stage.
+     */
+    public PerformanceStats() {
+        histograms = new EnumMap<>(Stage.class);
+        for (final Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records the latency of one run of a stage.
+     *
+     * @param stage       The stage that ran
+     * @param nanoseconds Duration of the run
+     */
+    public void record(final Stage stage, final long nanoseconds) {
+        histograms.get(stage).record(nanoseconds);
+    }
+
+    /**
+     * Returns the histogram of a stage.
+     *
+     * @param stage The stage
+     * @return Histogram of the stage
+     */
+    public LatencyHistogram getHistogram(final Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Returns the raids with the highest accumulated
+     * processing time, most expensive first.
+     *
+     * @param raids Raids to choose from
+     * @param limit Max number of raids to return
+     * @return The most expensive raids
+     */
+    public List<RaidData> getTopRaids(final Collection<RaidData> raids, final int limit) {
+        return raids.stream()
+                .sorted(Comparator.comparingLong(RaidData::getProcessingNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Drops the histograms and counters. The processing
+     * time of the raids is kept, as it belongs to the raids,
+     * and so are the scan intervals, which are current values.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        cacheRefreshes.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        bellRings.reset();
+        teleports.reset();
+        actionBarsSent.reset();
+        actionBarsSaved.reset();
+        resetTimeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Measured stages of the plugin.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Stage {
+        DISCOVER("Discover"),           // Pipeline: finding and registering raids, per tick
+        REFRESH_CACHE("Refresh cache"), // Pipeline: capturing players for the cache, per tick
+        WAVE_STATE("Wave state"),       // Pipeline: updating the wave state of raids, per tick
+        NOTIFY("Notify"),               // Pipeline: notifying players near raids, per tick
+        TELEPORT("Teleport"),           // Pipeline: firing teleports and cooldowns, per tick
+        CACHE_JOIN("Cache join"),       // Async join of raids and players, per join
+        BELL_RING("Bell ring"),         // Pipeline: resolving the buffered bell rings, per tick
+        STATE_SAVE("State save"),       // Pipeline: capturing the raid state to save, per tick
+        STATE_WRITE("State write"),     // Async write of the raid state file, per write
+        TARGET_SEARCH("Target search"); // Async search of a safe teleport spot near a bell, per search
+
+        private final String displayName; // Name shown by the stats command
+    }
+}
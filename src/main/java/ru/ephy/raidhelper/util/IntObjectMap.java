@@ -0,0 +1,283 @@
+package ru.ephy.raidhelper.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int keys to objects.
+ * Keys are stored unboxed and probed linearly, so lookups
+ * and iteration do not allocate. Values cannot be null;
+ * a null value marks a free slot. Not thread-safe.
+ *
+ * Iteration walks the occupied slots without an iterator:
+ * <pre>
+ * for (int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+ *     use(map.keyAt(slot), map.valueAt(slot));
+ * }
+ * </pre>
+ *
+ * @param <V> Type of the values
+ */
+public final class IntObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 8; // Smallest table, a power of two
+
+    private int[] keys;      // Key of every slot
+    private Object[] values; // Value of every slot, null if the slot is free
+    private int mask;        // Table length minus one
+    private int size;        // Number of entries
+
+    /**
+     * Creates an empty map.
+     */
+    public IntObjectMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates an empty map that holds the expected number
+     * of entries without growing.
+     *
+     * @param expectedSize Number of entries to make room for
+     */
+    public IntObjectMap(final int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key The key
+     * @return The value, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        final int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Tells whether the map contains a key.
+     *
+     * @param key The key
+     * @return true if the key is present
+     */
+    public boolean containsKey(final int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key   The key
+     * @param value The value, not null
+     * @return The previous value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final int key, final V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap does not accept null values.");
+        }
+
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) / 2) {
+            rehash((mask + 1) * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key. Later entries of the same probe chain
+     * are shifted back, so no tombstones are left behind.
+     *
+     * @param key The key
+     * @return The removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final int key) {
+        final int slot = findSlot(key);
+        if (slot < 0) return null;
+
+        final V previous = (V) values[slot];
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return Number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the map has no entries.
+     *
+     * @return true if the map is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry, keeping the table.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the first occupied slot at or after the given one.
+     *
+     * @param from Slot to start at
+     * @return The occupied slot, or -1 if there is none
+     */
+    public int nextSlot(final int from) {
+        for (int slot = from; slot < values.length; slot++) {
+            if (values[slot] != null) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the key of an occupied slot.
+     *
+     * @param slot Slot returned by {@link #nextSlot}
+     * @return The key
+     */
+    public int keyAt(final int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the value of an occupied slot.
+     *
+     * @param slot Slot returned by {@link #nextSlot}
+     * @return The value
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(final int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Returns a copy of the map with its own tables.
+     *
+     * @return The copy
+     */
+    public IntObjectMap<V> copy() {
+        final IntObjectMap<V> copy = new IntObjectMap<>(0);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @param key The key
+     * @return The slot, or -1 if the key is absent
+     */
+    private int findSlot(final int key) {
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees a slot and moves the following entries of its
+     * probe chain back into the gap where their home allows.
+     *
+     * @param gap The slot to free
+     */
+    private void shiftBack(int gap) {
+        int slot = (gap + 1) & mask;
+        while (values[slot] != null) {
+            final int home = hash(keys[slot]) & mask;
+            // The entry may move unless its home lies cyclically in (gap, slot]
+            final boolean homeInRange = gap <= slot ? gap < home && home <= slot : gap < home || home <= slot;
+            if (!homeInRange) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    /**
+     * Moves every entry into a table of the given length.
+     *
+     * @param tableSize New table length, a power of two
+     */
+    private void rehash(final int tableSize) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        allocate(tableSize);
+        for (int index = 0; index < oldValues.length; index++) {
+            if (oldValues[index] == null) continue;
+
+            int slot = hash(oldKeys[index]) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[index];
+            values[slot] = oldValues[index];
+        }
+    }
+
+    /**
+     * Allocates empty tables.
+     *
+     * @param tableSize Table length, a power of two
+     */
+    private void allocate(final int tableSize) {
+        keys = new int[tableSize];
+        values = new Object[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Returns the table length that keeps the load factor
+     * at or under one half.
+     *
+     * @param expectedSize Number of entries
+     * @return Table length, a power of two
+     */
+    private static int tableSizeFor(final int expectedSize) {
+        final int needed = Math.max(MIN_CAPACITY, expectedSize * 2);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Spreads the bits of a key, as raid ids are sequential.
+     *
+     * @param key The key
+     * @return The hash
+     */
+    private static int hash(final int key) {
+        final int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
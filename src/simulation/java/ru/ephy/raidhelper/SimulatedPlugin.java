@@ -0,0 +1,57 @@
+package ru.ephy.raidhelper;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import ru.ephy.raidhelper.platform.PlatformScheduler;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+
+import java.io.File;
+
+/**
+ * Loads {@link Raidhelper} against a stub server without
+ * a plugin class loader.
+ */
+public final class SimulatedPlugin {
+
+    private SimulatedPlugin() {
+    }
+
+    /**
+     * Creates the plugin with the given data folder. The
+     * plugin is not enabled yet.
+     *
+     * @param server     The stub server
+     * @param dataFolder Data folder of the plugin
+     * @return The loaded plugin
+     */
+    @SuppressWarnings("deprecation")
+    public static Raidhelper load(final Server server, final File dataFolder) {
+        final PluginDescriptionFile description = new PluginDescriptionFile(
+                "raidhelper", "simulation", Raidhelper.class.getName());
+
+        return new Raidhelper(new JavaPluginLoader(server), description,
+                dataFolder, new File(dataFolder, "raidhelper.jar"));
+    }
+
+    /**
+     * Makes a loaded plugin use the given scheduler instead
+     * of the one picked for the server.
+     *
+     * @param plugin            The plugin, not enabled yet
+     * @param platformScheduler Scheduler to use
+     */
+    public static void useScheduler(final Raidhelper plugin, final PlatformScheduler platformScheduler) {
+        plugin.setPlatformScheduler(platformScheduler);
+    }
+
+    /**
+     * Returns the tick pipeline of an enabled plugin.
+     *
+     * @param plugin The plugin
+     * @return Its tick pipeline
+     */
+    public static TickPipeline pipeline(final Raidhelper plugin) {
+        return plugin.getTickPipeline();
+    }
+}
@@ -0,0 +1,181 @@
+package ru.ephy.raidhelper.simulation;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.stub.ManualTickClock;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures the bytes allocated per raid lookup on the
+ * monitor and scheduler paths: the registration check by
+ * world and id and the walk over the raids of a world.
+ * The boxed map the RaidManager used before is measured
+ * next to them for reference. Exits with status 1 if a
+ * checked path allocates.
+ */
+public final class AllocationCheck {
+
+    private static final String WORLD_NAME = "world";          // World of the raids
+    private static final int RAID_COUNT = 1_000;               // Raids, ids past the Integer cache
+    private static final int RAID_SPACING = 200;               // Blocks between two raid centers
+    private static final int WARMUP_ROUNDS = 20_000;           // Lookups before measuring, to let the JIT settle
+    private static final int MEASURED_ROUNDS = 200_000;        // Lookups measured per path
+    private static final double MAX_BYTES_PER_LOOKUP = 0.01;   // Noise allowed per lookup, about one object per run
+
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private World world;
+    private int[] raidIds;
+    private RaidManager raidManager;
+    private Map<World, Map<Integer, RaidData>> boxedRaids; // The storage the RaidManager used before
+    private int cursor;
+
+    /**
+     * Runs the check.
+     *
+     * @param args Unused
+     */
+    public static void main(final String[] args) {
+        if (!new AllocationCheck().run(System.out)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the check and prints the result.
+     *
+     * @param out Stream to print the result to
+     * @return true if no checked path allocates
+     */
+    public boolean run(final PrintStream out) {
+        final StubServer server = StubServer.install();
+        server.reset();
+        populate(server.createWorld(WORLD_NAME));
+
+        final double registeredBytes = measure(this::isRaidRegistered);
+        final double iterationBytes = measure(this::walkWorldRaids);
+        final double boxedBytes = measure(this::isBoxedRaidRegistered);
+        server.reset();
+
+        out.printf("RaidHelper allocation check: %d raids, %d lookups per path%n", RAID_COUNT, MEASURED_ROUNDS);
+        out.printf("isRaidRegistered(world, id): %.3f bytes per lookup%n", registeredBytes);
+        out.printf("getRaids(world) walk:        %.3f bytes per lookup%n", iterationBytes);
+        out.printf("boxed map (reference):       %.3f bytes per lookup%n", boxedBytes);
+
+        final boolean passed = registeredBytes <= MAX_BYTES_PER_LOOKUP && iterationBytes <= MAX_BYTES_PER_LOOKUP;
+        if (!passed) {
+            out.printf("FAILED: a lookup allocates more than %.3f bytes%n", MAX_BYTES_PER_LOOKUP);
+        }
+        return passed;
+    }
+
+    /**
+     * Registers the raids in a RaidManager and in the boxed
+     * reference map.
+     *
+     * @param stubWorld World to create the raids in
+     */
+    private void populate(final StubWorld stubWorld) {
+        world = stubWorld.getWorld();
+        raidIds = new int[RAID_COUNT];
+        raidManager = new RaidManager(new ManualTickClock());
+        boxedRaids = new HashMap<>();
+
+        final int side = (int) Math.ceil(Math.sqrt(RAID_COUNT));
+        for (int index = 0; index < RAID_COUNT; index++) {
+            final Location center = new Location(world,
+                    (index % side) * RAID_SPACING, 64, (index / side) * RAID_SPACING);
+            final StubRaid raid = new StubRaid(index + 1, center);
+            stubWorld.addRaid(raid);
+
+            raidManager.addRaidIfAbsent(raid.getRaid());
+            raidIds[index] = raid.getId();
+        }
+        raidManager.publishSnapshot();
+
+        for (final RaidData raidData : raidManager.getRaids(world)) {
+            boxedRaids.computeIfAbsent(world, key -> new HashMap<>()).put(raidData.getRaidId(), raidData);
+        }
+    }
+
+    /**
+     * Runs a lookup until the JIT has compiled it, then
+     * measures the bytes the current thread allocates.
+     *
+     * @param lookup Lookup to measure, returns a value to keep it alive
+     * @return Bytes allocated per lookup
+     */
+    private double measure(final LongSupplier lookup) {
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += lookup.getAsLong();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            sink += lookup.getAsLong();
+        }
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink); // Keeps the lookups from being removed
+        }
+        return (double) allocated / MEASURED_ROUNDS;
+    }
+
+    /**
+     * Checks the registration of the next raid.
+     *
+     * @return 1 if it is registered
+     */
+    private long isRaidRegistered() {
+        return raidManager.isRaidRegistered(world, nextRaidId()) ? 1 : 0;
+    }
+
+    /**
+     * Walks the raids of the world the way the pipeline stages do.
+     *
+     * @return Sum of the raid ids
+     */
+    private long walkWorldRaids() {
+        final List<RaidData> raids = raidManager.getRaids(world);
+        long sum = 0;
+        for (int index = 0; index < raids.size(); index++) {
+            sum += raids.get(index).getRaidId();
+        }
+        return sum;
+    }
+
+    /**
+     * Checks the registration of the next raid in the boxed map.
+     *
+     * @return 1 if it is registered
+     */
+    private long isBoxedRaidRegistered() {
+        final Map<Integer, RaidData> raidDataMap = boxedRaids.get(world);
+        return raidDataMap != null && raidDataMap.containsKey(nextRaidId()) ? 1 : 0;
+    }
+
+    /**
+     * Returns the id of the next raid, cycling through all of them.
+     *
+     * @return Raid id
+     */
+    private int nextRaidId() {
+        cursor = cursor + 1 == raidIds.length ? 0 : cursor + 1;
+        return raidIds[cursor];
+    }
+}
@@ -0,0 +1,382 @@
+package ru.ephy.raidhelper.simulation;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Raider;
+import org.bukkit.event.block.BellRingEvent;
+import org.bukkit.event.raid.RaidSpawnWaveEvent;
+import ru.ephy.raidhelper.Raidhelper;
+import ru.ephy.raidhelper.SimulatedPlugin;
+import ru.ephy.raidhelper.raid.pipeline.TickPipeline;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.stub.StubPlayer;
+import ru.ephy.raidhelper.stub.StubProxy;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubRaider;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Headless load simulation. Boots the whole plugin against
+ * the stub server with N raids, M players and K bell rings
+ * per second, advances the ticks and reports the time every
+ * stage of the tick pipeline and the bell rings spend per
+ * tick. The async cache join, target search and state
+ * writes are reported on their own, as the stub only runs
+ * them inline; they do not count towards the main thread
+ * total. Exits with status 1 when the main thread time per
+ * tick goes over the configured thresholds.
+ */
+public final class LoadSimulation {
+
+    private static final String PIPELINE_TASK = "TickPipeline";     // Task timed per stage instead
+    private static final String CACHE_TASK = "RaidCacheManager";    // Async join of the cache
+    private static final String STORE_TASK = "RaidStateStore";      // Async write of the raid state
+    private static final String FUTURE_TASK = "CompletableFuture";  // Async step of the target search
+    private static final String RING_EVENT = "Bell ring event";     // Buffering a ring, resolved by the pipeline
+
+    private static final String WORLD_NAME = "world"; // World monitored by the default configuration
+    private static final int RAID_SPACING = 200;      // Blocks between two raid centers
+
+    private final SimulationSettings settings;
+    private final Random random;
+    private final Map<String, TickSeries> seriesBySubsystem = new LinkedHashMap<>();      // Main thread work
+    private final Map<String, TickSeries> asyncSeriesBySubsystem = new LinkedHashMap<>(); // Work off the main thread
+    private final List<StubRaid> raids = new ArrayList<>();
+    private final List<StubPlayer> players = new ArrayList<>();
+
+    private int measuredTick = -1; // Index of the measured tick, -1 while warming up
+
+    /**
+     * Creates a simulation with the given settings.
+     *
+     * @param settings Settings of the run
+     */
+    public LoadSimulation(final SimulationSettings settings) {
+        this.settings = settings;
+        random = new Random(settings.seed());
+
+        for (final PerformanceStats.Stage stage : PerformanceStats.Stage.values()) {
+            seriesOf(stage).put(stage.getDisplayName(), new TickSeries(stage.getDisplayName(), settings.ticks()));
+        }
+    }
+
+    /**
+     * Runs the simulation with the settings from the system properties.
+     *
+     * @param args Unused
+     * @throws IOException If the data folder cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        final SimulationSettings settings = SimulationSettings.fromSystemProperties();
+        final boolean passed = new LoadSimulation(settings).run(System.out);
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the simulation and prints the report.
+     *
+     * @param out Stream to print the report to
+     * @return true if the run stayed within the thresholds
+     * @throws IOException If the data folder cannot be written
+     */
+    public boolean run(final PrintStream out) throws IOException {
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld world = server.createWorld(WORLD_NAME);
+        populate(world);
+
+        final Path dataFolder = Files.createTempDirectory("raidhelper-simulation");
+        writeConfig(dataFolder.toFile());
+
+        final Raidhelper plugin = SimulatedPlugin.load(server.getServer(), dataFolder.toFile());
+        plugin.onEnable();
+        spawnWaves(server, world);
+
+        final TickPipeline pipeline = SimulatedPlugin.pipeline(plugin);
+        server.getScheduler().setTaskObserver((action, async, nanoseconds) -> {
+            final String subsystem = subsystemOf(action, async);
+            if (subsystem != null) record(async ? asyncSeriesBySubsystem : seriesBySubsystem, subsystem, nanoseconds);
+        });
+
+        final double ringsPerTick = settings.ringsPerSecond() / 20.0;
+        double pendingRings = 0;
+
+        for (int tick = 0; tick < settings.warmupTicks() + settings.ticks(); tick++) {
+            measuredTick = tick < settings.warmupTicks() ? -1 : tick - settings.warmupTicks();
+
+            pendingRings += ringsPerTick;
+            while (pendingRings >= 1) {
+                ringRandomBell(server, world);
+                pendingRings--;
+            }
+
+            server.getScheduler().tick();
+            recordStages(pipeline);
+        }
+
+        server.getScheduler().setTaskObserver(null);
+        plugin.onDisable();
+        deleteRecursively(dataFolder);
+
+        return report(out);
+    }
+
+    /**
+     * Creates the raids, their raiders and the players.
+     *
+     * @param world World to populate
+     */
+    private void populate(final StubWorld world) {
+        final int side = (int) Math.ceil(Math.sqrt(settings.raids()));
+
+        for (int index = 0; index < settings.raids(); index++) {
+            final Location center = new Location(world.getWorld(),
+                    (index % side) * RAID_SPACING, 64, (index / side) * RAID_SPACING);
+            final StubRaid raid = new StubRaid(index + 1, center);
+
+            for (int raider = 0; raider < settings.raidersPerRaid(); raider++) {
+                raid.getStubRaiders().add(new StubRaider(raid, center.clone().add(
+                        random.nextInt(60) - 30, 0, random.nextInt(60) - 30)));
+            }
+            world.addRaid(raid);
+            raids.add(raid);
+        }
+
+        for (int index = 0; index < settings.players(); index++) {
+            final StubRaid raid = raids.get(index % raids.size());
+            final StubPlayer player = new StubPlayer("player" + index, raid.getLocation().clone().add(
+                    random.nextInt(20) - 10, 0, random.nextInt(20) - 10));
+
+            world.addPlayer(player.getPlayer());
+            players.add(player);
+        }
+    }
+
+    /**
+     * Writes the bundled configuration with the bell enabled
+     * right away and the configured raid check mode.
+     *
+     * @param dataFolder Data folder of the plugin
+     * @throws IOException If the file cannot be written
+     */
+    private void writeConfig(final File dataFolder) throws IOException {
+        final YamlConfiguration config;
+        try (InputStream stream = Raidhelper.class.getResourceAsStream("/config.yml")) {
+            config = stream == null ? new YamlConfiguration()
+                    : YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+        config.set("settings.mechanics.bell_work_delay", 0);
+        config.set("settings.raid_check.mode", settings.checkMode());
+        config.set("settings.worlds", List.of(WORLD_NAME));
+        config.save(new File(dataFolder, "config.yml"));
+    }
+
+    /**
+     * Spawns the first wave of every raid.
+     *
+     * @param server The stub server
+     * @param world  World of the raids
+     */
+    private void spawnWaves(final StubServer server, final StubWorld world) {
+        for (final StubRaid raid : raids) {
+            final List<Raider> raiders = raid.getRaid().getRaiders();
+            server.getPluginManager().callEvent(new RaidSpawnWaveEvent(
+                    raid.getRaid(), world.getWorld(), raiders.get(0), raiders));
+        }
+    }
+
+    /**
+     * Lets a random player ring the bell of the village it is in.
+     *
+     * @param server The stub server
+     * @param world  World of the bells
+     */
+    private void ringRandomBell(final StubServer server, final StubWorld world) {
+        final StubPlayer player = players.get(random.nextInt(players.size()));
+        final Location bell = player.getPlayer().getLocation().toBlockLocation();
+        final Block block = StubProxy.create(Block.class, "StubBell", (method, args) ->
+                switch (method.getName()) {
+                    case "getLocation" -> bell.clone();
+                    case "getWorld" -> world.getWorld();
+                    case "getX" -> bell.getBlockX();
+                    case "getY" -> bell.getBlockY();
+                    case "getZ" -> bell.getBlockZ();
+                    default -> StubProxy.defaultValue(method);
+                });
+
+        final long startNanos = System.nanoTime();
+        server.getPluginManager().callEvent(new BellRingEvent(block, BlockFace.NORTH, player.getPlayer()));
+        record(seriesBySubsystem, RING_EVENT, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records time spent by a subsystem in the current tick.
+     *
+     * @param series      Series of the thread the subsystem runs on
+     * @param subsystem   Name of the subsystem
+     * @param nanoseconds Time spent
+     */
+    private void record(final Map<String, TickSeries> series, final String subsystem, final long nanoseconds) {
+        if (measuredTick < 0) return;
+
+        series.computeIfAbsent(subsystem, name -> new TickSeries(name, settings.ticks()))
+              .add(measuredTick, nanoseconds);
+    }
+
+    /**
+     * Returns the series a stage is reported in. The cache
+     * join, the state write and the target search run off
+     * the main thread.
+     *
+     * @param stage The stage
+     * @return Series of the thread the stage runs on
+     */
+    private Map<String, TickSeries> seriesOf(final PerformanceStats.Stage stage) {
+        return switch (stage) {
+            case CACHE_JOIN, STATE_WRITE, TARGET_SEARCH -> asyncSeriesBySubsystem;
+            default -> seriesBySubsystem;
+        };
+    }
+
+    /**
+     * Records the time every pipeline stage took in the last tick.
+     *
+     * @param pipeline The tick pipeline of the plugin
+     */
+    private void recordStages(final TickPipeline pipeline) {
+        for (final PerformanceStats.Stage stage : PerformanceStats.Stage.values()) {
+            final long nanoseconds = pipeline.getLastTickNanos(stage);
+            if (nanoseconds > 0) record(seriesOf(stage), stage.getDisplayName(), nanoseconds);
+        }
+    }
+
+    /**
+     * Maps a scheduled task to the subsystem that scheduled it.
+     * Lambdas and method references are named after the class
+     * they were created in. The pipeline task is timed per
+     * stage by {@link #recordStages}, so it is skipped here.
+     * Async tasks are named after their stage; main thread
+     * tasks keep the name of their class, such as the cache
+     * invalidations handed back by the RaidCacheManager.
+     *
+     * @param action Runnable or Consumer of the task
+     * @param async  Whether the task runs off the main thread
+     * @return Name of the subsystem, or null to skip the task
+     */
+    static String subsystemOf(final Object action, final boolean async) {
+        String name = action.getClass().getName();
+
+        final int lambdaIndex = name.indexOf("$$Lambda");
+        if (lambdaIndex >= 0) name = name.substring(0, lambdaIndex);
+        name = name.substring(name.lastIndexOf('.') + 1);
+        final int innerIndex = name.indexOf('$');
+        if (innerIndex >= 0) name = name.substring(0, innerIndex);
+
+        if (!async) {
+            return name.equals(PIPELINE_TASK) ? null : name;
+        }
+        return switch (name) {
+            case CACHE_TASK -> PerformanceStats.Stage.CACHE_JOIN.getDisplayName();
+            case STORE_TASK -> PerformanceStats.Stage.STATE_WRITE.getDisplayName();
+            case FUTURE_TASK -> PerformanceStats.Stage.TARGET_SEARCH.getDisplayName();
+            default -> name;
+        };
+    }
+
+    /**
+     * Prints the report and checks the thresholds.
+     *
+     * @param out Stream to print the report to
+     * @return true if the run stayed within the thresholds
+     */
+    private boolean report(final PrintStream out) {
+        final TickSeries total = new TickSeries("main thread total", settings.ticks());
+        seriesBySubsystem.values().forEach(total::addAll);
+
+        int teleports = 0;
+        for (final StubRaid raid : raids) {
+            for (final StubRaider raider : raid.getStubRaiders()) {
+                teleports += raider.getTeleportCount();
+            }
+        }
+        int actionBars = 0;
+        for (final StubPlayer player : players) {
+            actionBars += player.getActionBarCount();
+        }
+
+        out.printf("RaidHelper load simulation: %d raids, %d players, %.1f rings/s, %d ticks (%s)%n",
+                settings.raids(), settings.players(), settings.ringsPerSecond(),
+                settings.ticks(), settings.checkMode());
+        out.printf("%-22s %10s %10s %10s %10s%n", "subsystem", "mean ms", "p50 ms", "p99 ms", "max ms");
+        for (final TickSeries series : seriesBySubsystem.values()) {
+            printRow(out, series);
+        }
+        printRow(out, total);
+        out.println("off the main thread:");
+        for (final TickSeries series : asyncSeriesBySubsystem.values()) {
+            printRow(out, series);
+        }
+        out.printf("raider teleports: %d%n", teleports);
+        out.printf("action bars: %d%n", actionBars);
+
+        final boolean meanPassed = total.meanMillis() <= settings.maxMeanTickMillis();
+        final boolean p99Passed = total.percentileMillis(99) <= settings.maxP99TickMillis();
+        if (!meanPassed) {
+            out.printf("FAILED: mean %.3f ms per tick is over %.3f ms%n",
+                    total.meanMillis(), settings.maxMeanTickMillis());
+        }
+        if (!p99Passed) {
+            out.printf("FAILED: p99 %.3f ms per tick is over %.3f ms%n",
+                    total.percentileMillis(99), settings.maxP99TickMillis());
+        }
+        return meanPassed && p99Passed;
+    }
+
+    /**
+     * Prints one row of the report.
+     *
+     * @param out    Stream to print to
+     * @param series Series to print
+     */
+    private void printRow(final PrintStream out, final TickSeries series) {
+        out.printf("%-22s %10.3f %10.3f %10.3f %10.3f%n", series.getName(), series.meanMillis(),
+                series.percentileMillis(50), series.percentileMillis(99), series.maxMillis());
+    }
+
+    /**
+     * Deletes a directory and its content.
+     *
+     * @param directory Directory to delete
+     * @throws IOException If a file cannot be deleted
+     */
+    static void deleteRecursively(final Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
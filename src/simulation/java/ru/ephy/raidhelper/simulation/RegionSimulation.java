@@ -0,0 +1,216 @@
+package ru.ephy.raidhelper.simulation;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Raider;
+import org.bukkit.event.raid.RaidSpawnWaveEvent;
+import ru.ephy.raidhelper.Raidhelper;
+import ru.ephy.raidhelper.SimulatedPlugin;
+import ru.ephy.raidhelper.platform.FoliaScheduler;
+import ru.ephy.raidhelper.stub.StubPlayer;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubRaider;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Region scenario for the Folia backend. Boots the plugin
+ * on the {@link FoliaScheduler} against the stub region
+ * scheduler with two raids in different regions and one
+ * player at each. The action bar of each player waits on
+ * a barrier for the other one, so the barrier only trips
+ * if both raids are notified at the same time on their
+ * own region threads. The stub checks region ownership
+ * the way Folia does, so every read of a player, raid or
+ * world off its region counts as a violation. Exits with
+ * status 1 if the raids were not processed in parallel or
+ * any violation was counted.
+ * Time in the plugin is counted in server ticks, so the
+ * ticks run back to back; every tick waits until the
+ * regions have run the work it handed to them.
+ */
+public final class RegionSimulation {
+
+    private static final String WORLD_NAME = "world";          // World monitored by the configuration
+    private static final int RAID_DISTANCE = 10_000;           // Blocks between the raids, two regions apart
+    private static final int RAIDERS_PER_RAID = 5;             // Raiders of every raid
+    private static final int TICKS = 60;                       // Ticks to run, enough for one notification
+    private static final long BARRIER_TIMEOUT_MILLIS = 5_000L; // Time a notification waits for the other region
+
+    private final List<StubRaid> raids = new ArrayList<>();
+    private final List<StubPlayer> players = new ArrayList<>();
+    private final Set<String> notifyThreads = ConcurrentHashMap.newKeySet(); // Threads that sent notifications
+    private final AtomicInteger overlaps = new AtomicInteger();              // Notifications that met the other region
+    private final AtomicInteger timeouts = new AtomicInteger();              // Notifications that waited in vain
+
+    /**
+     * Runs the scenario.
+     *
+     * @param args Unused
+     * @throws Exception If the scenario cannot be set up
+     */
+    public static void main(final String[] args) throws Exception {
+        if (!new RegionSimulation().run(System.out)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the scenario and prints the result.
+     *
+     * @param out Stream to print the result to
+     * @return true if both raids were processed in parallel
+     * @throws Exception If the scenario cannot be set up
+     */
+    public boolean run(final PrintStream out) throws Exception {
+        final StubServer server = StubServer.install();
+        server.reset();
+        server.getRegionScheduler().setOwnershipChecked(true);
+
+        final StubWorld world = server.createWorld(WORLD_NAME);
+        populate(world);
+
+        final CyclicBarrier barrier = new CyclicBarrier(players.size());
+        for (final StubPlayer player : players) {
+            player.setActionBarHook(() -> awaitOtherRegion(barrier));
+        }
+
+        final Path dataFolder = Files.createTempDirectory("raidhelper-regions");
+        writeConfig(dataFolder.toFile());
+
+        final Raidhelper plugin = SimulatedPlugin.load(server.getServer(), dataFolder.toFile());
+        SimulatedPlugin.useScheduler(plugin, new FoliaScheduler(plugin));
+        plugin.onEnable();
+        spawnWaves(server, world);
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            server.getScheduler().tick();
+            server.getRegionScheduler().awaitIdle(BARRIER_TIMEOUT_MILLIS * 2);
+        }
+
+        final int regionCount = server.getRegionScheduler().getRegionCount();
+        final int violations = server.getRegionScheduler().getOwnershipViolations();
+        plugin.onDisable();
+        server.reset();
+        LoadSimulation.deleteRecursively(dataFolder);
+
+        return report(out, regionCount, violations);
+    }
+
+    /**
+     * Creates two raids far apart and a player at each of them.
+     *
+     * @param world World to populate
+     */
+    private void populate(final StubWorld world) {
+        for (int index = 0; index < 2; index++) {
+            final Location center = new Location(world.getWorld(), index * RAID_DISTANCE, 64, 0);
+            final StubRaid raid = new StubRaid(index + 1, center);
+
+            for (int raider = 0; raider < RAIDERS_PER_RAID; raider++) {
+                raid.getStubRaiders().add(new StubRaider(raid, center.clone().add(raider, 0, 0)));
+            }
+            world.addRaid(raid);
+            raids.add(raid);
+
+            final StubPlayer player = new StubPlayer("player" + index, center.clone().add(2, 0, 2));
+            world.addPlayer(player.getPlayer());
+            players.add(player);
+        }
+    }
+
+    /**
+     * Writes the bundled configuration with the bell enabled
+     * right away and the player cache refreshed every pass.
+     *
+     * @param dataFolder Data folder of the plugin
+     * @throws IOException If the file cannot be written
+     */
+    private void writeConfig(final File dataFolder) throws IOException {
+        final YamlConfiguration config;
+        try (InputStream stream = Raidhelper.class.getResourceAsStream("/config.yml")) {
+            config = stream == null ? new YamlConfiguration()
+                    : YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+        config.set("settings.mechanics.bell_work_delay", 0);
+        config.set("settings.raid_check.cache_expire_time", 0);
+        config.set("settings.worlds", List.of(WORLD_NAME));
+        config.save(new File(dataFolder, "config.yml"));
+    }
+
+    /**
+     * Spawns the first wave of both raids.
+     *
+     * @param server The stub server
+     * @param world  World of the raids
+     */
+    private void spawnWaves(final StubServer server, final StubWorld world) {
+        for (final StubRaid raid : raids) {
+            final List<Raider> raiders = raid.getRaid().getRaiders();
+            server.getPluginManager().callEvent(new RaidSpawnWaveEvent(
+                    raid.getRaid(), world.getWorld(), raiders.get(0), raiders));
+        }
+    }
+
+    /**
+     * Waits for the notification of the other region.
+     *
+     * @param barrier Barrier shared by the notifications
+     */
+    private void awaitOtherRegion(final CyclicBarrier barrier) {
+        notifyThreads.add(Thread.currentThread().getName());
+        try {
+            barrier.await(BARRIER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            overlaps.incrementAndGet();
+        } catch (final TimeoutException | BrokenBarrierException exception) {
+            timeouts.incrementAndGet();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints the result and checks that both raids were
+     * notified at the same time on different threads.
+     *
+     * @param out         Stream to print to
+     * @param regionCount Regions that ran work
+     * @param violations  Reads of region state off its region
+     * @return true if the raids were processed in parallel without violations
+     */
+    private boolean report(final PrintStream out, final int regionCount, final int violations) {
+        out.printf("RaidHelper region simulation: %d raids, %d regions, %d ticks%n",
+                raids.size(), regionCount, TICKS);
+        out.printf("notifying threads: %s%n", notifyThreads);
+        out.printf("parallel notifications: %d, timed out: %d%n", overlaps.get(), timeouts.get());
+        out.printf("region ownership violations: %d%n", violations);
+
+        final boolean parallel = regionCount >= 2 && notifyThreads.size() >= 2
+                && overlaps.get() >= 2 && timeouts.get() == 0;
+        if (!parallel) {
+            out.println("FAILED: the raids were not processed in parallel on their regions");
+        }
+        if (violations > 0) {
+            out.println("FAILED: region state was read off the thread owning it");
+        }
+        return parallel && violations == 0;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.ephy.raidhelper.simulation;
+
+/**
+ * Parameters of a load simulation, read from system
+ * properties prefixed with {@code sim.}.
+ *
+ * @param raids             Number of concurrent raids
+ * @param raidersPerRaid    Raiders in every raid
+ * @param players           Number of players, spread over the raids
+ * @param ringsPerSecond    Bell rings per second across all players
+ * @param warmupTicks       Ticks run before measuring
+ * @param ticks             Ticks measured
+ * @param checkMode         Raid check mode of the plugin
+ * @param maxMeanTickMillis Fails the run if the mean plugin time per tick is higher
+ * @param maxP99TickMillis  Fails the run if the p99 plugin time per tick is higher
+ * @param seed              Seed of the random bell rings
+ */
+public record SimulationSettings(int raids, int raidersPerRaid, int players, double ringsPerSecond,
+                                 int warmupTicks, int ticks, String checkMode,
+                                 double maxMeanTickMillis, double maxP99TickMillis, long seed) {
+
+    /**
+     * Reads the settings from the system properties.
+     *
+     * @return The settings
+     */
+    public static SimulationSettings fromSystemProperties() {
+        return new SimulationSettings(
+                Integer.getInteger("sim.raids", 200),
+                Integer.getInteger("sim.raidersPerRaid", 8),
+                Integer.getInteger("sim.players", 100),
+                doubleProperty("sim.ringsPerSecond", 20),
+                Integer.getInteger("sim.warmupTicks", 200),
+                Integer.getInteger("sim.ticks", 2400),
+                System.getProperty("sim.checkMode", "SCHEDULER"),
+                doubleProperty("sim.maxMeanTickMillis", 1.0),
+                doubleProperty("sim.maxP99TickMillis", 5.0),
+                Long.getLong("sim.seed", 42L));
+    }
+
+    /**
+     * Reads a double system property.
+     *
+     * @param key          Name of the property
+     * @param defaultValue Value if the property is not set
+     * @return The value
+     */
+    private static double doubleProperty(final String key, final double defaultValue) {
+        final String value = System.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
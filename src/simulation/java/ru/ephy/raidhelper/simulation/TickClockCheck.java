@@ -0,0 +1,200 @@
+package ru.ephy.raidhelper.simulation;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import ru.ephy.raidhelper.SimulatedPlugin;
+import ru.ephy.raidhelper.config.Config;
+import ru.ephy.raidhelper.platform.PaperScheduler;
+import ru.ephy.raidhelper.raid.data.RaidData;
+import ru.ephy.raidhelper.raid.data.RaidManager;
+import ru.ephy.raidhelper.raid.scheduler.raidstatemanager.RaidCacheManager;
+import ru.ephy.raidhelper.stats.PerformanceStats;
+import ru.ephy.raidhelper.stub.ManualTickClock;
+import ru.ephy.raidhelper.stub.StubPlayer;
+import ru.ephy.raidhelper.stub.StubRaid;
+import ru.ephy.raidhelper.stub.StubServer;
+import ru.ephy.raidhelper.stub.StubWorld;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Drives the bell delay, the bell cooldown and the player
+ * cache expiry of one raid with a {@link ManualTickClock}
+ * and checks that each changes on the exact tick it should.
+ * Nothing depends on wall clock time, so every run gives
+ * the same result. Exits with status 1 if a check fails.
+ */
+public final class TickClockCheck {
+
+    private static final String WORLD_NAME = "world"; // World of the raid
+    private static final long START_TICK = 1_000L;    // Tick the clock starts at
+    private static final long BELL_DELAY = 40L;       // Ticks before the bell works in a wave
+    private static final long COOLDOWN = 60L;         // Ticks the bell is on cooldown
+    private static final int CACHE_EXPIRE = 100;      // Ticks after which the player cache is refreshed
+
+    private final ManualTickClock clock = new ManualTickClock(START_TICK);
+
+    private PrintStream out;
+    private int failures;
+
+    /**
+     * Runs the check.
+     *
+     * @param args Unused
+     * @throws IOException If the data folder cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (!new TickClockCheck().run(System.out)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the check and prints the result.
+     *
+     * @param out Stream to print the result to
+     * @return true if every check passed
+     * @throws IOException If the data folder cannot be written
+     */
+    public boolean run(final PrintStream out) throws IOException {
+        this.out = out;
+        final StubServer server = StubServer.install();
+        server.reset();
+
+        final StubWorld world = server.createWorld(WORLD_NAME);
+        final StubRaid raid = new StubRaid(1, new Location(world.getWorld(), 0, 64, 0));
+        world.addRaid(raid);
+        final StubPlayer player = new StubPlayer("player", raid.getLocation().clone().add(2, 0, 2));
+        world.addPlayer(player.getPlayer());
+
+        final Path dataFolder = Files.createTempDirectory("raidhelper-clock");
+        final PaperScheduler platformScheduler = new PaperScheduler(
+                SimulatedPlugin.load(server.getServer(), dataFolder.toFile()));
+        final PerformanceStats stats = new PerformanceStats();
+        final RaidManager raidManager = new RaidManager(clock);
+        final RaidCacheManager cacheManager = new RaidCacheManager(
+                platformScheduler, raidManager, clock, createConfig(server), stats);
+        raidManager.addListener(cacheManager);
+        raidManager.addRaidIfAbsent(raid.getRaid());
+
+        final RaidData raidData = raidManager.getRaids(world.getWorld()).get(0);
+        out.println("RaidHelper tick clock check");
+        checkBellDelay(raidData);
+        checkCooldown(raidData);
+        checkCacheExpiry(server, cacheManager, raidData, stats);
+
+        server.reset();
+        LoadSimulation.deleteRecursively(dataFolder);
+
+        if (failures > 0) {
+            out.printf("FAILED: %d checks failed%n", failures);
+        }
+        return failures == 0;
+    }
+
+    /**
+     * Checks that the bell works from the tick its delay
+     * ends until the wave ends.
+     *
+     * @param raidData The raid
+     */
+    private void checkBellDelay(final RaidData raidData) {
+        raidData.startWave(clock.getCurrentTick(), BELL_DELAY);
+
+        check("bell does not work when the wave starts", !raidData.isTeleportEnabled(clock.getCurrentTick()));
+        clock.advance(BELL_DELAY - 1);
+        check("bell does not work one tick before the delay ends",
+                !raidData.isTeleportEnabled(clock.getCurrentTick()));
+        clock.advance(1);
+        check("bell works on the tick the delay ends", raidData.isTeleportEnabled(clock.getCurrentTick()));
+
+        raidData.endWave();
+        check("bell does not work after the wave", !raidData.isTeleportEnabled(clock.getCurrentTick()));
+    }
+
+    /**
+     * Checks that the cooldown lasts exactly its duration.
+     *
+     * @param raidData The raid
+     */
+    private void checkCooldown(final RaidData raidData) {
+        raidData.startCooldown(clock.getCurrentTick(), COOLDOWN);
+
+        check("cooldown is active when it starts", raidData.isCooldownActive(clock.getCurrentTick()));
+        clock.advance(COOLDOWN - 1);
+        check("cooldown is active on its last tick", raidData.isCooldownActive(clock.getCurrentTick()));
+        clock.advance(1);
+        check("cooldown is over after its duration", !raidData.isCooldownActive(clock.getCurrentTick()));
+    }
+
+    /**
+     * Checks that the player cache of the raid is joined
+     * when the raid is registered, left alone while it is
+     * fresh and refreshed on the first tick after it expires.
+     *
+     * @param server       The stub server, runs the async join
+     * @param cacheManager The cache stage
+     * @param raidData     The raid
+     * @param stats        Counts the refreshes
+     */
+    private void checkCacheExpiry(final StubServer server, final RaidCacheManager cacheManager,
+                                  final RaidData raidData, final PerformanceStats stats) {
+        final long joinedTick = clock.getCurrentTick();
+        refresh(server, cacheManager);
+        check("new raid is joined on the next pass", !raidData.isCacheStale()
+                && raidData.getLastUpdatedTime() == joinedTick && raidData.getPlayersWithinRaid().size() == 1);
+
+        clock.advance(CACHE_EXPIRE);
+        check("fresh cache is not refreshed", cacheManager.getCadence() == 0);
+        refresh(server, cacheManager);
+        check("fresh cache keeps its tick", raidData.getLastUpdatedTime() == joinedTick);
+
+        clock.advance(1);
+        check("expired cache is refreshed", cacheManager.getCadence() == 1);
+        refresh(server, cacheManager);
+        check("refreshed cache restarts its expiry", raidData.getLastUpdatedTime() == clock.getCurrentTick()
+                && stats.getCacheRefreshes().sum() == 2);
+    }
+
+    /**
+     * Runs the cache stage if it has work and lets the
+     * stub scheduler run the async join.
+     *
+     * @param server       The stub server
+     * @param cacheManager The cache stage
+     */
+    private void refresh(final StubServer server, final RaidCacheManager cacheManager) {
+        if (cacheManager.getCadence() > 0) {
+            cacheManager.run(null);
+        }
+        server.getScheduler().tick();
+    }
+
+    /**
+     * Prints the outcome of one check and counts it if it failed.
+     *
+     * @param name   What was checked
+     * @param passed Whether the check passed
+     */
+    private void check(final String name, final boolean passed) {
+        out.printf("%-50s %s%n", name, passed ? "ok" : "FAILED");
+        if (!passed) failures++;
+    }
+
+    /**
+     * Creates a configuration monitoring the world of the raid.
+     *
+     * @param server The stub server
+     * @return The configuration
+     */
+    private Config createConfig(final StubServer server) {
+        final YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("settings.worlds", List.of(WORLD_NAME));
+        yaml.set("settings.raid_check.cache_expire_time", CACHE_EXPIRE);
+        return new Config(yaml, server.getLogger());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.ephy.raidhelper.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Time spent by one subsystem in every measured tick.
+ */
+final class TickSeries {
+
+    private final String name;      // Name of the subsystem
+    private final long[] tickNanos; // Time spent per tick
+
+    /**
+     * Creates an empty series.
+     *
+     * @param name  Name of the subsystem
+     * @param ticks Number of measured ticks
+     */
+    TickSeries(final String name, final int ticks) {
+        this.name = name;
+        tickNanos = new long[ticks];
+    }
+
+    /**
+     * Adds time spent in the given tick.
+     *
+     * @param tick        Index of the measured tick
+     * @param nanoseconds Time spent
+     */
+    void add(final int tick, final long nanoseconds) {
+        tickNanos[tick] += nanoseconds;
+    }
+
+    /**
+     * Adds every tick of the other series to this one.
+     *
+     * @param other Series to add
+     */
+    void addAll(final TickSeries other) {
+        for (int tick = 0; tick < tickNanos.length; tick++) {
+            tickNanos[tick] += other.tickNanos[tick];
+        }
+    }
+
+    /**
+     * Returns the name of the subsystem.
+     *
+     * @return Name of the subsystem
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the mean time per tick.
+     *
+     * @return Mean in milliseconds
+     */
+    double meanMillis() {
+        return Arrays.stream(tickNanos).average().orElse(0) / 1_000_000.0;
+    }
+
+    /**
+     * Returns a percentile of the time per tick.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Percentile in milliseconds
+     */
+    double percentileMillis(final double percentile) {
+        if (tickNanos.length == 0) return 0;
+
+        final long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    /**
+     * Returns the longest time per tick.
+     *
+     * @return Max in milliseconds
+     */
+    double maxMillis() {
+        return Arrays.stream(tickNanos).max().orElse(0) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.ephy.raidhelper.stub;
+
+import ru.ephy.raidhelper.platform.TickClock;
+
+/**
+ * Tick clock that only moves when it is told to, so the
+ * cache expiry, bell delays and cooldowns can be driven
+ * tick by tick without a server.
+ */
+public final class ManualTickClock implements TickClock {
+
+    private volatile long currentTick; // Tick the clock is at
+
+    /**
+     * Creates a clock at tick 0.
+     */
+    public ManualTickClock() {
+        this(0L);
+    }
+
+    /**
+     * Creates a clock at the given tick.
+     *
+     * @param currentTick Tick to start at
+     */
+    public ManualTickClock(final long currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    @Override
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param ticks Ticks to move by
+     */
+    public void advance(final long ticks) {
+        currentTick += ticks;
+    }
+
+    /**
+     * Moves the clock to a tick.
+     *
+     * @param tick Tick to move to
+     */
+    public void set(final long tick) {
+        currentTick = tick;
+    }
+}
@@ -0,0 +1,141 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Stand-in for a {@link Player} that counts the messages it receives.
+ * Messages may be sent from region threads, so the counters are volatile.
+ */
+public final class StubPlayer {
+
+    private final UUID uniqueId = UUID.randomUUID(); // Unique id of the player
+    private final String name;                       // Name of the player
+    private final Player player;                     // The Player stub
+    private volatile Location location;              // Current location of the player, read by region threads
+    private Locale locale = Locale.US;               // Client locale of the player
+    private volatile Runnable actionBarHook;         // Run for every action bar, or null
+    private volatile int actionBarCount;             // Action bars received
+    private volatile int messageCount;               // Chat messages received
+
+    /**
+     * Creates a player at the location.
+     *
+     * @param name     Name of the player
+     * @param location Location of the player
+     */
+    public StubPlayer(final String name, final Location location) {
+        this.name = name;
+        this.location = location.clone();
+        player = StubProxy.create(Player.class, "StubPlayer{" + name + "}", (method, args) ->
+                switch (method.getName()) {
+                    case "getName" -> name;
+                    case "getUniqueId" -> uniqueId;
+                    case "getWorld" -> this.location.getWorld();
+                    case "getLocation" -> {
+                        StubServer.checkOwned(this.location);
+                        yield args.length == 0 ? this.location.clone() : copyInto((Location) args[0]);
+                    }
+                    case "hasPotionEffect" -> {
+                        StubServer.checkOwned(this.location);
+                        yield false;
+                    }
+                    case "getScheduler" -> StubServer.install().getRegionScheduler()
+                            .entityScheduler(() -> this.location);
+                    case "locale" -> locale;
+                    case "isOnline", "isValid" -> true;
+                    case "sendActionBar" -> {
+                        final Runnable hook = actionBarHook;
+                        if (hook != null) hook.run();
+                        actionBarCount++;
+                        yield null;
+                    }
+                    case "sendMessage" -> {
+                        messageCount++;
+                        yield null;
+                    }
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the Player stub.
+     *
+     * @return The Player stub
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the name of the player.
+     *
+     * @return Name of the player
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Moves the player.
+     *
+     * @param location New location
+     */
+    public void setLocation(final Location location) {
+        this.location = location.clone();
+    }
+
+    /**
+     * Sets the client locale of the player.
+     *
+     * @param locale New locale
+     */
+    public void setLocale(final Locale locale) {
+        this.locale = locale;
+    }
+
+    /**
+     * Sets work that runs on the sending thread for every
+     * action bar the player receives.
+     *
+     * @param actionBarHook Work to run, or null to remove it
+     */
+    public void setActionBarHook(final Runnable actionBarHook) {
+        this.actionBarHook = actionBarHook;
+    }
+
+    /**
+     * Returns how many action bars the player received.
+     *
+     * @return Number of action bars
+     */
+    public int getActionBarCount() {
+        return actionBarCount;
+    }
+
+    /**
+     * Returns how many chat messages the player received.
+     *
+     * @return Number of messages
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Copies the location of the player into the given location.
+     *
+     * @param target Location to copy into
+     * @return The given location
+     */
+    private Location copyInto(final Location target) {
+        target.setWorld(location.getWorld());
+        target.setX(location.getX());
+        target.setY(location.getY());
+        target.setZ(location.getZ());
+        return target;
+    }
+}
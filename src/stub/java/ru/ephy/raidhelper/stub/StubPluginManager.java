@@ -0,0 +1,117 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stand-in for the {@link PluginManager} that registers
+ * listeners and dispatches events to their
+ * {@link EventHandler} methods in priority order.
+ */
+public final class StubPluginManager {
+
+    private final PluginManager pluginManager;               // The PluginManager stub
+    private final List<RegisteredHandler> handlers = new ArrayList<>(); // Registered event handlers
+    private boolean pluginDisabled;                          // Whether a plugin asked to be disabled
+
+    /**
+     * Creates a plugin manager without listeners.
+     */
+    public StubPluginManager() {
+        pluginManager = StubProxy.create(PluginManager.class, "StubPluginManager", (method, args) ->
+                switch (method.getName()) {
+                    case "registerEvents" -> {
+                        registerEvents((Listener) args[0]);
+                        yield null;
+                    }
+                    case "callEvent" -> {
+                        callEvent((Event) args[0]);
+                        yield null;
+                    }
+                    case "disablePlugin" -> {
+                        pluginDisabled = true;
+                        yield null;
+                    }
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the PluginManager stub.
+     *
+     * @return The PluginManager stub
+     */
+    public PluginManager getPluginManager() {
+        return pluginManager;
+    }
+
+    /**
+     * Returns whether a plugin asked to be disabled.
+     *
+     * @return true if disablePlugin was called
+     */
+    public boolean isPluginDisabled() {
+        return pluginDisabled;
+    }
+
+    /**
+     * Dispatches the event to every handler that accepts it.
+     *
+     * @param event Event to dispatch
+     */
+    public void callEvent(final Event event) {
+        for (final RegisteredHandler handler : handlers) {
+            if (!handler.type().isInstance(event)) continue;
+            if (handler.ignoreCancelled() && event instanceof final Cancellable cancellable
+                    && cancellable.isCancelled()) continue;
+
+            try {
+                handler.method().invoke(handler.listener(), event);
+            } catch (final IllegalAccessException exception) {
+                throw new IllegalStateException(exception);
+            } catch (final InvocationTargetException exception) {
+                throw new IllegalStateException("Event handler failed: " + handler.method(), exception.getCause());
+            }
+        }
+    }
+
+    /**
+     * Removes every listener and clears the disabled flag.
+     */
+    public void reset() {
+        handlers.clear();
+        pluginDisabled = false;
+    }
+
+    /**
+     * Registers the event handler methods of the listener.
+     *
+     * @param listener Listener to register
+     */
+    private void registerEvents(final Listener listener) {
+        for (final Method method : listener.getClass().getMethods()) {
+            final EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.getParameterCount() != 1) continue;
+
+            handlers.add(new RegisteredHandler(listener, method, method.getParameterTypes()[0],
+                    annotation.priority().getSlot(), annotation.ignoreCancelled()));
+        }
+        handlers.sort(Comparator.comparingInt(RegisteredHandler::priority));
+    }
+
+    /**
+     * An event handler method of a listener.
+     */
+    private record RegisteredHandler(Listener listener, Method method, Class<?> type,
+                                     int priority, boolean ignoreCancelled) {
+    }
+}
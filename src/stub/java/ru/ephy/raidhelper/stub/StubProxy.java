@@ -0,0 +1,88 @@
+package ru.ephy.raidhelper.stub;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates lightweight stand-ins for Bukkit interfaces.
+ * Only the methods a stub handles do anything; every
+ * other method returns the default value of its return
+ * type. Stubs are equal by identity.
+ */
+public final class StubProxy {
+
+    private StubProxy() {
+    }
+
+    /**
+     * Handles the calls of a stub.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Handles a call made on the stub.
+         *
+         * @param method Method that was called
+         * @param args   Arguments of the call, never null
+         * @return Result of the call
+         * @throws Throwable If the call fails
+         */
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Creates a stub of the interface.
+     *
+     * @param type    Interface to implement
+     * @param name    Name returned by toString
+     * @param handler Handler of the calls
+     * @param <T>     Type of the interface
+     * @return The stub
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(final Class<T> type, final String name, final Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            final Object[] arguments = args == null ? new Object[0] : args;
+
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == arguments[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> name;
+                };
+            }
+            return handler.handle(method, arguments);
+        });
+    }
+
+    /**
+     * Returns the default value for the return type of the method.
+     *
+     * @param method Method to get the default value for
+     * @return Zero, false, an empty collection or null
+     */
+    public static Object defaultValue(final Method method) {
+        final Class<?> type = method.getReturnType();
+
+        if (!type.isPrimitive()) {
+            if (type == List.class || type == Collection.class) return List.of();
+            if (type == Set.class) return Set.of();
+            if (type == Map.class) return Map.of();
+            return null;
+        }
+        if (type == boolean.class) return false;
+        if (type == void.class) return null;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0F;
+        return 0D;
+    }
+}
@@ -0,0 +1,108 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.Location;
+import org.bukkit.Raid;
+import org.bukkit.entity.Raider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for an ongoing {@link Raid} at a fixed center.
+ */
+public final class StubRaid {
+
+    private final int id;                                     // Id of the raid
+    private final Location location;                          // Center of the raid
+    private final Raid raid;                                  // The Raid stub
+    private final List<StubRaider> raiders = new ArrayList<>(); // Raiders of the raid
+    private Raid.RaidStatus status = Raid.RaidStatus.ONGOING; // Status of the raid
+
+    /**
+     * Creates a raid centered at the location.
+     *
+     * @param id       Id of the raid
+     * @param location Center of the raid
+     */
+    public StubRaid(final int id, final Location location) {
+        this.id = id;
+        this.location = location;
+        raid = StubProxy.create(Raid.class, "StubRaid{" + id + "}", (method, args) ->
+                switch (method.getName()) {
+                    case "getId" -> id;
+                    case "getLocation" -> location.clone(); // The server returns a new Location as well
+                    case "getRaiders" -> {
+                        StubServer.checkOwned(location);
+                        yield raiderList();
+                    }
+                    case "getTotalRaidersAlive" -> {
+                        StubServer.checkOwned(location);
+                        yield raiders.size();
+                    }
+                    case "getStatus" -> {
+                        StubServer.checkOwned(location);
+                        yield status;
+                    }
+                    case "isStarted" -> true;
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the id of the raid.
+     *
+     * @return Id of the raid
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the center of the raid.
+     *
+     * @return Center of the raid, must not be modified
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the Raid stub.
+     *
+     * @return The Raid stub
+     */
+    public Raid getRaid() {
+        return raid;
+    }
+
+    /**
+     * Returns the stub raiders of the raid.
+     *
+     * @return Raiders of the raid
+     */
+    public List<StubRaider> getStubRaiders() {
+        return raiders;
+    }
+
+    /**
+     * Sets the status of the raid.
+     *
+     * @param status New status
+     */
+    public void setStatus(final Raid.RaidStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Builds a fresh list of the raiders, like the server does.
+     *
+     * @return Raiders of the raid
+     */
+    private List<Raider> raiderList() {
+        final List<Raider> result = new ArrayList<>(raiders.size());
+        for (final StubRaider raider : raiders) {
+            result.add(raider.getRaider());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Raider;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stand-in for a {@link Raider} that can be teleported.
+ */
+public final class StubRaider {
+
+    private final UUID uniqueId = UUID.randomUUID(); // Unique id of the raider
+    private final Raider raider;                     // The Raider stub
+    private final StubRaid raid;                     // Raid the raider belongs to
+    private volatile Location location;              // Current location of the raider, read by region threads
+    private int teleportCount;                       // Times the raider was teleported
+
+    /**
+     * Creates a raider of the raid at the location.
+     *
+     * @param raid     Raid the raider belongs to
+     * @param location Location of the raider
+     */
+    public StubRaider(final StubRaid raid, final Location location) {
+        this.raid = raid;
+        this.location = location.clone();
+        raider = StubProxy.create(Raider.class, "StubRaider{" + uniqueId + "}", (method, args) ->
+                switch (method.getName()) {
+                    case "getUniqueId" -> uniqueId;
+                    case "getRaid" -> raid.getRaid();
+                    case "getWorld" -> this.location.getWorld();
+                    case "getLocation" -> {
+                        StubServer.checkOwned(this.location);
+                        yield args.length == 0 ? this.location.clone() : copyInto((Location) args[0]);
+                    }
+                    case "getScheduler" -> StubServer.install().getRegionScheduler()
+                            .entityScheduler(() -> this.location);
+                    case "teleport" -> teleport((Location) args[0]);
+                    case "teleportAsync" -> CompletableFuture.completedFuture(teleport((Location) args[0]));
+                    case "isValid", "isInWorld" -> true;
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the Raider stub.
+     *
+     * @return The Raider stub
+     */
+    public Raider getRaider() {
+        return raider;
+    }
+
+    /**
+     * Returns the raid of the raider.
+     *
+     * @return The raid
+     */
+    public StubRaid getRaid() {
+        return raid;
+    }
+
+    /**
+     * Returns how many times the raider was teleported.
+     *
+     * @return Number of teleports
+     */
+    public int getTeleportCount() {
+        return teleportCount;
+    }
+
+    /**
+     * Moves the raider.
+     *
+     * @param target Target location
+     * @return Always true
+     */
+    private boolean teleport(final Location target) {
+        location = target.clone();
+        teleportCount++;
+        return true;
+    }
+
+    /**
+     * Copies the location of the raider into the given location.
+     *
+     * @param target Location to copy into
+     * @return The given location
+     */
+    private Location copyInto(final Location target) {
+        target.setWorld(location.getWorld());
+        target.setX(location.getX());
+        target.setY(location.getY());
+        target.setZ(location.getZ());
+        return target;
+    }
+}
@@ -0,0 +1,327 @@
+package ru.ephy.raidhelper.stub;
+
+import io.papermc.paper.threadedregions.scheduler.AsyncScheduler;
+import io.papermc.paper.threadedregions.scheduler.EntityScheduler;
+import io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler;
+import io.papermc.paper.threadedregions.scheduler.RegionScheduler;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Stand-in for the Folia schedulers. The global region is
+ * the thread calling {@link StubScheduler#tick()}, so global
+ * and async tasks go through the {@link StubScheduler}.
+ * Every region of 32 by 32 chunks gets its own thread, so
+ * work for locations in different regions runs in parallel.
+ * Entity work runs on the region of the entity's location.
+ * <p>
+ * With ownership checks on, the stub worlds, players, raids
+ * and raiders reject reads of region state from threads that
+ * do not own it, the way Folia's thread checks do, and count
+ * every rejected read.
+ */
+public final class StubRegionScheduler {
+
+    private static final int REGION_SHIFT = 5; // Chunks per region side as a power of two
+
+    private final GlobalRegionScheduler globalRegionScheduler;                // The GlobalRegionScheduler stub
+    private final RegionScheduler regionScheduler;                            // The RegionScheduler stub
+    private final AsyncScheduler asyncScheduler;                              // The AsyncScheduler stub
+    private final Map<RegionKey, ExecutorService> regions = new HashMap<>();  // Thread of every region
+    private final ThreadLocal<RegionKey> currentRegion = new ThreadLocal<>(); // Region of the current thread
+    private final AtomicInteger ownershipViolations = new AtomicInteger();    // Reads rejected by the checks
+    private volatile boolean ownershipChecked;                                 // Whether region reads are checked
+
+    /**
+     * Creates the schedulers on top of the stub scheduler.
+     *
+     * @param scheduler Runs the global and async tasks
+     */
+    public StubRegionScheduler(final StubScheduler scheduler) {
+        globalRegionScheduler = StubProxy.create(GlobalRegionScheduler.class, "StubGlobalRegionScheduler",
+                (method, args) -> switch (method.getName()) {
+                    case "execute" -> {
+                        scheduler.getScheduler().runTask(null, (Runnable) args[1]);
+                        yield null;
+                    }
+                    case "run" -> wrap(scheduler.getScheduler().runTask(null, consumerTask(args[1])));
+                    case "runAtFixedRate" -> wrap(scheduler.getScheduler().runTaskTimer(
+                            null, consumerTask(args[1]), (long) args[2], (long) args[3]));
+                    default -> StubProxy.defaultValue(method);
+                });
+        regionScheduler = StubProxy.create(RegionScheduler.class, "StubRegionScheduler",
+                (method, args) -> switch (method.getName()) {
+                    case "execute" -> {
+                        if (args.length == 3) {
+                            execute((Location) args[1], (Runnable) args[2]);
+                        } else {
+                            execute(new RegionKey((World) args[1], (int) args[2] >> REGION_SHIFT,
+                                    (int) args[3] >> REGION_SHIFT), (Runnable) args[4]);
+                        }
+                        yield null;
+                    }
+                    default -> StubProxy.defaultValue(method);
+                });
+        asyncScheduler = StubProxy.create(AsyncScheduler.class, "StubAsyncScheduler",
+                (method, args) -> switch (method.getName()) {
+                    case "runNow" -> wrap(scheduler.getScheduler().runTaskAsynchronously(
+                            null, consumerTask(args[1])));
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the GlobalRegionScheduler stub.
+     *
+     * @return The GlobalRegionScheduler stub
+     */
+    public GlobalRegionScheduler getGlobalRegionScheduler() {
+        return globalRegionScheduler;
+    }
+
+    /**
+     * Returns the RegionScheduler stub.
+     *
+     * @return The RegionScheduler stub
+     */
+    public RegionScheduler getRegionScheduler() {
+        return regionScheduler;
+    }
+
+    /**
+     * Returns the AsyncScheduler stub.
+     *
+     * @return The AsyncScheduler stub
+     */
+    public AsyncScheduler getAsyncScheduler() {
+        return asyncScheduler;
+    }
+
+    /**
+     * Creates an entity scheduler that runs work on the
+     * region owning the entity's current location.
+     *
+     * @param location Current location of the entity
+     * @return The EntityScheduler stub
+     */
+    public EntityScheduler entityScheduler(final Supplier<Location> location) {
+        return StubProxy.create(EntityScheduler.class, "StubEntityScheduler",
+                (method, args) -> switch (method.getName()) {
+                    case "run" -> {
+                        execute(location.get(), consumerTask(args[1]));
+                        yield StubProxy.create(ScheduledTask.class, "StubEntityTask",
+                                (taskMethod, taskArgs) -> StubProxy.defaultValue(taskMethod));
+                    }
+                    case "execute" -> {
+                        execute(location.get(), (Runnable) args[1]);
+                        yield true;
+                    }
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Turns the ownership checks on or off. They are off by
+     * default, as on Paper the main thread owns everything.
+     *
+     * @param ownershipChecked Whether region reads are checked
+     */
+    public void setOwnershipChecked(final boolean ownershipChecked) {
+        this.ownershipChecked = ownershipChecked;
+    }
+
+    /**
+     * Returns how many reads the ownership checks rejected.
+     *
+     * @return Number of rejected reads
+     */
+    public int getOwnershipViolations() {
+        return ownershipViolations.get();
+    }
+
+    /**
+     * Rejects a read of the state at a location from a
+     * thread that does not own it.
+     *
+     * @param location Location of the state
+     * @throws IllegalStateException If the checks are on and the thread does not own the location
+     */
+    public void checkOwned(final Location location) {
+        if (ownershipChecked && !isOwnedByCurrentRegion(location)) {
+            reject("Location " + RegionKey.of(location));
+        }
+    }
+
+    /**
+     * Rejects a read of the state of a world from a thread
+     * that is not a region thread.
+     *
+     * @throws IllegalStateException If the checks are on and the thread is not a region thread
+     */
+    public void checkRegionThread() {
+        if (ownershipChecked && isGlobalTickThread()) {
+            reject("World state");
+        }
+    }
+
+    /**
+     * Tells whether the current thread ticks the global region.
+     *
+     * @return true if the current thread is not a region thread
+     */
+    public boolean isGlobalTickThread() {
+        return currentRegion.get() == null;
+    }
+
+    /**
+     * Tells whether the current thread owns the location.
+     *
+     * @param location Location to check
+     * @return true if the current thread is the thread of its region
+     */
+    public boolean isOwnedByCurrentRegion(final Location location) {
+        return RegionKey.of(location).equals(currentRegion.get());
+    }
+
+    /**
+     * Runs work on the thread of the region owning the location.
+     *
+     * @param location Location the work touches
+     * @param task     Work to run
+     */
+    public void execute(final Location location, final Runnable task) {
+        execute(RegionKey.of(location), task);
+    }
+
+    /**
+     * Returns the number of regions that have run work.
+     *
+     * @return Number of region threads
+     */
+    public synchronized int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Waits until every region has run the work handed to
+     * it so far.
+     *
+     * @param timeoutMillis Max time to wait per region
+     * @throws Exception If a region does not finish in time
+     */
+    public void awaitIdle(final long timeoutMillis) throws Exception {
+        final List<Future<?>> markers = new ArrayList<>();
+        synchronized (this) {
+            for (final ExecutorService region : regions.values()) {
+                markers.add(region.submit(() -> { }));
+            }
+        }
+        for (final Future<?> marker : markers) {
+            marker.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the region threads and turns the ownership
+     * checks off. Work that has not started is dropped.
+     */
+    public synchronized void reset() {
+        regions.values().forEach(ExecutorService::shutdownNow);
+        regions.clear();
+        ownershipChecked = false;
+        ownershipViolations.set(0);
+    }
+
+    /**
+     * Runs work on the thread of a region, creating the
+     * thread on first use.
+     *
+     * @param key  Region to run the work on
+     * @param task Work to run
+     */
+    private synchronized void execute(final RegionKey key, final Runnable task) {
+        regions.computeIfAbsent(key, region -> Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(() -> {
+                currentRegion.set(region);
+                runnable.run();
+            }, "Region " + region.regionX() + "," + region.regionZ());
+            thread.setDaemon(true);
+            return thread;
+        })).execute(task);
+    }
+
+    /**
+     * Counts and rejects a read from the wrong thread.
+     *
+     * @param state State that was read
+     * @throws IllegalStateException Always
+     */
+    private void reject(final String state) {
+        ownershipViolations.incrementAndGet();
+        throw new IllegalStateException(state + " read off its region on " + Thread.currentThread().getName());
+    }
+
+    /**
+     * Adapts a Folia task consumer to a Bukkit runnable.
+     *
+     * @param consumer Consumer of the scheduled task
+     * @return Runnable calling the consumer
+     */
+    @SuppressWarnings("unchecked")
+    private static Runnable consumerTask(final Object consumer) {
+        return () -> ((Consumer<ScheduledTask>) consumer).accept(null);
+    }
+
+    /**
+     * Wraps a Bukkit task into a ScheduledTask stub.
+     *
+     * @param bukkitTask Task to wrap
+     * @return The ScheduledTask stub
+     */
+    private static ScheduledTask wrap(final BukkitTask bukkitTask) {
+        return StubProxy.create(ScheduledTask.class, "StubScheduledTask{" + bukkitTask.getTaskId() + "}",
+                (method, args) -> switch (method.getName()) {
+                    case "cancel" -> {
+                        bukkitTask.cancel();
+                        yield ScheduledTask.CancelledState.CANCELLED_BY_CALLER;
+                    }
+                    case "isCancelled" -> bukkitTask.isCancelled();
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Identifies a region of a world.
+     *
+     * @param world   World of the region
+     * @param regionX Region x coordinate
+     * @param regionZ Region z coordinate
+     */
+    private record RegionKey(World world, int regionX, int regionZ) {
+
+        /**
+         * Returns the region owning the location.
+         *
+         * @param location Location to look up
+         * @return The region
+         */
+        private static RegionKey of(final Location location) {
+            return new RegionKey(location.getWorld(),
+                    location.getBlockX() >> 4 >> REGION_SHIFT, location.getBlockZ() >> 4 >> REGION_SHIFT);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Deterministic stand-in for the {@link BukkitScheduler}.
+ * Time only moves when {@link #tick()} is called; async
+ * tasks run inline on the calling thread after the sync
+ * tasks of the same tick. Tasks may be scheduled from any
+ * thread, as the stub region threads hand work back to the
+ * global region through it.
+ */
+public final class StubScheduler {
+
+    private final BukkitScheduler scheduler;             // The BukkitScheduler stub
+    private final List<StubTask> tasks = new ArrayList<>(); // Scheduled tasks
+
+    private TaskObserver taskObserver;                   // Notified about the duration of every task run
+    private int nextTaskId = 1;                          // Id of the next task
+    private int runningTaskId = -1;                      // Id of the task being run
+    private volatile long currentTick;                   // Ticks since the start, read by the scheduling threads
+
+    /**
+     * Creates an empty scheduler.
+     */
+    public StubScheduler() {
+        scheduler = StubProxy.create(BukkitScheduler.class, "StubScheduler", (method, args) ->
+                switch (method.getName()) {
+                    case "runTask" -> schedule(args[1], 0L, -1L, false);
+                    case "runTaskAsynchronously" -> schedule(args[1], 0L, -1L, true);
+                    case "runTaskLater" -> schedule(args[1], (long) args[2], -1L, false);
+                    case "runTaskLaterAsynchronously" -> schedule(args[1], (long) args[2], -1L, true);
+                    case "runTaskTimer" -> schedule(args[1], (long) args[2], (long) args[3], false);
+                    case "runTaskTimerAsynchronously" -> schedule(args[1], (long) args[2], (long) args[3], true);
+                    case "cancelTask" -> {
+                        cancelTask((int) args[0]);
+                        yield null;
+                    }
+                    case "isCurrentlyRunning" -> runningTaskId == (int) args[0];
+                    case "isQueued" -> findTask((int) args[0]) != null;
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the BukkitScheduler stub.
+     *
+     * @return The BukkitScheduler stub
+     */
+    public BukkitScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the number of ticks run so far.
+     *
+     * @return Current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Returns the number of scheduled tasks.
+     *
+     * @return Number of pending tasks
+     */
+    public int getPendingTaskCount() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    /**
+     * Sets the observer notified after every task run.
+     *
+     * @param taskObserver The observer, or null to remove it
+     */
+    public void setTaskObserver(final TaskObserver taskObserver) {
+        this.taskObserver = taskObserver;
+    }
+
+    /**
+     * Runs one tick: sync tasks first, then async tasks.
+     */
+    public void tick() {
+        currentTick++;
+        runDue(false);
+        runDue(true);
+    }
+
+    /**
+     * Runs the given number of ticks.
+     *
+     * @param ticks Number of ticks to run
+     */
+    public void tick(final int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            tick();
+        }
+    }
+
+    /**
+     * Cancels every task and resets the clock.
+     */
+    public void reset() {
+        synchronized (tasks) {
+            tasks.forEach(task -> task.cancelled = true);
+            tasks.clear();
+        }
+        currentTick = 0;
+    }
+
+    /**
+     * Runs the due tasks of one kind. Tasks scheduled while
+     * running are picked up on a later tick.
+     *
+     * @param async Whether to run the async tasks
+     */
+    private void runDue(final boolean async) {
+        final List<StubTask> due;
+        synchronized (tasks) {
+            due = new ArrayList<>(tasks);
+        }
+
+        for (final StubTask task : due) {
+            if (task.cancelled || task.async != async || task.nextRun > currentTick) continue;
+
+            runningTaskId = task.taskId;
+            final long startNanos = System.nanoTime();
+            try {
+                task.runnable.run();
+            } finally {
+                runningTaskId = -1;
+            }
+            if (taskObserver != null) {
+                taskObserver.onTaskRun(task.owner, task.async, System.nanoTime() - startNanos);
+            }
+
+            if (task.period > 0 && !task.cancelled) {
+                task.nextRun = currentTick + task.period;
+            } else {
+                task.cancelled = true;
+                synchronized (tasks) {
+                    tasks.remove(task);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param action Runnable or Consumer of the task
+     * @param delay  Delay before the first run in ticks
+     * @param period Period in ticks, or -1 to run once
+     * @param async  Whether the task is asynchronous
+     * @return The BukkitTask, or null for Consumer tasks
+     */
+    @SuppressWarnings("unchecked")
+    private BukkitTask schedule(final Object action, final long delay, final long period, final boolean async) {
+        final StubTask task;
+        synchronized (tasks) {
+            task = new StubTask(nextTaskId++, delay, period == 0 ? 1 : period, async);
+        }
+
+        task.owner = action;
+        if (action instanceof final Runnable runnable) {
+            task.runnable = runnable;
+        } else {
+            final Consumer<BukkitTask> consumer = (Consumer<BukkitTask>) action;
+            task.runnable = () -> consumer.accept(task.bukkitTask);
+        }
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+
+        return action instanceof Runnable ? task.bukkitTask : null;
+    }
+
+    /**
+     * Cancels the task with the id.
+     *
+     * @param taskId Id of the task
+     */
+    private void cancelTask(final int taskId) {
+        synchronized (tasks) {
+            final Iterator<StubTask> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                final StubTask task = iterator.next();
+                if (task.taskId == taskId) {
+                    task.cancelled = true;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a scheduled task by id.
+     *
+     * @param taskId Id of the task
+     * @return The task, or null if there is none
+     */
+    private StubTask findTask(final int taskId) {
+        synchronized (tasks) {
+            for (final StubTask task : tasks) {
+                if (task.taskId == taskId) return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Observes how long the tasks take.
+     */
+    @FunctionalInterface
+    public interface TaskObserver {
+
+        /**
+         * Called after a task has run.
+         *
+         * @param action      Runnable or Consumer the task was scheduled with
+         * @param async       Whether the task was scheduled off the main thread
+         * @param nanoseconds Duration of the run
+         */
+        void onTaskRun(Object action, boolean async, long nanoseconds);
+    }
+
+    /**
+     * A task scheduled on the stub.
+     */
+    private final class StubTask {
+
+        private final int taskId;           // Id of the task
+        private final long period;          // Period in ticks, or -1
+        private final boolean async;        // Whether the task is asynchronous
+        private final BukkitTask bukkitTask; // The BukkitTask stub
+        private Object owner;               // Runnable or Consumer the task was scheduled with
+        private Runnable runnable;          // Work of the task
+        private long nextRun;               // Tick of the next run
+        private volatile boolean cancelled; // Whether the task was cancelled
+
+        private StubTask(final int taskId, final long delay, final long period, final boolean async) {
+            this.taskId = taskId;
+            this.period = period;
+            this.async = async;
+            nextRun = currentTick + Math.max(1L, delay);
+            bukkitTask = StubProxy.create(BukkitTask.class, "StubTask{" + taskId + "}", (method, args) ->
+                    switch (method.getName()) {
+                        case "getTaskId" -> taskId;
+                        case "isSync" -> !async;
+                        case "isCancelled" -> cancelled;
+                        case "cancel" -> {
+                            cancelTask(taskId);
+                            yield null;
+                        }
+                        default -> StubProxy.defaultValue(method);
+                    });
+        }
+    }
+}
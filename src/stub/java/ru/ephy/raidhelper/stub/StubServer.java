@@ -0,0 +1,203 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-repo stand-in for the Bukkit {@link Server}, enough
+ * to construct and drive the plugin's components without
+ * a running server. Bukkit only accepts one server per
+ * JVM, so the stub is installed once and reset between runs.
+ * Both the Bukkit scheduler and the Folia schedulers are
+ * available.
+ */
+public final class StubServer {
+
+    private static volatile StubServer instance;                   // The installed stub
+
+    private final Logger logger = Logger.getLogger("StubServer");  // Logger of the server
+    private final StubScheduler scheduler = new StubScheduler();   // Scheduler of the server
+    private final StubRegionScheduler regionScheduler = new StubRegionScheduler(scheduler); // Folia schedulers
+    private final StubPluginManager pluginManager = new StubPluginManager(); // Plugin manager of the server
+    private final Map<String, StubWorld> worlds = new LinkedHashMap<>(); // Worlds by name
+    private final Server server;                                   // The Server stub
+
+    /**
+     * Creates the Server stub.
+     */
+    private StubServer() {
+        logger.setLevel(Level.WARNING);
+        server = StubProxy.create(Server.class, "StubServer", (method, args) ->
+                switch (method.getName()) {
+                    case "getLogger" -> logger;
+                    case "getName" -> "StubServer";
+                    case "getVersion", "getBukkitVersion", "getMinecraftVersion" -> "1.20.4";
+                    case "getScheduler" -> scheduler.getScheduler();
+                    case "getGlobalRegionScheduler" -> regionScheduler.getGlobalRegionScheduler();
+                    case "getRegionScheduler" -> regionScheduler.getRegionScheduler();
+                    case "getAsyncScheduler" -> regionScheduler.getAsyncScheduler();
+                    case "isGlobalTickThread" -> regionScheduler.isGlobalTickThread();
+                    case "isOwnedByCurrentRegion" -> args[0] instanceof final Location location
+                            && regionScheduler.isOwnedByCurrentRegion(location);
+                    case "getPluginManager" -> pluginManager.getPluginManager();
+                    case "getWorld" -> findWorld(args[0]);
+                    case "getWorlds" -> worldList();
+                    case "getOnlinePlayers" -> onlinePlayers();
+                    case "getCurrentTick" -> (int) scheduler.getCurrentTick();
+                    case "isPrimaryThread" -> true;
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Installs the stub as the Bukkit server if it is not
+     * installed yet and returns it.
+     *
+     * @return The installed stub
+     */
+    public static synchronized StubServer install() {
+        if (instance == null) {
+            instance = new StubServer();
+            Bukkit.setServer(instance.server);
+        }
+        return instance;
+    }
+
+    /**
+     * Checks that the current thread owns the location, if
+     * the installed stub checks region ownership.
+     *
+     * @param location Location of the state that is read
+     */
+    static void checkOwned(final Location location) {
+        final StubServer server = instance;
+        if (server != null) {
+            server.regionScheduler.checkOwned(location);
+        }
+    }
+
+    /**
+     * Checks that the current thread is a region thread, if
+     * the installed stub checks region ownership.
+     */
+    static void checkRegionThread() {
+        final StubServer server = instance;
+        if (server != null) {
+            server.regionScheduler.checkRegionThread();
+        }
+    }
+
+    /**
+     * Removes all worlds, listeners and tasks.
+     */
+    public void reset() {
+        worlds.clear();
+        scheduler.reset();
+        regionScheduler.reset();
+        pluginManager.reset();
+    }
+
+    /**
+     * Creates a world and makes it known to the server.
+     *
+     * @param name Name of the world
+     * @return The new world
+     */
+    public StubWorld createWorld(final String name) {
+        final StubWorld world = new StubWorld(name);
+        worlds.put(name, world);
+        return world;
+    }
+
+    /**
+     * Returns the scheduler of the server.
+     *
+     * @return The scheduler
+     */
+    public StubScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the Folia schedulers of the server.
+     *
+     * @return The region scheduler
+     */
+    public StubRegionScheduler getRegionScheduler() {
+        return regionScheduler;
+    }
+
+    /**
+     * Returns the plugin manager of the server.
+     *
+     * @return The plugin manager
+     */
+    public StubPluginManager getPluginManager() {
+        return pluginManager;
+    }
+
+    /**
+     * Returns the Server stub.
+     *
+     * @return The Server stub
+     */
+    public Server getServer() {
+        return server;
+    }
+
+    /**
+     * Returns a logger that drops everything below WARNING.
+     *
+     * @return The logger
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Finds a world by name or unique id.
+     *
+     * @param key Name or unique id of the world
+     * @return The world, or null if there is none
+     */
+    private World findWorld(final Object key) {
+        for (final StubWorld world : worlds.values()) {
+            if (key instanceof String && world.getName().equals(key)) return world.getWorld();
+            if (key instanceof UUID && world.getWorld().getUID().equals(key)) return world.getWorld();
+        }
+        return null;
+    }
+
+    /**
+     * Builds a list of the players of every world.
+     *
+     * @return Players on the server
+     */
+    private List<Player> onlinePlayers() {
+        final List<Player> result = new ArrayList<>();
+        worlds.values().forEach(world -> result.addAll(world.getStubPlayers()));
+        return result;
+    }
+
+    /**
+     * Builds a list of the worlds.
+     *
+     * @return Worlds of the server
+     */
+    private List<World> worldList() {
+        final List<World> result = new ArrayList<>(worlds.size());
+        worlds.values().forEach(world -> result.add(world.getWorld()));
+        return result;
+    }
+}
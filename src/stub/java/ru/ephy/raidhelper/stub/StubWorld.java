@@ -0,0 +1,137 @@
+package ru.ephy.raidhelper.stub;
+
+import org.bukkit.Raid;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stand-in for a {@link World} holding raids and players.
+ */
+public final class StubWorld {
+
+    private final String name;                              // Name of the world
+    private final World world;                              // The World stub
+    private final UUID uid = UUID.randomUUID();             // Unique id of the world
+    private final List<StubRaid> raids = new ArrayList<>(); // Raids of the world
+    private final List<Player> players = new ArrayList<>(); // Players in the world
+
+    /**
+     * Creates an overworld with the given name.
+     *
+     * @param name Name of the world
+     */
+    public StubWorld(final String name) {
+        this.name = name;
+        world = StubProxy.create(World.class, "StubWorld{" + name + "}", (method, args) ->
+                switch (method.getName()) {
+                    case "getName" -> name;
+                    case "getUID" -> uid;
+                    case "getEnvironment" -> World.Environment.NORMAL;
+                    case "getRaids" -> {
+                        StubServer.checkRegionThread();
+                        yield raidList();
+                    }
+                    case "getRaid" -> findRaid((int) args[0]);
+                    case "getPlayers" -> {
+                        StubServer.checkRegionThread();
+                        yield new ArrayList<>(players);
+                    }
+                    case "getChunkAtAsync" -> CompletableFuture.completedFuture(null); // Every chunk counts as loaded
+                    default -> StubProxy.defaultValue(method);
+                });
+    }
+
+    /**
+     * Returns the name of the world.
+     *
+     * @return Name of the world
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the World stub.
+     *
+     * @return The World stub
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Adds a raid to the world.
+     *
+     * @param raid Raid to add
+     */
+    public void addRaid(final StubRaid raid) {
+        raids.add(raid);
+    }
+
+    /**
+     * Removes a raid from the world.
+     *
+     * @param raid Raid to remove
+     */
+    public void removeRaid(final StubRaid raid) {
+        raids.remove(raid);
+    }
+
+    /**
+     * Adds a player to the world.
+     *
+     * @param player Player to add
+     */
+    public void addPlayer(final Player player) {
+        players.add(player);
+    }
+
+    /**
+     * Returns the players of the world.
+     *
+     * @return Players in the world
+     */
+    public List<Player> getStubPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns the stub raids of the world.
+     *
+     * @return Raids of the world
+     */
+    public List<StubRaid> getStubRaids() {
+        return raids;
+    }
+
+    /**
+     * Builds a fresh list of the raids, like the server does.
+     *
+     * @return Raids of the world
+     */
+    private List<Raid> raidList() {
+        final List<Raid> result = new ArrayList<>(raids.size());
+        for (final StubRaid raid : raids) {
+            result.add(raid.getRaid());
+        }
+        return result;
+    }
+
+    /**
+     * Finds a raid by id.
+     *
+     * @param raidId Id of the raid
+     * @return The raid, or null if there is none
+     */
+    private Raid findRaid(final int raidId) {
+        for (final StubRaid raid : raids) {
+            if (raid.getId() == raidId) return raid.getRaid();
+        }
+        return null;
+    }
+}